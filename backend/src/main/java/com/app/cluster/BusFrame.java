@@ -0,0 +1,59 @@
+package com.app.cluster;
+
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One line of the node-to-node protocol of {@link TcpEventBus}; only the fields of its type are set.
+ * <ul>
+ *   <li>{@code hello}: first frame on a connection, with the sender's id, the cluster secret, its client URL and
+ *   current interests</li>
+ *   <li>{@code interest}: the sender gained ({@code add}) or lost its subscribers for a session, or for "*"</li>
+ *   <li>{@code event}: a transcript event the receiver has subscribers for</li>
+ *   <li>{@code snapshot-request} / {@code snapshot-reply}: the receiver's session snapshots, matched by id; a reply
+ *   too long for one frame is split, and every part but the last has {@code more} set</li>
+ * </ul>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record BusFrame(String type,
+                String node,
+                String secret,
+                String url,
+                List<String> interests,
+                String sessionId,
+                Boolean add,
+                TranscriptEvent event,
+                Long requestId,
+                List<TranscriptDelta> snapshots,
+                Boolean more) {
+
+    static final String HELLO = "hello";
+    static final String INTEREST = "interest";
+    static final String EVENT = "event";
+    static final String SNAPSHOT_REQUEST = "snapshot-request";
+    static final String SNAPSHOT_REPLY = "snapshot-reply";
+
+    static BusFrame hello(String node, String secret, String url, List<String> interests) {
+        return new BusFrame(HELLO, node, secret, url, interests, null, null, null, null, null, null);
+    }
+
+    static BusFrame interest(String sessionId, boolean add) {
+        return new BusFrame(INTEREST, null, null, null, null, sessionId, add, null, null, null, null);
+    }
+
+    static BusFrame event(TranscriptEvent event) {
+        return new BusFrame(EVENT, null, null, null, null, null, null, event, null, null, null);
+    }
+
+    static BusFrame snapshotRequest(long requestId, String sessionId) {
+        return new BusFrame(SNAPSHOT_REQUEST, null, null, null, null, sessionId, null, null, requestId, null, null);
+    }
+
+    static BusFrame snapshotReply(long requestId, List<TranscriptDelta> snapshots, boolean more) {
+        return new BusFrame(SNAPSHOT_REPLY, null, null, null, null, null, null, null, requestId, snapshots,
+                more ? true : null);
+    }
+}
@@ -0,0 +1,78 @@
+package com.app.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This node and its configured peers, with session ownership assigned over a {@link ConsistentHashRing}.
+ * <p>
+ * Membership is static: every node is on the ring whether or not it is reachable, so all nodes compute the same
+ * owner for a key as long as they share the peer list. Peers report the URL clients reach them on when they
+ * connect; until then a peer has no URL.
+ */
+public class ClusterMembership {
+
+    private final String nodeId;
+    private final String advertisedUrl;
+    private final List<PeerAddress> peers;
+    private final ConsistentHashRing ring;
+    private final Map<String, String> urls = new ConcurrentHashMap<>();
+
+    public ClusterMembership(String nodeId, String advertisedUrl, List<PeerAddress> peers, int virtualNodes) {
+        this.nodeId = nodeId;
+        this.advertisedUrl = advertisedUrl;
+        this.peers = List.copyOf(peers);
+        this.ring = new ConsistentHashRing(virtualNodes);
+        ring.add(nodeId);
+        for (PeerAddress peer : this.peers) {
+            if (peer.id().equals(nodeId)) {
+                throw new IllegalArgumentException("Peer list contains this node's id " + nodeId);
+            }
+            ring.add(peer.id());
+        }
+        if (advertisedUrl != null && !advertisedUrl.isBlank()) {
+            urls.put(nodeId, advertisedUrl);
+        }
+    }
+
+    /** A cluster of one. */
+    public static ClusterMembership standalone(String nodeId) {
+        return new ClusterMembership(nodeId, null, List.of(), 1);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public String advertisedUrl() {
+        return advertisedUrl;
+    }
+
+    public List<PeerAddress> peers() {
+        return peers;
+    }
+
+    public List<String> nodes() {
+        return List.copyOf(ring.nodes());
+    }
+
+    public String owner(String key) {
+        return ring.owner(key);
+    }
+
+    public boolean isLocal(String key) {
+        return nodeId.equals(ring.owner(key));
+    }
+
+    /** Client-facing base URL of {@code node}, or null if it has not reported one. */
+    public String url(String node) {
+        return urls.get(node);
+    }
+
+    void learnUrl(String node, String url) {
+        if (url != null && !url.isBlank()) {
+            urls.put(node, url);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.app.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maps keys to nodes so that adding or removing a node only moves the keys of that node's share of the ring,
+ * about 1/N of them, instead of rehashing everything.
+ * <p>
+ * Each node is placed at {@code virtualNodes} points on a 64-bit ring; a key belongs to the first point at or
+ * after its own hash. More points per node even out the shares (the spread is roughly 1/sqrt(virtualNodes)).
+ * Lookups read an immutable copy of the ring, so they need no lock.
+ */
+public class ConsistentHashRing {
+
+    private final int virtualNodes;
+    private volatile NavigableMap<Long, String> ring = Collections.emptyNavigableMap();
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void add(String node) {
+        TreeMap<Long, String> updated = new TreeMap<>(ring);
+        for (int i = 0; i < virtualNodes; i++) {
+            // On the rare 64-bit collision the smaller node id keeps the point, so every node agrees
+            updated.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+        }
+        ring = updated;
+    }
+
+    public synchronized void remove(String node) {
+        TreeMap<Long, String> updated = new TreeMap<>(ring);
+        updated.values().removeIf(node::equals);
+        ring = updated;
+    }
+
+    /**
+     * @return the node owning {@code key}, or null if the ring is empty
+     */
+    public String owner(String key) {
+        NavigableMap<Long, String> current = ring;
+        if (current.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = current.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : current.firstEntry().getValue();
+    }
+
+    public Set<String> nodes() {
+        return Collections.unmodifiableSet(new TreeSet<>(ring.values()));
+    }
+
+    /** FNV-1a over the UTF-8 bytes, then the MurmurHash3 finalizer to spread nearby keys over the ring. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
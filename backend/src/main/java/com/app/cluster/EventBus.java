@@ -0,0 +1,42 @@
+package com.app.cluster;
+
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptEvent;
+import com.app.model.TranscriptionResult;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Carries transcript events from the node that runs a session to subscribers on any node.
+ * <p>
+ * Delivery is best effort and unordered across sessions; within a session events arrive in publish order, and
+ * delta subscribers detect anything lost from the seq gap, as they do locally.
+ */
+public interface EventBus {
+
+    void publish(TranscriptEvent event);
+
+    /** Results of every session, for the plain transcription stream. */
+    Flux<TranscriptionResult> results();
+
+    /**
+     * @param sessionId only this session's deltas, or null for every session
+     */
+    Flux<TranscriptDelta> deltas(String sessionId);
+
+    /**
+     * Snapshots of matching sessions that run on other nodes, for a subscriber that has just subscribed to
+     * {@link #deltas}; empty on a single node.
+     */
+    Flux<TranscriptDelta> remoteSnapshots(String sessionId);
+
+    /**
+     * Answers other nodes' {@link #remoteSnapshots} requests with this node's sessions (null for all).
+     */
+    void setSnapshotSource(Function<String, List<TranscriptDelta>> source);
+
+    /** Events published on this node that local subscribers have not taken yet. */
+    long queued();
+}
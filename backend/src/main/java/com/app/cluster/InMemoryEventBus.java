@@ -0,0 +1,61 @@
+package com.app.cluster;
+
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptEvent;
+import com.app.model.TranscriptionResult;
+import reactor.core.Scannable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Single-node bus: events go straight to this process's subscribers.
+ * <p>
+ * Results are buffered for slow subscribers; deltas are dropped for a subscriber that cannot keep up, which it
+ * notices as a seq gap, so one stalled SSE client does not hold back the others.
+ */
+public class InMemoryEventBus implements EventBus {
+
+    private final Sinks.Many<TranscriptionResult> resultSink = Sinks.many().multicast().onBackpressureBuffer();
+    private final Sinks.Many<TranscriptDelta> deltaSink = Sinks.many().multicast().directBestEffort();
+
+    @Override
+    public synchronized void publish(TranscriptEvent event) {
+        // Sessions publish from their own threads; the sinks need serialized emissions
+        if (event.result() != null) {
+            resultSink.tryEmitNext(event.result());
+        }
+        if (event.delta() != null) {
+            deltaSink.tryEmitNext(event.delta());
+        }
+    }
+
+    @Override
+    public Flux<TranscriptionResult> results() {
+        return resultSink.asFlux();
+    }
+
+    @Override
+    public Flux<TranscriptDelta> deltas(String sessionId) {
+        Flux<TranscriptDelta> deltas = deltaSink.asFlux();
+        return sessionId == null ? deltas : deltas.filter(delta -> sessionId.equals(delta.sessionId()));
+    }
+
+    @Override
+    public Flux<TranscriptDelta> remoteSnapshots(String sessionId) {
+        return Flux.empty();
+    }
+
+    @Override
+    public void setSnapshotSource(Function<String, List<TranscriptDelta>> source) {
+        // No other nodes to ask
+    }
+
+    @Override
+    public long queued() {
+        Integer buffered = Scannable.from(resultSink).scan(Scannable.Attr.BUFFERED);
+        return buffered != null ? buffered : 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.app.cluster;
+
+/**
+ * Another node of the cluster, configured as {@code id@host:port} where port is its cluster (not HTTP) port.
+ */
+public record PeerAddress(String id, String host, int port) {
+
+    public static PeerAddress parse(String spec) {
+        String trimmed = spec.trim();
+        int at = trimmed.indexOf('@');
+        int colon = trimmed.lastIndexOf(':');
+        if (at <= 0 || colon < at + 2 || colon == trimmed.length() - 1) {
+            throw new IllegalArgumentException("Expected id@host:port, got '" + spec + "'");
+        }
+        try {
+            return new PeerAddress(trimmed.substring(0, at), trimmed.substring(at + 1, colon),
+                    Integer.parseInt(trimmed.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in '" + spec + "'", e);
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.app.cluster;
+
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptEvent;
+import com.app.model.TranscriptionResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.tcp.TcpClient;
+import reactor.netty.tcp.TcpServer;
+import reactor.util.concurrent.Queues;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Event bus across nodes over plain TCP (Reactor Netty), one line of JSON per {@link BusFrame}.
+ * <p>
+ * Every node listens on its cluster port and dials each configured peer; a node sends over the connection it
+ * dialled and receives over the ones it accepted. Events are only sent where they are wanted: each node tells
+ * its peers which sessions (or "*" for all) it currently has subscribers for, and a published event goes to
+ * local subscribers and to the peers interested in its session. A dropped connection is redialled after a
+ * delay and the interests are announced again; events published meanwhile are not sent to that peer.
+ * <p>
+ * Connections are only trusted after a hello that names a configured peer and carries the shared cluster secret;
+ * anything else is closed. The secret travels in plain text, so the cluster port belongs on a private network.
+ * <p>
+ * Frames to a peer queue in a bounded outbox; when a peer cannot keep up its frames are dropped and counted
+ * rather than buffered without limit. Snapshot replies are split into parts that each fit the peer's frame limit.
+ */
+@Slf4j
+public class TcpEventBus implements EventBus, AutoCloseable {
+
+    private static final String ALL_SESSIONS = "*";
+
+    /**
+     * @param secret     shared by all nodes; a connection whose hello does not carry it is closed
+     * @param outboxSize frames queued per peer before new ones are dropped
+     */
+    public record Settings(String bindHost,
+                           int port,
+                           String secret,
+                           Duration reconnectDelay,
+                           Duration snapshotTimeout,
+                           int maxFrameBytes,
+                           int outboxSize) {
+    }
+
+    private final class Peer {
+        private final PeerAddress address;
+        private volatile Sinks.Many<String> outbox;
+        private volatile Connection connection;
+        // Sessions the peer has subscribers for, as announced on its latest connection to us
+        private final Set<String> interests = ConcurrentHashMap.newKeySet();
+        private final AtomicReference<Object> inbound = new AtomicReference<>();
+
+        private Peer(PeerAddress address) {
+            this.address = address;
+        }
+
+        private boolean wants(String sessionId) {
+            return interests.contains(ALL_SESSIONS) || interests.contains(sessionId);
+        }
+
+        /** Emissions to a unicast sink must not overlap. */
+        private synchronized boolean send(String frame) {
+            Sinks.Many<String> current = outbox;
+            if (current == null || current.tryEmitNext(frame).isFailure()) {
+                dropped.increment();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private final ClusterMembership membership;
+    private final Settings settings;
+    private final ObjectMapper objectMapper;
+    private final InMemoryEventBus local = new InMemoryEventBus();
+    /** A snapshot request awaiting its reply, which may arrive in several parts. */
+    private static final class PendingSnapshots {
+        private final Sinks.One<List<TranscriptDelta>> reply = Sinks.one();
+        private final List<TranscriptDelta> received = new ArrayList<>();
+
+        private synchronized void add(List<TranscriptDelta> snapshots) {
+            received.addAll(snapshots);
+        }
+
+        private synchronized List<TranscriptDelta> received() {
+            return List.copyOf(received);
+        }
+    }
+
+    private final Map<String, Peer> peers = new LinkedHashMap<>();
+    // Local subscriber counts per session id, or ALL_SESSIONS; guarded by this
+    private final Map<String, Integer> interest = new HashMap<>();
+    private final Map<Long, PendingSnapshots> pendingSnapshots = new ConcurrentHashMap<>();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final Counter sent;
+    private final Counter received;
+    private final Counter dropped;
+    private volatile Function<String, List<TranscriptDelta>> snapshotSource = sessionId -> List.of();
+    private volatile boolean closed;
+    private DisposableServer server;
+
+    public TcpEventBus(ClusterMembership membership, Settings settings, ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry) {
+        this.membership = membership;
+        this.settings = settings;
+        this.objectMapper = objectMapper;
+        for (PeerAddress address : membership.peers()) {
+            peers.put(address.id(), new Peer(address));
+        }
+        this.sent = Counter.builder("cluster.bus.events.sent")
+                .description("Transcript events sent to peer nodes")
+                .register(meterRegistry);
+        this.received = Counter.builder("cluster.bus.events.received")
+                .description("Transcript events received from peer nodes")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("cluster.bus.frames.dropped")
+                .description("Frames not sent because the peer was disconnected or its outbox was full")
+                .register(meterRegistry);
+        Gauge.builder("cluster.peers.connected", this,
+                        bus -> bus.peers.values().stream().filter(peer -> peer.outbox != null).count())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Binds the cluster port and starts dialling the peers; blocks until the port is bound.
+     */
+    public TcpEventBus start() {
+        server = TcpServer.create()
+                .host(settings.bindHost())
+                .port(settings.port())
+                .doOnConnection(connection ->
+                        connection.addHandlerLast(new LineBasedFrameDecoder(settings.maxFrameBytes())))
+                .handle((in, out) -> {
+                    AtomicReference<Peer> from = new AtomicReference<>();
+                    Object token = new Object();
+                    return in.receive()
+                            .asString(StandardCharsets.UTF_8)
+                            .takeWhile(line -> onFrame(line, from, token))
+                            .doFinally(signal -> inboundClosed(from.get(), token))
+                            .then();
+                })
+                .bindNow();
+        log.info("Cluster node {} listening on {}:{} with peers {}", membership.nodeId(), settings.bindHost(),
+                server.port(), peers.keySet());
+        peers.values().forEach(this::connect);
+        return this;
+    }
+
+    @Override
+    public void publish(TranscriptEvent event) {
+        local.publish(event);
+        String frame = null;
+        for (Peer peer : peers.values()) {
+            if (peer.outbox != null && peer.wants(event.sessionId())) {
+                if (frame == null) {
+                    frame = encode(BusFrame.event(event));
+                }
+                if (peer.send(frame)) {
+                    sent.increment();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Flux<TranscriptionResult> results() {
+        return withInterest(ALL_SESSIONS, local.results());
+    }
+
+    @Override
+    public Flux<TranscriptDelta> deltas(String sessionId) {
+        return withInterest(sessionId != null ? sessionId : ALL_SESSIONS, local.deltas(sessionId));
+    }
+
+    @Override
+    public Flux<TranscriptDelta> remoteSnapshots(String sessionId) {
+        return Flux.defer(() -> {
+            List<Mono<List<TranscriptDelta>>> replies = new ArrayList<>();
+            for (Peer peer : peers.values()) {
+                if (peer.outbox == null) {
+                    continue;
+                }
+                long requestId = requestIds.incrementAndGet();
+                PendingSnapshots pending = new PendingSnapshots();
+                pendingSnapshots.put(requestId, pending);
+                if (!peer.send(encode(BusFrame.snapshotRequest(requestId,
+                        sessionId != null ? sessionId : ALL_SESSIONS)))) {
+                    pendingSnapshots.remove(requestId);
+                    continue;
+                }
+                replies.add(pending.reply.asMono()
+                        .timeout(settings.snapshotTimeout(), Mono.fromSupplier(() -> {
+                            // Parts may have been dropped from a full outbox; use what arrived
+                            List<TranscriptDelta> received = pending.received();
+                            log.debug("Snapshot reply from peer {} incomplete after {} ({} received)",
+                                    peer.address.id(), settings.snapshotTimeout(), received.size());
+                            return received;
+                        }))
+                        .doFinally(signal -> pendingSnapshots.remove(requestId)));
+            }
+            return Flux.merge(replies).flatMapIterable(snapshots -> snapshots);
+        });
+    }
+
+    @Override
+    public void setSnapshotSource(Function<String, List<TranscriptDelta>> source) {
+        this.snapshotSource = source;
+    }
+
+    @Override
+    public long queued() {
+        return local.queued();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (server != null) {
+            server.disposeNow();
+        }
+        for (Peer peer : peers.values()) {
+            Connection connection = peer.connection;
+            if (connection != null) {
+                connection.dispose();
+            }
+        }
+    }
+
+    private <T> Flux<T> withInterest(String key, Flux<T> events) {
+        return Flux.defer(() -> {
+            addInterest(key);
+            return events.doFinally(signal -> removeInterest(key));
+        });
+    }
+
+    private synchronized void addInterest(String key) {
+        if (interest.merge(key, 1, Integer::sum) == 1) {
+            broadcast(encode(BusFrame.interest(key, true)));
+        }
+    }
+
+    private synchronized void removeInterest(String key) {
+        if (interest.merge(key, -1, Integer::sum) == 0) {
+            interest.remove(key);
+            broadcast(encode(BusFrame.interest(key, false)));
+        }
+    }
+
+    private void broadcast(String frame) {
+        for (Peer peer : peers.values()) {
+            if (peer.outbox != null) {
+                peer.send(frame);
+            }
+        }
+    }
+
+    private void connect(Peer peer) {
+        if (closed) {
+            return;
+        }
+        TcpClient.create()
+                .host(peer.address.host())
+                .port(peer.address.port())
+                .connect()
+                .subscribe(connection -> attach(peer, connection), error -> {
+                    log.debug("Cluster peer {} unreachable: {}", peer.address.id(), error.toString());
+                    reconnectLater(peer);
+                });
+    }
+
+    private void attach(Peer peer, Connection connection) {
+        Sinks.Many<String> outbox = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<String>get(settings.outboxSize()).get());
+        synchronized (this) {
+            // Hello goes first and carries the interests, so no change can slip in between the two
+            outbox.tryEmitNext(encode(BusFrame.hello(membership.nodeId(), settings.secret(),
+                    membership.advertisedUrl(), List.copyOf(interest.keySet()))));
+            peer.connection = connection;
+            peer.outbox = outbox;
+        }
+        log.info("Connected to cluster peer {} at {}:{}", peer.address.id(), peer.address.host(), peer.address.port());
+        connection.onDispose(() -> {
+            synchronized (this) {
+                if (peer.outbox == outbox) {
+                    peer.outbox = null;
+                    peer.connection = null;
+                }
+            }
+            log.info("Lost connection to cluster peer {}", peer.address.id());
+            reconnectLater(peer);
+        });
+        connection.outbound()
+                .sendString(outbox.asFlux().map(frame -> frame + "\n"), StandardCharsets.UTF_8)
+                .then()
+                .subscribe(null, error -> connection.dispose());
+    }
+
+    private void reconnectLater(Peer peer) {
+        if (!closed) {
+            Mono.delay(settings.reconnectDelay()).subscribe(tick -> connect(peer));
+        }
+    }
+
+    /**
+     * @return false to close the connection
+     */
+    private boolean onFrame(String line, AtomicReference<Peer> from, Object token) {
+        BusFrame frame;
+        try {
+            frame = objectMapper.readValue(line, BusFrame.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cluster frame: {}", e.getOriginalMessage());
+            return from.get() != null;
+        }
+        if (from.get() == null) {
+            // Nothing is accepted before a valid hello
+            if (!BusFrame.HELLO.equals(frame.type()) || !authentic(frame.secret())) {
+                log.warn("Closing cluster connection without a valid hello (claimed node {})", frame.node());
+                return false;
+            }
+            Peer peer = peers.get(frame.node());
+            if (peer == null) {
+                log.warn("Closing connection from {}, which is not a configured peer", frame.node());
+                return false;
+            }
+            from.set(peer);
+            peer.inbound.set(token);
+            peer.interests.clear();
+            if (frame.interests() != null) {
+                peer.interests.addAll(frame.interests());
+            }
+            membership.learnUrl(peer.address.id(), frame.url());
+            return true;
+        }
+        Peer peer = from.get();
+        switch (frame.type()) {
+            case BusFrame.INTEREST -> {
+                if (Boolean.TRUE.equals(frame.add())) {
+                    peer.interests.add(frame.sessionId());
+                } else {
+                    peer.interests.remove(frame.sessionId());
+                }
+            }
+            case BusFrame.EVENT -> {
+                received.increment();
+                local.publish(frame.event());
+            }
+            case BusFrame.SNAPSHOT_REQUEST -> {
+                String sessionId = ALL_SESSIONS.equals(frame.sessionId()) ? null : frame.sessionId();
+                sendSnapshots(peer, frame.requestId(), snapshotSource.apply(sessionId));
+            }
+            case BusFrame.SNAPSHOT_REPLY -> {
+                PendingSnapshots pending = pendingSnapshots.get(frame.requestId());
+                if (pending != null) {
+                    if (frame.snapshots() != null) {
+                        pending.add(frame.snapshots());
+                    }
+                    if (!Boolean.TRUE.equals(frame.more())) {
+                        pendingSnapshots.remove(frame.requestId());
+                        pending.reply.tryEmitValue(pending.received());
+                    }
+                }
+            }
+            default -> log.debug("Ignoring cluster frame of unknown type {}", frame.type());
+        }
+        return true;
+    }
+
+    /**
+     * Replies with {@code snapshots} in as few frames as fit the frame limit. A snapshot too long for a frame of its
+     * own is left out: the peer's decoder would reject the line.
+     */
+    private void sendSnapshots(Peer peer, long requestId, List<TranscriptDelta> snapshots) {
+        // The line's newline counts towards the limit; the envelope with "more" set is the longer one
+        int limit = settings.maxFrameBytes() - 1;
+        int envelope = utf8Length(encode(BusFrame.snapshotReply(requestId, List.of(), true)));
+        List<TranscriptDelta> part = new ArrayList<>();
+        int partBytes = envelope;
+        for (TranscriptDelta snapshot : snapshots) {
+            int bytes = utf8Length(encode(snapshot));
+            if (envelope + bytes > limit) {
+                log.warn("Leaving snapshot of session {} ({} bytes) out of the reply to peer {}: over {} bytes",
+                        snapshot.sessionId(), bytes, peer.address.id(), settings.maxFrameBytes());
+                continue;
+            }
+            // Elements after the first are preceded by a comma
+            if (!part.isEmpty() && partBytes + 1 + bytes > limit) {
+                if (!peer.send(encode(BusFrame.snapshotReply(requestId, part, true)))) {
+                    return;
+                }
+                part = new ArrayList<>();
+                partBytes = envelope;
+            }
+            partBytes += (part.isEmpty() ? 0 : 1) + bytes;
+            part.add(snapshot);
+        }
+        peer.send(encode(BusFrame.snapshotReply(requestId, part, false)));
+    }
+
+    private static int utf8Length(String json) {
+        return json.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private boolean authentic(String secret) {
+        return secret != null && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                settings.secret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void inboundClosed(Peer peer, Object token) {
+        // A newer connection from the same peer may already have announced its interests
+        if (peer != null && peer.inbound.compareAndSet(token, null)) {
+            peer.interests.clear();
+        }
+    }
+
+    private String encode(BusFrame frame) {
+        try {
+            return objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode cluster frame " + frame.type(), e);
+        }
+    }
+
+    private String encode(TranscriptDelta snapshot) {
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode snapshot of session " + snapshot.sessionId(), e);
+        }
+    }
+}
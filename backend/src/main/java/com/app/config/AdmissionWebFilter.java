@@ -0,0 +1,59 @@
+package com.app.config;
+
+import com.app.service.SessionAdmissionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs admission control on STT WebSocket handshakes before the upgrade.
+ * A rejected handshake gets 503 with Retry-After; an admitted one carries its permit in the
+ * {@link #PERMIT_ATTRIBUTE} exchange attribute, which is copied into the WebSocket session attributes. The
+ * permit is handed to the STT session and held until that session closes (for a resumable session, after its
+ * grace period), or released here if the upgrade does not happen. A handshake resuming a session that is still
+ * open here skips admission, since that session kept its permit.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionWebFilter implements WebFilter {
+
+    public static final String PERMIT_ATTRIBUTE = "stt.admission.permit";
+    /** Set on the exchange once the handshake checks have passed and the connection is being upgraded. */
+    public static final String UPGRADED_ATTRIBUTE = "stt.admission.upgraded";
+    static final String STREAM_PATH = "/api/audio/stream";
+
+    private final SessionAdmissionService admission;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!STREAM_PATH.equals(exchange.getRequest().getPath().value())
+                || !"websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade())
+                || admission.resumesAdmittedSession(exchange.getRequest().getQueryParams().getFirst("resume"))) {
+            return chain.filter(exchange);
+        }
+        return admission.admit()
+                .flatMap(permit -> {
+                    exchange.getAttributes().put(PERMIT_ATTRIBUTE, permit);
+                    // The chain may complete as soon as the handshake is done while the session runs on, so an
+                    // upgraded session's permit is left to the handler, which hands it to the STT session
+                    return chain.filter(exchange)
+                            .doOnError(error -> permit.release())
+                            .doFinally(signal -> {
+                                if (!exchange.getAttributes().containsKey(UPGRADED_ATTRIBUTE)) {
+                                    permit.release();
+                                }
+                            });
+                })
+                .onErrorResume(SessionAdmissionService.AdmissionRejectedException.class, e -> {
+                    exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(e.retryAfter().toSeconds()));
+                    return exchange.getResponse().setComplete();
+                });
+    }
+}
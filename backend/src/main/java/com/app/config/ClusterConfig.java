@@ -0,0 +1,85 @@
+package com.app.config;
+
+import com.app.cluster.ClusterMembership;
+import com.app.cluster.EventBus;
+import com.app.cluster.InMemoryEventBus;
+import com.app.cluster.PeerAddress;
+import com.app.cluster.TcpEventBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Single node by default; with {@code cluster.enabled} transcript events are shared with the configured peers
+ * over TCP and session ownership is spread over all nodes.
+ */
+@Configuration
+public class ClusterConfig {
+
+    @Value("${cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cluster.node-id:local}")
+    private String nodeId;
+
+    @Value("${cluster.bind-host:127.0.0.1}")
+    private String bindHost;
+
+    @Value("${cluster.port:7400}")
+    private int port;
+
+    @Value("${cluster.secret:}")
+    private String secret;
+
+    // The ring holds this node and all peers, reachable or not
+    @Value("${cluster.peers:}")
+    private List<String> peers;
+
+    @Value("${cluster.advertised-url:}")
+    private String advertisedUrl;
+
+    @Value("${cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${cluster.reconnect-delay-ms:2000}")
+    private long reconnectDelayMs;
+
+    @Value("${cluster.snapshot-timeout-ms:500}")
+    private long snapshotTimeoutMs;
+
+    @Value("${cluster.max-frame-bytes:1048576}")
+    private int maxFrameBytes;
+
+    @Value("${cluster.outbox-size:4096}")
+    private int outboxSize;
+
+    @Bean
+    public ClusterMembership clusterMembership() {
+        if (!enabled) {
+            return ClusterMembership.standalone(nodeId);
+        }
+        List<PeerAddress> addresses = peers.stream()
+                .filter(spec -> !spec.isBlank())
+                .map(PeerAddress::parse)
+                .toList();
+        return new ClusterMembership(nodeId, advertisedUrl, addresses, virtualNodes);
+    }
+
+    @Bean
+    public EventBus eventBus(ClusterMembership membership, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        if (!enabled) {
+            return new InMemoryEventBus();
+        }
+        if (secret.isBlank()) {
+            throw new IllegalStateException("cluster.secret must be set when cluster.enabled=true");
+        }
+        TcpEventBus.Settings settings = new TcpEventBus.Settings(bindHost, port, secret,
+                Duration.ofMillis(reconnectDelayMs), Duration.ofMillis(snapshotTimeoutMs), maxFrameBytes, outboxSize);
+        return new TcpEventBus(membership, settings, objectMapper, meterRegistry).start();
+    }
+}
@@ -5,7 +5,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.HandshakeInfo;
+import org.springframework.web.reactive.socket.server.RequestUpgradeStrategy;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
 import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,6 +33,27 @@ public class WebSocketConfig {
     @Bean
     public WebSocketHandlerAdapter handlerAdapter() {
         System.out.println("Creating WebSocketHandlerAdapter");
-        return new WebSocketHandlerAdapter();
+        // Hand the admission permit from the handshake filter to the session so the handler can release it.
+        // The upgrade is only reached for a valid handshake; from there on the handler owns the permit.
+        RequestUpgradeStrategy netty = new ReactorNettyRequestUpgradeStrategy();
+        HandshakeWebSocketService webSocketService = new HandshakeWebSocketService(
+                (exchange, handler, subProtocol, handshakeInfo) -> {
+                    exchange.getAttributes().put(AdmissionWebFilter.UPGRADED_ATTRIBUTE, Boolean.TRUE);
+                    Object permit = exchange.getAttribute(AdmissionWebFilter.PERMIT_ATTRIBUTE);
+                    return netty.upgrade(exchange, handler, subProtocol,
+                            () -> withPermit(handshakeInfo.get(), permit));
+                });
+        return new WebSocketHandlerAdapter(webSocketService);
+    }
+
+    // Session attributes are otherwise only copied from the HTTP WebSession, which handshakes do not have
+    private static HandshakeInfo withPermit(HandshakeInfo info, Object permit) {
+        if (permit == null) {
+            return info;
+        }
+        Map<String, Object> attributes = new HashMap<>(info.getAttributes());
+        attributes.put(AdmissionWebFilter.PERMIT_ATTRIBUTE, permit);
+        return new HandshakeInfo(info.getUri(), info.getHeaders(), info.getCookies(), info.getPrincipal(),
+                info.getSubProtocol(), info.getRemoteAddress(), attributes, info.getLogPrefix());
     }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package com.app.controller;
 
+import com.app.model.TranscriptDelta;
 import com.app.service.SpeechTranscriptionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 
@@ -34,5 +38,22 @@ public class AudioStreamController {
                     return "data: " + json + "\n\n";
                 });
     }
-}
 
+    /**
+     * Incremental transcript: one "snapshot" event per open session on connect, then "delta" events that carry
+     * only the changed suffix of the hypothesis plus word timings on finals. Event ids are sessionId:seq; a client
+     * that reconnects with Last-Event-ID gets that session's missed deltas instead of its snapshot, if still kept.
+     * With {@code sessionId} only that session is streamed; in a cluster, only the node running it then sends
+     * anything to this one.
+     */
+    @GetMapping(value = "/transcription/deltas", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TranscriptDelta>> streamTranscriptDeltas(
+            @RequestParam(required = false) String sessionId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return transcriptionService.deltaFlux(sessionId, lastEventId)
+                .map(delta -> ServerSentEvent.builder(delta)
+                        .id(delta.sessionId() + ":" + delta.seq())
+                        .event(delta.snapshot() ? "snapshot" : "delta")
+                        .build());
+    }
+}
@@ -1,29 +1,90 @@
 package com.app.controller;
 
+import com.app.cluster.ClusterMembership;
+import com.app.config.AdmissionWebFilter;
+import com.app.model.SessionHandshake;
+import com.app.model.SessionRedirect;
+import com.app.service.SessionAdmissionService;
 import com.app.service.SpeechTranscriptionService;
+import com.app.service.TranscriptionSession;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class AudioStreamHandler implements WebSocketHandler {
 
+    private static final int FRAME_SEQ_BYTES = 4;
+
+    /** Binary message payload; {@code seq} is -1 for sessions that do not number their frames. */
+    private record AudioFrame(long seq, byte[] pcm) {
+    }
+
     private final SpeechTranscriptionService sttService;
+    private final ObjectMapper objectMapper;
+    private final ClusterMembership membership;
 
     @Override
     public Mono<Void> handle(WebSocketSession session) {
-        // Send a simple acknowledgment
-        Mono<Void> ack = session.send(Mono.just(
-                new WebSocketMessage(WebSocketMessage.Type.TEXT, 
-                        session.bufferFactory().wrap("connected".getBytes()))))
+        // Clients pick a recognition profile and endpointing mode at handshake:
+        // /api/audio/stream?profile=<name>&endpointing=client|server
+        // and ask for a session that survives a dropped connection with resumable=true, or get one back with
+        // resume=<token>; binary frames of such a session start with a 4-byte big-endian frame number
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getHandshakeInfo().getUri())
+                .build()
+                .getQueryParams();
+        Runnable closeConnection = () -> session.close(CloseStatus.GOING_AWAY).subscribe();
+        String resumeToken = params.getFirst("resume");
+        TranscriptionSession resumed = resumeToken != null ? sttService.resume(resumeToken).orElse(null) : null;
+        if (resumeToken != null && resumed == null && !membership.isLocal(resumeToken)) {
+            // In a cluster the session lives on the node owning its token; send the client there
+            String owner = membership.owner(resumeToken);
+            log.info("Connection {} resumes a session of node {}, redirecting", session.getId(), owner);
+            return session.send(Mono.just(session.textMessage(
+                            json(new SessionRedirect("redirect", owner, membership.url(owner))))))
+                    .then(session.close(CloseStatus.NORMAL))
+                    .doFinally(signal -> releasePermit(session));
+        }
+        long resumedAttachment = resumed != null ? resumed.attach(closeConnection) : -1;
+        TranscriptionSession stt;
+        long attachment;
+        if (resumedAttachment >= 0) {
+            stt = resumed;
+            attachment = resumedAttachment;
+            log.info("Session {} resumed on connection {} at frame {}", stt.id(), session.getId(), stt.nextFrameSeq());
+        } else {
+            boolean resumable = resumeToken != null || Boolean.parseBoolean(params.getFirst("resumable"));
+            stt = sttService.openSession(session.getId(), params.getFirst("profile"),
+                    params.getFirst("endpointing"), resumable);
+            attachment = stt.attach(closeConnection);
+        }
+        // The admission slot follows the STT session, so a resumable session keeps it while detached
+        if (session.getAttributes().get(AdmissionWebFilter.PERMIT_ATTRIBUTE)
+                instanceof SessionAdmissionService.Permit permit) {
+            stt.holdPermit(permit);
+        }
+
+        // Send a simple acknowledgment, or the session details a resumable client needs to reconnect
+        String ackText = stt.isResumable()
+                ? json(new SessionHandshake("session", stt.id(), stt.resumeToken(), stt == resumed,
+                        stt.nextFrameSeq()))
+                : "connected";
+        Mono<Void> ack = session.send(Mono.just(session.textMessage(ackText)))
                 .onErrorResume(err -> {
                     log.error("Failed to send ack", err);
                     return Mono.empty();
@@ -36,14 +97,24 @@ public class AudioStreamHandler implements WebSocketHandler {
                         // Extract audio data
                         return Mono.fromCallable(() -> {
                             DataBuffer buffer = msg.getPayload();
+                            long seq = -1;
+                            if (stt.isResumable() && buffer.readableByteCount() >= FRAME_SEQ_BYTES) {
+                                byte[] header = new byte[FRAME_SEQ_BYTES];
+                                buffer.read(header);
+                                seq = Integer.toUnsignedLong(ByteBuffer.wrap(header).getInt());
+                            }
                             byte[] bytes = new byte[buffer.readableByteCount()];
                             buffer.read(bytes);
                             DataBufferUtils.release(buffer);
-                            return bytes;
+                            return new AudioFrame(seq, bytes);
                         })
-                        .doOnNext(bytes -> {
+                        .doOnNext(frame -> {
                             // Send to STT Service - it will auto-start if needed
-                            sttService.sendAudio(bytes);
+                            if (stt.isResumable()) {
+                                stt.sendAudio(frame.seq(), frame.pcm());
+                            } else {
+                                stt.sendAudio(frame.pcm());
+                            }
                         });
                     } else if (msg.getType() == WebSocketMessage.Type.TEXT) {
                         DataBuffer buffer = msg.getPayload();
@@ -52,16 +123,16 @@ public class AudioStreamHandler implements WebSocketHandler {
                         
                         log.debug("Received command: {}", text);
                         
-                        if ("ping".equals(text) && !sttService.isStreamInitialized()) {
-                           sttService.startStream();
+                        if ("ping".equals(text) && !stt.isStreamInitialized()) {
+                           stt.startStream();
                         } else if ("silence".equals(text)) {
                             // Only close stream if we've received enough audio
                             // This prevents cutting off short utterances like single words
-                            if (sttService.hasMinimumAudio()) {
+                            if (stt.onClientSilence()) {
                                 log.info("Silence detected - closing STT stream (sufficient audio received)");
-                                sttService.stopStream();
                             } else {
-                                log.debug("Silence detected but insufficient audio - keeping stream open");
+                                log.debug("Silence detected but not closing ({} endpointing, stream open: {})",
+                                        stt.endpointing(), stt.isStreamInitialized());
                             }
                         }
                         return Mono.empty();
@@ -69,12 +140,29 @@ public class AudioStreamHandler implements WebSocketHandler {
                     return Mono.empty();
                 })
                 .doOnError(e -> log.error("WS Error", e))
-                .doOnComplete(() -> {
+                .doFinally(signal -> {
                     log.info("WS Session ended");
-                    sttService.stopStream(); 
+                    // Closes the session, and with it releases the permit, unless it is resumable and waits for
+                    // the client to come back
+                    stt.detach(attachment);
                 })
                 .then();
 
         return ack.then(processing);
     }
+
+    private static void releasePermit(WebSocketSession session) {
+        if (session.getAttributes().get(AdmissionWebFilter.PERMIT_ATTRIBUTE)
+                instanceof SessionAdmissionService.Permit permit) {
+            permit.release();
+        }
+    }
+
+    private String json(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.app.controller;
+
+import com.app.model.BatchJobStatus;
+import com.app.service.BatchTranscriptionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Batch transcription of recordings (raw 16kHz 16-bit mono PCM or WAV).
+ * <p>
+ * 1. {@code POST /api/transcription/batch} creates a job and returns its id.<br>
+ * 2. {@code POST /api/transcription/batch/{jobId}/audio} streams the recording; responds when recognition is done.<br>
+ * 3. {@code GET /api/transcription/batch/{jobId}} polls progress and segments at any time.
+ */
+@RestController
+@RequestMapping("/api/transcription/batch")
+@RequiredArgsConstructor
+public class BatchTranscriptionController {
+
+    private final BatchTranscriptionService batchService;
+
+    @PostMapping
+    public Mono<BatchJobStatus> createJob(@RequestParam(required = false) String profile) {
+        return Mono.fromSupplier(() -> batchService.createJob(profile));
+    }
+
+    @PostMapping("/{jobId}/audio")
+    public Mono<BatchJobStatus> upload(@PathVariable String jobId, @RequestBody Flux<DataBuffer> audio) {
+        return batchService.transcribe(jobId, audio)
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage()))
+                .onErrorMap(IllegalStateException.class,
+                        e -> new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage()));
+    }
+
+    @GetMapping("/{jobId}")
+    public Mono<BatchJobStatus> status(@PathVariable String jobId) {
+        return Mono.justOrEmpty(batchService.status(jobId))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown batch job " + jobId)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.app.controller;
+
+import com.app.cluster.ClusterMembership;
+import com.app.model.ClusterNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Cluster membership and session ownership, for load balancers and clients that route by session.
+ * <p>
+ * {@code GET /api/cluster} lists the nodes; {@code GET /api/cluster/owner?key=} names the node owning a key,
+ * such as a resume token.
+ */
+@RestController
+@RequestMapping("/api/cluster")
+@RequiredArgsConstructor
+public class ClusterController {
+
+    private final ClusterMembership membership;
+
+    @GetMapping
+    public List<ClusterNode> nodes() {
+        return membership.nodes().stream().map(this::node).toList();
+    }
+
+    @GetMapping("/owner")
+    public ClusterNode owner(@RequestParam String key) {
+        return node(membership.owner(key));
+    }
+
+    private ClusterNode node(String id) {
+        return new ClusterNode(id, membership.url(id), id.equals(membership.nodeId()));
+    }
+}
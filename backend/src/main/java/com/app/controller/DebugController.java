@@ -1,10 +1,17 @@
 package com.app.controller;
 
+import com.app.cluster.EventBus;
+import com.app.model.TranscriptEvent;
+import com.app.model.TranscriptionResult;
 import com.app.service.AiService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -12,9 +19,24 @@ import reactor.core.publisher.Mono;
 public class DebugController {
 
     private final AiService aiService;
+    private final EventBus eventBus;
 
     @GetMapping("/api/debug/ai")
     public Mono<String> debugAi(@RequestParam String text) {
         return aiService.generateResponse(text);
     }
+
+    // Lets anyone inject transcripts into every subscriber's stream, so only for local cluster tests
+    @Value("${debug.publish.enabled:false}")
+    private boolean publishEnabled;
+
+    // Puts a final result on the event bus without audio, to check fan-out across cluster nodes
+    @PostMapping("/api/debug/publish")
+    public Mono<Void> debugPublish(@RequestParam String sessionId, @RequestParam String text) {
+        if (!publishEnabled) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }
+        eventBus.publish(new TranscriptEvent(sessionId, new TranscriptionResult(text, true, "user"), null));
+        return Mono.empty();
+    }
 }
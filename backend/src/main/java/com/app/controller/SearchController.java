@@ -0,0 +1,41 @@
+package com.app.controller;
+
+import com.app.model.SearchResult;
+import com.app.search.TranscriptIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Full-text search over final utterances of all sessions.
+ * <p>
+ * {@code GET /api/search?q=kubernetes "system design" deploy*&limit=50}: all words must match; quoted words
+ * must appear as a phrase and {@code word*} matches by prefix.
+ */
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final TranscriptIndex index;
+
+    @GetMapping
+    public Mono<SearchResult> search(@RequestParam String q, @RequestParam(defaultValue = "50") int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be 1.." + MAX_LIMIT));
+        }
+        // Posting list decoding is CPU work; keep it off the event loop
+        return Mono.fromCallable(() -> index.search(q, limit))
+                .subscribeOn(Schedulers.parallel())
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+}
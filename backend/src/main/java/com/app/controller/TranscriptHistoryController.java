@@ -0,0 +1,48 @@
+package com.app.controller;
+
+import com.app.store.TranscriptRecord;
+import com.app.store.TranscriptStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Persisted transcript history of a session, from the {@link TranscriptStore}.
+ * <p>
+ * {@code GET /api/transcripts/{sessionId}?from=&to=&limit=} returns the session's events with timestamps
+ * (epoch millis) in {@code [from, to]}, oldest first; with more than {@code limit} matches, the newest ones.
+ */
+@RestController
+@RequestMapping("/api/transcripts")
+@RequiredArgsConstructor
+public class TranscriptHistoryController {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final TranscriptStore store;
+
+    @GetMapping("/{sessionId}")
+    public Mono<List<TranscriptRecord>> history(@PathVariable String sessionId,
+                                                @RequestParam(defaultValue = "0") long from,
+                                                @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                                @RequestParam(defaultValue = "1000") int limit) {
+        if (!store.isAvailable()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transcript store is disabled"));
+        }
+        if (limit <= 0 || limit > MAX_LIMIT || from > to) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid range or limit"));
+        }
+        // Segment reads are positional file reads, so keep them off the event loop
+        return Mono.fromCallable(() -> store.read(sessionId, from, to, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,12 @@
+package com.app.model;
+
+import java.util.List;
+
+public record BatchJobStatus(String jobId,
+                             String state,
+                             long bytesReceived,
+                             int chunksTotal,
+                             int chunksDone,
+                             List<BatchSegment> segments,
+                             String error) {
+}
@@ -0,0 +1,7 @@
+package com.app.model;
+
+/**
+ * Recognized text of one silence-delimited chunk of an uploaded recording, with its position in the audio.
+ */
+public record BatchSegment(int index, long startMs, long endMs, String text) {
+}
@@ -0,0 +1,7 @@
+package com.app.model;
+
+/**
+ * A cluster member as seen from the node answering; {@code url} is null until the member has connected.
+ */
+public record ClusterNode(String id, String url, boolean local) {
+}
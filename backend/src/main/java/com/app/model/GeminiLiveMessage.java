@@ -0,0 +1,14 @@
+package com.app.model;
+
+import java.util.List;
+
+/**
+ * The parts of a Gemini Live server message the app uses.
+ *
+ * @param texts              text parts of {@code serverContent.modelTurn}, in order
+ * @param inputTranscription the next piece of the transcription of the user's audio, or null
+ * @param usage              token counts, or null if the message carried no usage metadata
+ */
+public record GeminiLiveMessage(boolean setupComplete, List<String> texts, String inputTranscription,
+                                boolean turnComplete, GeminiUsage usage) {
+}
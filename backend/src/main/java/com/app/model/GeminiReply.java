@@ -0,0 +1,12 @@
+package com.app.model;
+
+/**
+ * The parts of a generateContent response the app uses.
+ *
+ * @param text         text of the first part of the first candidate, or null if there is none
+ * @param candidates   whether the response had any candidate at all
+ * @param finishReason why generation stopped (e.g. STOP, MAX_TOKENS, SAFETY), or null
+ * @param usage        token counts, or null if the response carried no usage metadata
+ */
+public record GeminiReply(String text, boolean candidates, String finishReason, GeminiUsage usage) {
+}
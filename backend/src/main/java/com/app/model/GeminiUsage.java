@@ -0,0 +1,7 @@
+package com.app.model;
+
+/**
+ * Token accounting reported by Gemini in {@code usageMetadata}; counts missing from a response are 0.
+ */
+public record GeminiUsage(int promptTokens, int candidatesTokens, int totalTokens) {
+}
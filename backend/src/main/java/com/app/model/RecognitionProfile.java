@@ -0,0 +1,21 @@
+package com.app.model;
+
+import java.util.List;
+
+/**
+ * A named speech recognition setup as read from the profiles file.
+ * Boxed flags are optional in the file; null means "use the default".
+ * {@code singleUtterance} only applies to server-side endpointing streams and needs a model that supports it.
+ */
+public record RecognitionProfile(String languageCode,
+                                 String model,
+                                 Boolean useEnhanced,
+                                 Boolean automaticPunctuation,
+                                 Boolean interimResults,
+                                 Boolean wordTimeOffsets,
+                                 Boolean singleUtterance,
+                                 List<PhraseSet> phraseSets) {
+
+    public record PhraseSet(String name, float boost, List<String> phrases) {
+    }
+}
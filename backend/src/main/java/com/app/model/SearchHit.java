@@ -0,0 +1,7 @@
+package com.app.model;
+
+/**
+ * One utterance (a final user transcript or an AI reply) matching a transcript search.
+ */
+public record SearchHit(String sessionId, long timestampMs, String sender, String text) {
+}
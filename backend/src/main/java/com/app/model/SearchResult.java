@@ -0,0 +1,9 @@
+package com.app.model;
+
+import java.util.List;
+
+/**
+ * Transcript search outcome: the number of matching utterances and the newest {@code hits}.
+ */
+public record SearchResult(String query, int total, List<SearchHit> hits) {
+}
@@ -0,0 +1,14 @@
+package com.app.model;
+
+/**
+ * First message on an audio WebSocket opened with {@code resumable=true} or {@code resume=<token>}, in place of
+ * the plain "connected" ack. {@code resumed} is false when the token was unknown or expired and a new session was
+ * opened instead. The client numbers its binary frames from {@code nextSeq}, resending any it sent from there on
+ * before the connection dropped.
+ */
+public record SessionHandshake(String type,
+                               String sessionId,
+                               String resumeToken,
+                               boolean resumed,
+                               long nextSeq) {
+}
@@ -0,0 +1,27 @@
+package com.app.model;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time view of one streaming session, as listed by the sessions actuator endpoint.
+ * Timestamps are null until the corresponding event has happened. {@code aiCallsSaved} counts final results
+ * that were merged into another AI request instead of getting one of their own. A resumable session that is
+ * not {@code attached} has lost its connection and is waiting out the grace period for the client to return.
+ */
+public record SessionInfo(String id,
+                          String engine,
+                          String profile,
+                          String endpointing,
+                          Instant openedAt,
+                          boolean streaming,
+                          Long streamAgeMs,
+                          long bytesReceived,
+                          long framesReceived,
+                          int queuedAudioFrames,
+                          Instant lastInterimAt,
+                          Instant lastFinalAt,
+                          int aiCallsInFlight,
+                          long aiCallsSaved,
+                          boolean resumable,
+                          boolean attached) {
+}
@@ -0,0 +1,8 @@
+package com.app.model;
+
+/**
+ * Sent instead of a handshake when a client tries to resume a session on a node that does not own it; the
+ * connection is then closed. {@code url} is null while the owning node has not reported its address.
+ */
+public record SessionRedirect(String type, String node, String url) {
+}
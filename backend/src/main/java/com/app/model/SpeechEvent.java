@@ -0,0 +1,16 @@
+package com.app.model;
+
+/**
+ * Voice activity reported by an engine during a stream.
+ *
+ * @param audioOffsetMs position in the stream's audio at which the event was detected, or -1 if unknown
+ */
+public record SpeechEvent(Type type, long audioOffsetMs) {
+
+    public enum Type {
+        SPEECH_BEGIN,
+        SPEECH_END,
+        /** The engine has decided the utterance is over and will send no more audio-driven results. */
+        END_OF_UTTERANCE
+    }
+}
@@ -0,0 +1,23 @@
+package com.app.model;
+
+import java.util.List;
+
+/**
+ * An incremental transcript update for one session.
+ * <p>
+ * Applying a delta means: keep the first {@code offset} characters of the current hypothesis for
+ * {@code utterance} and append {@code text}. A {@code snapshot} carries the whole hypothesis (offset 0) and
+ * is only sent when a subscriber (re)connects. {@code seq} increases by one per event within a session, so a
+ * gap tells the client to reconnect for a fresh snapshot.
+ */
+public record TranscriptDelta(String sessionId,
+                              long seq,
+                              int utterance,
+                              String sender,
+                              int offset,
+                              String text,
+                              int stableLength,
+                              boolean isFinal,
+                              boolean snapshot,
+                              List<WordTiming> words) {
+}
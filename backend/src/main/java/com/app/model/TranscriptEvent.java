@@ -0,0 +1,8 @@
+package com.app.model;
+
+/**
+ * One transcript update of a session as it travels over the {@link com.app.cluster.EventBus}: the result for the
+ * plain transcription stream and, when the text changed, the delta for incremental subscribers.
+ */
+public record TranscriptEvent(String sessionId, TranscriptionResult result, TranscriptDelta delta) {
+}
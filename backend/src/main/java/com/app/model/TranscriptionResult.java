@@ -1,6 +1,16 @@
 package com.app.model;
 
-public record TranscriptionResult(String text, boolean isFinal, String sender) {
+import java.util.List;
+
+/**
+ * @param stableLength number of leading characters of {@code text} the recognizer considers stable
+ * @param words        word timings, when the engine provides them (usually only on final results)
+ */
+public record TranscriptionResult(String text, boolean isFinal, String sender, int stableLength, List<WordTiming> words) {
+    public TranscriptionResult(String text, boolean isFinal, String sender) {
+        this(text, isFinal, sender, isFinal ? text.length() : 0, List.of());
+    }
+
     public TranscriptionResult(String text, boolean isFinal) {
         this(text, isFinal, "user");
     }
@@ -0,0 +1,7 @@
+package com.app.model;
+
+/**
+ * A recognized word with its offsets from the start of the audio stream.
+ */
+public record WordTiming(String word, long startMs, long endMs) {
+}
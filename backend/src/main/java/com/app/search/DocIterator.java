@@ -0,0 +1,27 @@
+package com.app.search;
+
+/**
+ * Ascending iteration over the document ids matching one query clause.
+ */
+interface DocIterator {
+
+    int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    /** Moves to the next matching document and returns its id, or {@link #NO_MORE_DOCS}. */
+    int nextDoc();
+
+    /**
+     * Moves to the first matching document with an id of at least {@code target}; only called while the
+     * iterator is still before {@code target}.
+     */
+    default int advance(int target) {
+        int doc;
+        do {
+            doc = nextDoc();
+        } while (doc < target);
+        return doc;
+    }
+
+    /** Upper bound on the number of matching documents; cheaper clauses lead the intersection. */
+    long cost();
+}
@@ -0,0 +1,78 @@
+package com.app.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Documents containing the phrase's terms at consecutive positions. Intersects the terms' posting lists
+ * document by document and decodes positions only for documents that contain every term.
+ */
+final class PhraseIterator implements DocIterator {
+
+    private final PostingList.Cursor[] cursors;
+    // The same cursors, rarest first, to drive the intersection
+    private final PostingList.Cursor[] byCost;
+    private final int[][] positions;
+    private int doc = -1;
+
+    PhraseIterator(PostingList.Cursor[] cursors) {
+        this.cursors = cursors;
+        this.byCost = cursors.clone();
+        Arrays.sort(byCost, Comparator.comparingLong(PostingList.Cursor::cost));
+        this.positions = new int[cursors.length][4];
+    }
+
+    @Override
+    public int nextDoc() {
+        return doc == NO_MORE_DOCS ? doc : advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) {
+        int candidate = target;
+        next:
+        while (true) {
+            for (PostingList.Cursor cursor : byCost) {
+                int current = cursor.doc() < candidate ? cursor.advance(candidate) : cursor.doc();
+                if (current == NO_MORE_DOCS) {
+                    doc = NO_MORE_DOCS;
+                    return doc;
+                }
+                if (current > candidate) {
+                    candidate = current;
+                    continue next;
+                }
+            }
+            if (adjacent()) {
+                doc = candidate;
+                return doc;
+            }
+            candidate++;
+        }
+    }
+
+    @Override
+    public long cost() {
+        return byCost[0].cost();
+    }
+
+    private boolean adjacent() {
+        for (int i = 0; i < cursors.length; i++) {
+            if (positions[i].length < cursors[i].freq()) {
+                positions[i] = new int[Integer.highestOneBit(cursors[i].freq()) << 1];
+            }
+            cursors[i].positions(positions[i]);
+        }
+        int[] first = positions[0];
+        for (int p = 0; p < cursors[0].freq(); p++) {
+            boolean match = true;
+            for (int i = 1; i < cursors.length && match; i++) {
+                match = Arrays.binarySearch(positions[i], 0, cursors[i].freq(), first[p] + i) >= 0;
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
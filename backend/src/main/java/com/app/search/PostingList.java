@@ -0,0 +1,170 @@
+package com.app.search;
+
+import java.util.Arrays;
+
+/**
+ * The documents (and token positions within them) containing one term, as a compressed byte array.
+ * <p>
+ * Per document: {@code varint(docId - previousDocId)}, {@code varint(frequency)}, then the positions as
+ * varint deltas. Documents are added in increasing id order, so every delta is positive and most ids and
+ * positions fit in one byte. Every {@value #SKIP_INTERVAL} documents a skip entry records the preceding
+ * document id and the byte offset, so {@link Cursor#advance} can jump over whole blocks instead of decoding
+ * them. Not thread-safe; {@link TranscriptIndex} guards access.
+ */
+final class PostingList {
+
+    static final int SKIP_INTERVAL = 64;
+
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int lastDoc = -1;
+    private int docCount;
+    private int[] skipDocs = new int[0];
+    private int[] skipOffsets = new int[0];
+
+    void add(int doc, int[] positions, int count) {
+        if (docCount > 0 && docCount % SKIP_INTERVAL == 0) {
+            int skip = docCount / SKIP_INTERVAL - 1;
+            if (skip == skipDocs.length) {
+                skipDocs = Arrays.copyOf(skipDocs, Math.max(4, skip * 2));
+                skipOffsets = Arrays.copyOf(skipOffsets, skipDocs.length);
+            }
+            skipDocs[skip] = lastDoc;
+            skipOffsets[skip] = length;
+        }
+        ensureCapacity(5 * (count + 2));
+        writeVarint(doc - lastDoc);
+        writeVarint(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDoc = doc;
+        docCount++;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int sizeBytes() {
+        return length;
+    }
+
+    Cursor cursor() {
+        return new Cursor(bytes, length, skipDocs, skipOffsets, (docCount - 1) / SKIP_INTERVAL, docCount);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Decodes a posting list front to back. Positions of the current document are decoded only on request.
+     */
+    static final class Cursor implements DocIterator {
+
+        private final byte[] bytes;
+        private final int end;
+        private final int[] skipDocs;
+        private final int[] skipOffsets;
+        private final int skipCount;
+        private final int cost;
+        private int offset;
+        private int doc = -1;
+        private int freq;
+        private boolean positionsRead = true;
+        private int nextSkip;
+
+        private Cursor(byte[] bytes, int end, int[] skipDocs, int[] skipOffsets, int skipCount, int cost) {
+            this.bytes = bytes;
+            this.end = end;
+            this.skipDocs = skipDocs;
+            this.skipOffsets = skipOffsets;
+            this.skipCount = Math.max(0, skipCount);
+            this.cost = cost;
+        }
+
+        @Override
+        public int advance(int target) {
+            // Jump to the last block that starts before the target, unless we are already past it
+            while (nextSkip < skipCount && skipDocs[nextSkip] < target) {
+                if (skipOffsets[nextSkip] > offset) {
+                    doc = skipDocs[nextSkip];
+                    offset = skipOffsets[nextSkip];
+                    positionsRead = true;
+                }
+                nextSkip++;
+            }
+            return DocIterator.super.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return cost;
+        }
+
+        @Override
+        public int nextDoc() {
+            if (!positionsRead) {
+                for (int i = 0; i < freq; i++) {
+                    readVarint();
+                }
+                positionsRead = true;
+            }
+            if (offset >= end) {
+                doc = NO_MORE_DOCS;
+                return doc;
+            }
+            doc += readVarint();
+            freq = readVarint();
+            positionsRead = false;
+            return doc;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int freq() {
+            return freq;
+        }
+
+        /** Decodes the current document's positions into {@code into}, which must hold {@link #freq()} values. */
+        int[] positions(int[] into) {
+            if (positionsRead) {
+                throw new IllegalStateException("Positions of document " + doc + " were already read");
+            }
+            int position = 0;
+            for (int i = 0; i < freq; i++) {
+                position += readVarint();
+                into[i] = position;
+            }
+            positionsRead = true;
+            return into;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.app.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parsed search: every clause must match. {@code "system design"} (quoted) is a phrase, {@code kube*} a
+ * prefix, and any other word a term. Words that tokenize to several tokens ({@code e-mail}) become phrases.
+ */
+record SearchQuery(List<String> terms, List<List<String>> phrases, List<String> prefixes) {
+
+    static SearchQuery parse(String query) {
+        List<String> terms = new ArrayList<>();
+        List<List<String>> phrases = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            // Odd parts sit between quotes; an unbalanced trailing quote just quotes the rest
+            if (i % 2 == 1) {
+                addPhrase(Tokenizer.tokenize(parts[i]), terms, phrases);
+                continue;
+            }
+            for (String word : parts[i].trim().split("\\s+")) {
+                List<String> tokens = Tokenizer.tokenize(word);
+                if (word.endsWith("*") && !tokens.isEmpty()) {
+                    prefixes.add(tokens.get(tokens.size() - 1));
+                    addPhrase(tokens.subList(0, tokens.size() - 1), terms, phrases);
+                } else {
+                    addPhrase(tokens, terms, phrases);
+                }
+            }
+        }
+        if (terms.isEmpty() && phrases.isEmpty() && prefixes.isEmpty()) {
+            throw new IllegalArgumentException("Query has no searchable words");
+        }
+        return new SearchQuery(terms, phrases, prefixes);
+    }
+
+    private static void addPhrase(List<String> tokens, List<String> terms, List<List<String>> phrases) {
+        if (tokens.size() == 1) {
+            terms.add(tokens.get(0));
+        } else if (tokens.size() > 1) {
+            phrases.add(List.copyOf(tokens));
+        }
+    }
+}
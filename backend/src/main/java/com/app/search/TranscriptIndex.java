@@ -0,0 +1,377 @@
+package com.app.search;
+
+import com.app.model.SearchHit;
+import com.app.model.SearchResult;
+import com.app.store.TranscriptRecord;
+import com.app.store.TranscriptStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over final utterances (user finals and AI replies), for finding sessions by what
+ * was said.
+ * <p>
+ * Each utterance is a document with a sequential id; each term maps to a {@link PostingList} of document ids
+ * and token positions, delta- and varint-encoded. Terms are kept sorted, so a prefix query is a range scan
+ * over the dictionary. Utterances are indexed as they arrive, and the index is rebuilt from the
+ * {@link TranscriptStore} at startup.
+ * <p>
+ * Documents live in at most {@value #SEGMENTS} {@link Segment}s, each holding an eighth of
+ * {@code search.index.max-documents}. When the newest segment is full a new one is started and, if that
+ * would exceed the bound, the oldest segment is dropped, so the index always holds the most recent utterances.
+ * Segments whose newest utterance is past the store's retention are dropped as well, and queries skip older
+ * utterances in the remaining ones, so hits never point at history the store has deleted.
+ */
+@Slf4j
+@Service
+public class TranscriptIndex {
+
+    private static final int SEGMENTS = 8;
+
+    private final TranscriptStore store;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.index.max-documents:2000000}")
+    private int maxDocuments;
+
+    // Upper bound on dictionary terms a single prefix clause may expand to
+    @Value("${search.max-prefix-terms:1000}")
+    private int maxPrefixTerms;
+
+    // Same retention as the store, so the index forgets what the store deletes
+    @Value("${stt.store.retention-hours:168}")
+    private long retentionHours;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Oldest first; the last one takes new documents
+    private final List<Segment> segments = new ArrayList<>();
+    private volatile int docCount;
+    private volatile long postingBytes;
+    private volatile int termCount;
+
+    private Counter evicted;
+    private Timer queryTimer;
+
+    public TranscriptIndex(TranscriptStore store, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        evicted = Counter.builder("search.index.evicted")
+                .description("Utterances dropped from the index as the oldest or past retention")
+                .register(meterRegistry);
+        queryTimer = Timer.builder("search.query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("search.index.documents", this, index -> index.docCount).register(meterRegistry);
+        Gauge.builder("search.index.postings", this, index -> index.postingBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (!enabled || !store.isAvailable()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            store.forEach(this::add);
+            log.info("Rebuilt transcript index: {} utterances, {} terms in {}ms", docCount, termCount,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to rebuild transcript index from the store, indexing new utterances only", e);
+        }
+    }
+
+    /**
+     * Indexes a final utterance; interims are ignored.
+     */
+    public void add(TranscriptRecord record) {
+        if (!enabled || !record.isFinal()) {
+            return;
+        }
+        List<String> tokens = Tokenizer.tokenize(record.text());
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Map<String, Positions> positions = new LinkedHashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i), term -> new Positions()).add(i);
+        }
+
+        lock.writeLock().lock();
+        try {
+            dropExpired(retentionCutoff());
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.docCount >= segmentCapacity()) {
+                if (docCount + segmentCapacity() > maxDocuments && !segments.isEmpty()) {
+                    drop(segments.get(0));
+                }
+                segment = new Segment();
+                segments.add(segment);
+            }
+            long bytes = segment.postingBytes;
+            int terms = segment.terms.size();
+            segment.add(record, positions);
+            postingBytes += segment.postingBytes - bytes;
+            termCount += segment.terms.size() - terms;
+            docCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Utterances matching every clause of the query, newest first.
+     *
+     * @throws IllegalArgumentException if the query has no searchable words
+     */
+    public SearchResult search(String query, int limit) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        long cutoff = retentionCutoff();
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            List<SearchHit> hits = new ArrayList<>(Math.min(limit, 64));
+            int total = 0;
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                Segment segment = segments.get(i);
+                if (segment.maxTimestamp >= cutoff) {
+                    total += segment.search(parsed, cutoff, limit - hits.size(), hits);
+                }
+            }
+            return new SearchResult(query, total, hits);
+        } finally {
+            lock.readLock().unlock();
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int segmentCapacity() {
+        return Math.max(1, maxDocuments / SEGMENTS);
+    }
+
+    private long retentionCutoff() {
+        return System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours);
+    }
+
+    private void dropExpired(long cutoff) {
+        // Documents arrive roughly in time order, so only the oldest segments can be entirely expired
+        while (segments.size() > 1 && segments.get(0).maxTimestamp < cutoff) {
+            drop(segments.get(0));
+        }
+    }
+
+    private void drop(Segment segment) {
+        segments.remove(segment);
+        docCount -= segment.docCount;
+        postingBytes -= segment.postingBytes;
+        termCount -= segment.terms.size();
+        evicted.increment(segment.docCount);
+    }
+
+    /**
+     * Posting lists and stored fields of a run of consecutive documents; document ids are local to the segment.
+     */
+    private final class Segment {
+        private final TreeMap<String, PostingList> terms = new TreeMap<>();
+        private final Map<String, Integer> sessionOrdinals = new HashMap<>();
+        private final List<String> sessionIds = new ArrayList<>();
+
+        // Stored fields, indexed by document id
+        private int[] docSessions = new int[1024];
+        private long[] docTimestamps = new long[1024];
+        private String[] docSenders = new String[1024];
+        private String[] docTexts = new String[1024];
+        private int docCount;
+        private long postingBytes;
+        private long maxTimestamp = Long.MIN_VALUE;
+
+        void add(TranscriptRecord record, Map<String, Positions> positions) {
+            int doc = docCount;
+            store(doc, record);
+            for (Map.Entry<String, Positions> entry : positions.entrySet()) {
+                PostingList postings = terms.computeIfAbsent(entry.getKey(), term -> new PostingList());
+                postingBytes -= postings.sizeBytes();
+                postings.add(doc, entry.getValue().values, entry.getValue().count);
+                postingBytes += postings.sizeBytes();
+            }
+            maxTimestamp = Math.max(maxTimestamp, record.timestampMs());
+            docCount = doc + 1;
+        }
+
+        /**
+         * Adds up to {@code room} of this segment's newest matches at or after {@code cutoff} to {@code hits},
+         * newest first.
+         *
+         * @return every match at or after {@code cutoff}
+         */
+        int search(SearchQuery query, long cutoff, int room, List<SearchHit> hits) {
+            List<DocIterator> clauses = clauses(query);
+            if (clauses.isEmpty()) {
+                return 0;
+            }
+            // Keep the last `room` matches in a ring; matches arrive in ascending (oldest first) order
+            int[] newest = new int[Math.max(1, room)];
+            int total = 0;
+            int[] current = new int[clauses.size()];
+            Arrays.fill(current, -1);
+            int target = 0;
+            next:
+            while (true) {
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i] < target) {
+                        current[i] = clauses.get(i).advance(target);
+                    }
+                    if (current[i] == DocIterator.NO_MORE_DOCS) {
+                        break next;
+                    }
+                    if (current[i] > target) {
+                        target = current[i];
+                        continue next;
+                    }
+                }
+                if (docTimestamps[target] >= cutoff) {
+                    newest[total++ % newest.length] = target;
+                }
+                target++;
+            }
+            for (int i = 1; i <= Math.min(total, room); i++) {
+                hits.add(hit(newest[(total - i) % newest.length]));
+            }
+            return total;
+        }
+
+        /**
+         * One iterator per clause, or none at all when some clause cannot match.
+         */
+        private List<DocIterator> clauses(SearchQuery query) {
+            List<DocIterator> clauses = new ArrayList<>();
+            for (String term : query.terms()) {
+                PostingList postings = terms.get(term);
+                if (postings == null) {
+                    return List.of();
+                }
+                clauses.add(postings.cursor());
+            }
+            for (List<String> phrase : query.phrases()) {
+                PostingList.Cursor[] cursors = new PostingList.Cursor[phrase.size()];
+                for (int i = 0; i < cursors.length; i++) {
+                    PostingList postings = terms.get(phrase.get(i));
+                    if (postings == null) {
+                        return List.of();
+                    }
+                    cursors[i] = postings.cursor();
+                }
+                clauses.add(new PhraseIterator(cursors));
+            }
+            for (String prefix : query.prefixes()) {
+                BitSet docs = prefixDocs(prefix);
+                if (docs.isEmpty()) {
+                    return List.of();
+                }
+                clauses.add(bitSetIterator(docs));
+            }
+            clauses.sort(Comparator.comparingLong(DocIterator::cost));
+            return clauses;
+        }
+
+        private BitSet prefixDocs(String prefix) {
+            BitSet docs = new BitSet(docCount);
+            int expanded = 0;
+            for (Map.Entry<String, PostingList> entry : terms.tailMap(prefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(prefix) || expanded++ == maxPrefixTerms) {
+                    break;
+                }
+                PostingList.Cursor cursor = entry.getValue().cursor();
+                for (int doc = cursor.nextDoc(); doc != DocIterator.NO_MORE_DOCS; doc = cursor.nextDoc()) {
+                    docs.set(doc);
+                }
+            }
+            return docs;
+        }
+
+        private void store(int doc, TranscriptRecord record) {
+            if (doc == docTexts.length) {
+                int capacity = doc * 2;
+                docSessions = Arrays.copyOf(docSessions, capacity);
+                docTimestamps = Arrays.copyOf(docTimestamps, capacity);
+                docSenders = Arrays.copyOf(docSenders, capacity);
+                docTexts = Arrays.copyOf(docTexts, capacity);
+            }
+            docSessions[doc] = sessionOrdinals.computeIfAbsent(record.sessionId(), id -> {
+                sessionIds.add(id);
+                return sessionIds.size() - 1;
+            });
+            docTimestamps[doc] = record.timestampMs();
+            // Shared constants rather than each record's own copy of the sender string
+            docSenders[doc] = record.isAi() ? "ai" : "user";
+            docTexts[doc] = record.text();
+        }
+
+        private SearchHit hit(int doc) {
+            return new SearchHit(sessionIds.get(docSessions[doc]), docTimestamps[doc], docSenders[doc],
+                    docTexts[doc]);
+        }
+    }
+
+    private static DocIterator bitSetIterator(BitSet docs) {
+        return new DocIterator() {
+            private final int cost = docs.cardinality();
+            private int doc = -1;
+
+            @Override
+            public long cost() {
+                return cost;
+            }
+
+            @Override
+            public int nextDoc() {
+                return doc == NO_MORE_DOCS ? doc : advance(doc + 1);
+            }
+
+            @Override
+            public int advance(int target) {
+                int next = docs.nextSetBit(target);
+                doc = next < 0 ? NO_MORE_DOCS : next;
+                return doc;
+            }
+        };
+    }
+
+    /** Token positions of one term within the document being indexed. */
+    private static final class Positions {
+        private int[] values = new int[2];
+        private int count;
+
+        void add(int position) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = position;
+        }
+    }
+}
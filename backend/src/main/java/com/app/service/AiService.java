@@ -1,51 +1,200 @@
 package com.app.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Gemini text generation over a dedicated, tuned connection pool.
+ * <p>
+ * Connections are reused across calls (HTTP/2 multiplexed where the server supports it), evicted when idle
+ * or old, and optionally opened at startup so the first reply does not pay for DNS, TCP and TLS setup.
+ * While replies are being generated, a cheap model lookup is repeated more often than the idle timeout, so the
+ * pool stays warm between the replies of a conversation (over HTTP/2 that single multiplexed connection is all the
+ * pool needs). Once no call has been made for {@code gemini.http.keep-alive-after-use-ms} the lookups stop and the
+ * pool's idle eviction closes the connection, so an unused service spends no quota.
+ * The API key travels as a header, so request URIs are identical and pool/URI metrics stay low-cardinality.
+ */
 @Slf4j
 @Service
 public class AiService {
 
-    private final WebClient webClient;
+    private static final String API_KEY_HEADER = "x-goog-api-key";
+    private static final String GEMINI_MODEL = "gemini-flash-latest";
+
     private final ObjectMapper objectMapper;
-    
+    private final WebClient.Builder webClientBuilder;
+    private WebClient webClient;
+    private ConnectionProvider connectionProvider;
+    private Disposable keepAlive;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // System.nanoTime() when the last generateContent call started or ended; 0 until the first one
+    private volatile long lastUsedAt;
+
     @Value("${gemini.api.key}")
     private String apiKey;
-    
-    private static final String GEMINI_BASE_URL = "https://generativelanguage.googleapis.com";
-    private static final String GEMINI_MODEL = "gemini-flash-latest";
 
-    public AiService(ObjectMapper objectMapper) {
+    @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com}")
+    private String baseUrl;
+
+    @Value("${gemini.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${gemini.http.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${gemini.http.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+
+    @Value("${gemini.http.max-life-time-ms:300000}")
+    private long maxLifeTimeMs;
+
+    @Value("${gemini.http.evict-interval-ms:10000}")
+    private long evictIntervalMs;
+
+    @Value("${gemini.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    // Negotiated via ALPN, so servers without HTTP/2 still get HTTP/1.1; only applies to https base URLs
+    @Value("${gemini.http.http2:true}")
+    private boolean http2;
+
+    // generateContent replies are a few KB; this only bounds the worst case, including the streamed reply parse
+    @Value("${gemini.http.max-in-memory-size:262144}")
+    private int maxInMemorySize;
+
+    @Value("${gemini.http.prewarm:true}")
+    private boolean prewarm;
+
+    // Must stay below max-idle-time-ms, or the pool evicts the connection before it is reused; 0 disables
+    @Value("${gemini.http.keep-alive-interval-ms:20000}")
+    private long keepAliveIntervalMs;
+
+    // Keep-alive lookups only run while a call is in flight or one ended this recently
+    @Value("${gemini.http.keep-alive-after-use-ms:120000}")
+    private long keepAliveAfterUseMs;
+
+    public AiService(ObjectMapper objectMapper, WebClient.Builder webClientBuilder) {
         this.objectMapper = objectMapper;
-        
-        // Configure WebClient with proper codecs and settings
-        ExchangeStrategies strategies = ExchangeStrategies.builder()
+        this.webClientBuilder = webClientBuilder;
+    }
+
+    @PostConstruct
+    public void init() {
+        apiKey = apiKey != null ? apiKey.trim() : "";
+
+        connectionProvider = ConnectionProvider.builder("gemini-api")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictIntervalMs))
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                // OS-level probes (hours by default) only detect dead peers; the keep-alive request below keeps
+                // connections within the pool's idle timeout
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .metrics(true, uri -> uri);
+        if (baseUrl.startsWith("https") && http2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .codecs(configurer -> {
                     configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper, MediaType.APPLICATION_JSON));
                     configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper, MediaType.APPLICATION_JSON));
-                    configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024); // 16MB buffer
+                    configurer.defaultCodecs().maxInMemorySize(maxInMemorySize);
                 })
-                .build();
-        
-        this.webClient = WebClient.builder()
-                .baseUrl(GEMINI_BASE_URL)
-                .exchangeStrategies(strategies)
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(API_KEY_HEADER, apiKey)
                 .build();
+
+        if (prewarm && !apiKey.isEmpty()) {
+            prewarm(httpClient);
+        }
+        if (keepAliveIntervalMs > 0 && !apiKey.isEmpty()) {
+            if (keepAliveIntervalMs >= maxIdleTimeMs) {
+                log.warn("gemini.http.keep-alive-interval-ms ({}) is not below max-idle-time-ms ({}), "
+                        + "idle connections will still be evicted", keepAliveIntervalMs, maxIdleTimeMs);
+            }
+            keepAlive = Flux.interval(Duration.ofMillis(keepAliveIntervalMs))
+                    // A lookup slower than the interval skips ticks instead of failing the interval for good
+                    .onBackpressureDrop()
+                    .filter(tick -> inUse())
+                    .concatMap(tick -> modelLookup()
+                            .doOnError(e -> log.debug("Gemini API keep-alive failed: {}", e.getMessage()))
+                            .onErrorResume(e -> Mono.empty()))
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Initializes the event loops, resolver and TLS, then opens a pooled connection with a cheap model lookup.
+     */
+    private void prewarm(HttpClient httpClient) {
+        long start = System.nanoTime();
+        httpClient.warmup()
+                .then(modelLookup())
+                .subscribe(
+                        response -> log.info("Gemini API connection pre-warmed in {} ms (status {})",
+                                (System.nanoTime() - start) / 1_000_000, response.getStatusCode().value()),
+                        error -> log.warn("Gemini API pre-warm failed: {}", error.getMessage()));
+    }
+
+    private boolean inUse() {
+        long last = lastUsedAt;
+        return inFlight.get() > 0
+                || last != 0 && System.nanoTime() - last < TimeUnit.MILLISECONDS.toNanos(keepAliveAfterUseMs);
+    }
+
+    private void markUsed() {
+        lastUsedAt = System.nanoTime();
+    }
+
+    private Mono<ResponseEntity<Void>> modelLookup() {
+        return webClient.get()
+                .uri("/v1beta/models/{model}", GEMINI_MODEL)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (keepAlive != null) {
+            keepAlive.dispose();
+        }
+        if (connectionProvider != null) {
+            connectionProvider.disposeLater().subscribe();
+        }
     }
 
     public Mono<String> generateResponse(String userText) {
@@ -54,13 +203,12 @@ public class AiService {
             return Mono.empty();
         }
 
-        String cleanKey = (apiKey != null) ? apiKey.trim() : "";
-        if (cleanKey.isEmpty()) {
+        if (apiKey.isEmpty()) {
             log.error("Gemini API key is missing or empty");
             return Mono.just("API key not configured.");
         }
 
-        log.info("Generating AI response for: '{}' (Key length: {})", userText, cleanKey.length());
+        log.info("Generating AI response for: '{}' (Key length: {})", userText, apiKey.length());
 
         // Build request body according to Gemini API spec
         Map<String, Object> requestBody = Map.of(
@@ -71,45 +219,37 @@ public class AiService {
             )
         );
 
-        String uri = String.format("/v1beta/models/%s:generateContent?key=%s", GEMINI_MODEL, cleanKey);
-
         return webClient.post()
-                .uri(uri)
+                .uri("/v1beta/models/{model}:generateContent", GEMINI_MODEL)
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(String.class)
-                .doOnNext(response -> log.debug("Raw Gemini response: {}", response))
-                .map(responseBody -> {
-                    try {
-                        JsonNode root = objectMapper.readTree(responseBody);
-                        
-                        // Navigate the response structure
-                        if (!root.has("candidates") || root.get("candidates").isEmpty()) {
-                            log.warn("No candidates in Gemini response: {}", responseBody);
-                            return "I couldn't generate a response.";
-                        }
-                        
-                        JsonNode textNode = root.path("candidates")
-                                .get(0)
-                                .path("content")
-                                .path("parts")
-                                .get(0)
-                                .path("text");
-                        
-                        if (textNode.isMissingNode() || textNode.isNull()) {
-                            log.warn("Gemini response missing text field: {}", responseBody);
-                            return "I'm not sure how to respond to that.";
-                        }
-                        
-                        String aiResponse = textNode.asText();
-                        log.info("Successfully extracted AI response: '{}'", aiResponse);
-                        return aiResponse;
-                        
-                    } catch (Exception e) {
-                        log.error("Failed to parse Gemini response: {}", responseBody, e);
-                        return "Error processing AI response.";
+                .bodyToFlux(DataBuffer.class)
+                .as(body -> GeminiResponseParser.reply(body, maxInMemorySize))
+                .doFirst(() -> {
+                    inFlight.incrementAndGet();
+                    markUsed();
+                })
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    markUsed();
+                })
+                .map(reply -> {
+                    log.debug("Gemini reply: finishReason={}, usage={}", reply.finishReason(), reply.usage());
+                    if (!reply.candidates()) {
+                        log.warn("No candidates in Gemini response (usage {})", reply.usage());
+                        return "I couldn't generate a response.";
+                    }
+                    if (reply.text() == null) {
+                        log.warn("Gemini response missing text field (finishReason {})", reply.finishReason());
+                        return "I'm not sure how to respond to that.";
                     }
+                    log.info("Successfully extracted AI response: '{}'", reply.text());
+                    return reply.text();
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.error("Failed to parse Gemini response: {}", e.getMessage());
+                    return Mono.just("Error processing AI response.");
                 })
                 // Retry logic with exponential backoff for 503 errors
                 .retryWhen(reactor.util.retry.Retry.backoff(3, java.time.Duration.ofSeconds(1))
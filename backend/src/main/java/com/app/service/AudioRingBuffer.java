@@ -0,0 +1,81 @@
+package com.app.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the most recent audio chunks up to a byte budget, evicting the oldest first.
+ * Used to replay a short window of audio to an upstream after it reconnects.
+ * <p>
+ * Byte offsets count from the last {@link #clear} or {@link #restartOffsets}, i.e. from the start of the upstream
+ * stream the buffered audio belongs to.
+ */
+public class AudioRingBuffer {
+
+    private final int capacityBytes;
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private int sizeBytes;
+    private long endOffset;
+
+    public AudioRingBuffer(int capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    public synchronized void add(byte[] chunk) {
+        if (capacityBytes <= 0 || chunk.length == 0) {
+            return;
+        }
+        chunks.addLast(chunk);
+        sizeBytes += chunk.length;
+        endOffset += chunk.length;
+        while (sizeBytes > capacityBytes && chunks.size() > 1) {
+            sizeBytes -= chunks.removeFirst().length;
+        }
+    }
+
+    public synchronized List<byte[]> snapshot() {
+        return new ArrayList<>(chunks);
+    }
+
+    public synchronized void clear() {
+        chunks.clear();
+        sizeBytes = 0;
+        endOffset = 0;
+    }
+
+    /**
+     * Drops the audio before stream offset {@code offset}, e.g. audio an upstream has already finalized.
+     */
+    public synchronized void discardBefore(long offset) {
+        long head = endOffset - sizeBytes;
+        while (!chunks.isEmpty() && head < offset) {
+            byte[] first = chunks.peekFirst();
+            if (head + first.length <= offset) {
+                chunks.removeFirst();
+                sizeBytes -= first.length;
+                head += first.length;
+            } else {
+                int skip = (int) (offset - head);
+                chunks.removeFirst();
+                chunks.addFirst(Arrays.copyOfRange(first, skip, first.length));
+                sizeBytes -= skip;
+                head = offset;
+            }
+        }
+    }
+
+    /** The buffered audio now starts a new stream: its first byte is offset 0. */
+    public synchronized void restartOffsets() {
+        endOffset = sizeBytes;
+    }
+
+    public synchronized int sizeBytes() {
+        return sizeBytes;
+    }
+
+    public int capacityBytes() {
+        return capacityBytes;
+    }
+}
@@ -0,0 +1,187 @@
+package com.app.service;
+
+import com.app.model.BatchJobStatus;
+import com.app.model.BatchSegment;
+import com.app.model.TranscriptionResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Offline transcription of uploaded recordings.
+ * <p>
+ * The upload is consumed as a stream and cut at silence boundaries by a {@link SilenceChunker}; chunks are
+ * recognized in parallel through the engine router with at most {@code stt.batch.max-concurrency} upstream
+ * calls, and stitched back in order. Backpressure from the bounded recognition stage throttles the upload,
+ * so memory stays at roughly one chunk per concurrent call regardless of recording length.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchTranscriptionService {
+
+    private static final int REQUEST_FRAME_BYTES = 3200; // 100ms of audio per streaming request
+
+    private final TranscriptionEngineRouter router;
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${stt.batch.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${stt.batch.min-chunk-ms:5000}")
+    private long minChunkMs;
+
+    @Value("${stt.batch.max-chunk-ms:30000}")
+    private long maxChunkMs;
+
+    @Value("${stt.batch.min-silence-ms:300}")
+    private long minSilenceMs;
+
+    // RMS of a 20ms frame (16-bit samples) below which it counts as silence
+    @Value("${stt.batch.silence-rms:500}")
+    private double silenceRms;
+
+    @Value("${stt.batch.job-ttl-minutes:30}")
+    private long jobTtlMinutes;
+
+    public BatchJobStatus createJob(String profile) {
+        evictExpired();
+        BatchJob job = new BatchJob(UUID.randomUUID().toString(),
+                profile != null ? profile : RecognitionProfileRegistry.DEFAULT_PROFILE, jobTtl());
+        jobs.put(job.id, job);
+        log.info("Created batch transcription job {} (profile {})", job.id, job.profile);
+        return job.status();
+    }
+
+    public Optional<BatchJobStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(BatchJob::status);
+    }
+
+    /**
+     * Streams the upload through chunking and recognition; completes with the final job status.
+     */
+    public Mono<BatchJobStatus> transcribe(String jobId, Flux<DataBuffer> upload) {
+        BatchJob job = jobs.get(jobId);
+        if (job == null) {
+            return Mono.error(new IllegalArgumentException("Unknown batch job " + jobId));
+        }
+        if (!job.begin()) {
+            return Mono.error(new IllegalStateException("Audio for batch job " + jobId + " was already uploaded"));
+        }
+
+        SilenceChunker chunker = new SilenceChunker(minChunkMs, maxChunkMs, minSilenceMs, silenceRms);
+        return upload
+                .concatMapIterable(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    job.bytesReceived.addAndGet(bytes.length);
+                    return chunker.accept(bytes);
+                })
+                .concatWith(Flux.defer(() -> Flux.fromIterable(chunker.finish())))
+                .doOnNext(chunk -> job.chunksTotal.incrementAndGet())
+                .flatMapSequential(chunk -> recognize(job, chunk), maxConcurrency, 1)
+                .doOnNext(job::addSegment)
+                .then(Mono.fromCallable(() -> {
+                    job.finish(null, jobTtl());
+                    log.info("Batch job {} done: {} chunks, {} bytes", job.id, job.chunksDone.get(), job.bytesReceived.get());
+                    return job.status();
+                }))
+                .onErrorResume(e -> {
+                    log.error("Batch job {} failed", job.id, e);
+                    job.finish(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), jobTtl());
+                    return Mono.just(job.status());
+                });
+    }
+
+    private Mono<BatchSegment> recognize(BatchJob job, SilenceChunker.Chunk chunk) {
+        byte[] pcm = chunk.pcm();
+        int frames = (pcm.length + REQUEST_FRAME_BYTES - 1) / REQUEST_FRAME_BYTES;
+        Flux<byte[]> audio = Flux.range(0, frames)
+                .map(i -> Arrays.copyOfRange(pcm, i * REQUEST_FRAME_BYTES, Math.min(pcm.length, (i + 1) * REQUEST_FRAME_BYTES)));
+
+        return Flux.defer(() -> router.transcribe(router.select(), job.profile, audio))
+                .filter(TranscriptionResult::isFinal)
+                .map(TranscriptionResult::text)
+                .collect(Collectors.joining(" "))
+                .retryWhen(Retry.backoff(2, Duration.ofMillis(500)))
+                .map(text -> new BatchSegment(chunk.index(), chunk.startMs(), chunk.endMs(), text.trim()))
+                .doOnSuccess(segment -> job.chunksDone.incrementAndGet());
+    }
+
+    // Pending jobs whose audio never arrived expire too; running jobs do not
+    private void evictExpired() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> job.isExpired(now));
+    }
+
+    private Duration jobTtl() {
+        return Duration.ofMinutes(jobTtlMinutes);
+    }
+
+    private static class BatchJob {
+        private final String id;
+        private final String profile;
+        private final AtomicLong bytesReceived = new AtomicLong();
+        private final AtomicInteger chunksTotal = new AtomicInteger();
+        private final AtomicInteger chunksDone = new AtomicInteger();
+        private final List<BatchSegment> segments = new ArrayList<>();
+        private volatile String state = "PENDING";
+        private volatile String error;
+        // Null while the upload is being transcribed
+        private Instant expiresAt;
+
+        BatchJob(String id, String profile, Duration ttl) {
+            this.id = id;
+            this.profile = profile;
+            this.expiresAt = Instant.now().plus(ttl);
+        }
+
+        synchronized boolean begin() {
+            if (!"PENDING".equals(state)) {
+                return false;
+            }
+            state = "RUNNING";
+            expiresAt = null;
+            return true;
+        }
+
+        synchronized boolean isExpired(Instant now) {
+            return expiresAt != null && expiresAt.isBefore(now);
+        }
+
+        synchronized void addSegment(BatchSegment segment) {
+            segments.add(segment);
+        }
+
+        synchronized void finish(String failure, Duration ttl) {
+            error = failure;
+            state = failure == null ? "DONE" : "FAILED";
+            expiresAt = Instant.now().plus(ttl);
+        }
+
+        synchronized BatchJobStatus status() {
+            return new BatchJobStatus(id, state, bytesReceived.get(), chunksTotal.get(), chunksDone.get(),
+                    List.copyOf(segments), error);
+        }
+    }
+}
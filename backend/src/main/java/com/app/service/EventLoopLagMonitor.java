@@ -0,0 +1,66 @@
+package com.app.service;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long a task waits before a Netty event loop runs it.
+ * <p>
+ * Each {@link #probe()} submits a no-op to every loop and notes when it was submitted; the lag is the largest
+ * queueing delay seen in the last probe. A loop that has not run the previous probe yet counts with the time
+ * it has been stuck, so a fully blocked loop still shows up. Probes are cheap enough to run every few hundred ms.
+ */
+public class EventLoopLagMonitor {
+
+    private final List<Probe> probes = new ArrayList<>();
+    private volatile long lagNanos;
+
+    public EventLoopLagMonitor(EventLoopGroup group) {
+        for (EventExecutor executor : group) {
+            probes.add(new Probe(executor));
+        }
+    }
+
+    public void probe() {
+        long now = System.nanoTime();
+        long max = 0;
+        for (Probe probe : probes) {
+            max = Math.max(max, probe.lagAt(now));
+            probe.submit(now);
+        }
+        lagNanos = max;
+    }
+
+    public long lagMillis() {
+        return lagNanos / 1_000_000;
+    }
+
+    private static class Probe {
+        private final EventExecutor executor;
+        private final AtomicLong pendingSince = new AtomicLong();
+        private volatile long lastLagNanos;
+
+        Probe(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        long lagAt(long now) {
+            long since = pendingSince.get();
+            return since != 0 ? Math.max(lastLagNanos, now - since) : lastLagNanos;
+        }
+
+        void submit(long now) {
+            if (!pendingSince.compareAndSet(0, now)) {
+                return; // previous probe still queued
+            }
+            executor.execute(() -> {
+                lastLagNanos = System.nanoTime() - now;
+                pendingSince.set(0);
+            });
+        }
+    }
+}
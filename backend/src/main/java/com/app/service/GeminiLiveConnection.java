@@ -0,0 +1,264 @@
+package com.app.service;
+
+import com.app.model.GeminiLiveMessage;
+import com.app.model.TranscriptionResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One logical Gemini Live session that survives socket drops.
+ * <p>
+ * Audio is always appended to a bounded {@link AudioRingBuffer}. While a socket is open it is also
+ * pushed to that socket's outbound queue; after a drop, a reconnect is scheduled with jittered
+ * exponential backoff (no thread ever sleeps), and once the new socket is up the setup message is
+ * sent followed by the buffered audio, then live audio again.
+ * <p>
+ * A new socket starts a session without context, so the audio of a turn still in progress has to be replayed.
+ * Audio of a completed turn would only be answered a second time, so when a turn completes the buffer is trimmed
+ * to the audio sent after the model began that turn's reply (the model answers once the input activity has ended).
+ * Audio sent between the end of the user's speech and the first reply is kept, so a reconnect right after a turn
+ * may replay a little of that turn's trailing audio.
+ * <p>
+ * {@link #transcriptions()} carries Gemini's transcription of the input audio, not the model's replies: each
+ * piece extends an interim result for the current turn, and the turn's text becomes final when the turn
+ * completes. A reconnect discards the open turn's text, since its audio is replayed and transcribed again.
+ */
+@Slf4j
+public class GeminiLiveConnection {
+
+    public enum State { IDLE, CONNECTING, CONNECTED, BACKOFF, CLOSED }
+
+    public record Settings(int batchMaxChunks,
+                           Duration batchMaxDelay,
+                           Duration initialBackoff,
+                           Duration maxBackoff,
+                           double backoffJitter,
+                           int replayBufferBytes,
+                           int maxQueuedChunks) {
+    }
+
+    public record Status(State state, int failedAttempts, long reconnects, long replayedBytes,
+                         long droppedChunks, int bufferedBytes, String lastError) {
+    }
+
+    private final WebSocketClient client;
+    private final URI uri;
+    private final String setupMessage;
+    private final Settings settings;
+
+    private final AudioRingBuffer replayBuffer;
+    private final Sinks.Many<TranscriptionResult> transcriptionSink = Sinks.many().multicast().onBackpressureBuffer();
+    // Input transcription of the open turn; only touched by the current socket's receive loop
+    private final StringBuilder turnTranscript = new StringBuilder();
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+    private final AtomicInteger failedAttempts = new AtomicInteger();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong replayedBytes = new AtomicLong();
+    private final AtomicLong droppedChunks = new AtomicLong();
+    private volatile String lastError;
+    // Stream offsets (bytes since start) of audio received (guarded by lock), audio handed to the current socket,
+    // and audio handed over when the current turn's reply began (-1 until it does)
+    private long receivedBytes;
+    private final AtomicLong sentBytes = new AtomicLong();
+    private volatile long replyStartOffset = -1;
+
+    // Guards the hand-over between the replay snapshot and the live queue so no chunk is lost or sent twice
+    private final Object lock = new Object();
+    private Sinks.Many<byte[]> liveSink;
+    private Disposable connection;
+    private Disposable pendingReconnect;
+
+    public GeminiLiveConnection(WebSocketClient client, URI uri, String setupMessage, Settings settings) {
+        this.client = client;
+        this.uri = uri;
+        this.setupMessage = setupMessage;
+        this.settings = settings;
+        this.replayBuffer = new AudioRingBuffer(settings.replayBufferBytes());
+    }
+
+    public void start() {
+        if (state.compareAndSet(State.IDLE, State.CONNECTING)) {
+            connect();
+        }
+    }
+
+    public void send(byte[] chunk) {
+        synchronized (lock) {
+            replayBuffer.add(chunk);
+            receivedBytes += chunk.length;
+            if (liveSink != null && liveSink.tryEmitNext(chunk).isFailure()) {
+                droppedChunks.incrementAndGet();
+            }
+        }
+    }
+
+    public Flux<TranscriptionResult> transcriptions() {
+        return transcriptionSink.asFlux();
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    public Status status() {
+        return new Status(state.get(), failedAttempts.get(), reconnects.get(), replayedBytes.get(),
+                droppedChunks.get(), replayBuffer.sizeBytes(), lastError);
+    }
+
+    public void close() {
+        State previous = state.getAndSet(State.CLOSED);
+        if (previous == State.CLOSED) {
+            return;
+        }
+        synchronized (lock) {
+            if (pendingReconnect != null) {
+                pendingReconnect.dispose();
+            }
+            if (liveSink != null) {
+                liveSink.tryEmitComplete();
+                liveSink = null;
+            }
+            if (connection != null) {
+                connection.dispose();
+            }
+        }
+        replayBuffer.clear();
+        transcriptionSink.tryEmitComplete();
+    }
+
+    private void connect() {
+        synchronized (lock) {
+            if (state.get() == State.CLOSED) {
+                return;
+            }
+            state.set(State.CONNECTING);
+            connection = client.execute(uri, this::runSession)
+                    .subscribe(null, this::onDisconnected, () -> onDisconnected(null));
+        }
+    }
+
+    private Mono<Void> runSession(WebSocketSession session) {
+        Sinks.Many<byte[]> live = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<byte[]>get(settings.maxQueuedChunks()).get());
+        List<byte[]> replay;
+        long replayBytes;
+        synchronized (lock) {
+            if (state.get() == State.CLOSED) {
+                return session.close();
+            }
+            replay = replayBuffer.snapshot();
+            liveSink = live;
+            state.set(State.CONNECTED);
+            replayBytes = replay.stream().mapToLong(chunk -> chunk.length).sum();
+            sentBytes.set(receivedBytes - replayBytes);
+            replyStartOffset = -1;
+            turnTranscript.setLength(0);
+        }
+        replayedBytes.addAndGet(replayBytes);
+        log.info("Gemini Live connected, replaying {} buffered bytes", replayBytes);
+
+        GeminiRealtimeInputEncoder encoder = new GeminiRealtimeInputEncoder();
+        Flux<WebSocketMessage> audio = batch(Flux.concat(Flux.fromIterable(replay), live.asFlux()))
+                .doOnNext(chunks -> chunks.forEach(chunk -> sentBytes.addAndGet(chunk.length)))
+                .map(chunks -> new WebSocketMessage(WebSocketMessage.Type.TEXT,
+                        encoder.encode(session.bufferFactory(), chunks)));
+        Mono<Void> send = session.send(Flux.concat(Mono.fromCallable(() -> session.textMessage(setupMessage)), audio));
+        Mono<Void> receive = session.receive()
+                .doOnNext(this::handleMessage)
+                .then();
+
+        return Mono.zip(send, receive).then();
+    }
+
+    private Flux<List<byte[]>> batch(Flux<byte[]> audio) {
+        if (settings.batchMaxChunks() <= 1) {
+            return audio.map(List::of);
+        }
+        return audio.bufferTimeout(settings.batchMaxChunks(), settings.batchMaxDelay());
+    }
+
+    private void handleMessage(WebSocketMessage message) {
+        try {
+            GeminiLiveMessage parsed = GeminiResponseParser.liveMessage(message.getPayload());
+            if (parsed.setupComplete()) {
+                // Only a session that got through setup counts as recovered
+                if (failedAttempts.getAndSet(0) > 0) {
+                    reconnects.incrementAndGet();
+                }
+                lastError = null;
+            }
+            if (!parsed.texts().isEmpty() && replyStartOffset < 0) {
+                replyStartOffset = sentBytes.get();
+            }
+            if (parsed.inputTranscription() != null && !parsed.inputTranscription().isEmpty()) {
+                turnTranscript.append(parsed.inputTranscription());
+                String text = turnTranscript.toString().strip();
+                transcriptionSink.tryEmitNext(new TranscriptionResult(text, false, "user"));
+            }
+            if (parsed.turnComplete()) {
+                String text = turnTranscript.toString().strip();
+                turnTranscript.setLength(0);
+                if (!text.isEmpty()) {
+                    transcriptionSink.tryEmitNext(new TranscriptionResult(text, true, "user"));
+                }
+                long turnEnd = replyStartOffset;
+                replyStartOffset = -1;
+                if (turnEnd >= 0) {
+                    replayBuffer.discardBefore(turnEnd);
+                }
+            }
+            if (parsed.usage() != null) {
+                log.debug("Gemini Live usage: {} (turnComplete {})", parsed.usage(), parsed.turnComplete());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse Gemini Live message: {}", e.getMessage());
+        }
+    }
+
+    private void onDisconnected(Throwable error) {
+        synchronized (lock) {
+            if (liveSink != null) {
+                liveSink.tryEmitComplete();
+                liveSink = null;
+            }
+            if (state.get() == State.CLOSED) {
+                return;
+            }
+            state.set(State.BACKOFF);
+            long delayMs = nextBackoffMs(failedAttempts.getAndIncrement());
+            if (error != null) {
+                lastError = error.getClass().getSimpleName() + ": " + error.getMessage();
+                log.warn("Gemini Live connection failed ({}), reconnecting in {}ms", lastError, delayMs);
+            } else {
+                log.info("Gemini Live connection closed by server, reconnecting in {}ms", delayMs);
+            }
+            pendingReconnect = Schedulers.parallel().schedule(this::connect, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private long nextBackoffMs(int attempt) {
+        long initial = settings.initialBackoff().toMillis();
+        long capped = Math.min(settings.maxBackoff().toMillis(), initial << Math.min(attempt, 16));
+        double jitter = Math.min(1.0, Math.max(0.0, settings.backoffJitter()));
+        // Spread reconnects over [capped * (1 - jitter), capped] so many clients don't retry in lockstep
+        return (long) (capped * (1.0 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+}
@@ -0,0 +1,40 @@
+package com.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Surfaces the Gemini Live connection state under /actuator/health.
+ * A socket that is reconnecting reports RECONNECTING, which does not fail the aggregate health:
+ * audio is still buffered and replayed once the socket is back.
+ */
+@Component
+@RequiredArgsConstructor
+public class GeminiLiveHealthIndicator implements HealthIndicator {
+
+    static final Status RECONNECTING = new Status("RECONNECTING", "Gemini Live socket is reconnecting");
+
+    private final GeminiTranscriptionService geminiService;
+
+    @Override
+    public Health health() {
+        GeminiLiveConnection.Status status = geminiService.connectionStatus();
+        Health.Builder builder = switch (status.state()) {
+            case CONNECTED -> Health.up();
+            case IDLE -> Health.unknown();
+            case CONNECTING, BACKOFF -> Health.status(RECONNECTING);
+            case CLOSED -> Health.down();
+        };
+        builder.withDetail("state", status.state())
+                .withDetail("failedAttempts", status.failedAttempts())
+                .withDetail("reconnects", status.reconnects())
+                .withDetail("bufferedBytes", status.bufferedBytes());
+        if (status.lastError() != null) {
+            builder.withDetail("lastError", status.lastError());
+        }
+        return builder.build();
+    }
+}
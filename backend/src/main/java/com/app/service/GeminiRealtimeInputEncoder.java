@@ -0,0 +1,100 @@
+package com.app.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes Gemini Live {@code realtime_input} messages straight into a single {@link DataBuffer}.
+ * <p>
+ * The JSON envelope is fixed, so its bytes are precomputed and the exact message size is known
+ * up front. PCM is base64-encoded slice by slice through a small scratch array, so the audio is
+ * copied once into the outbound buffer instead of going through String, Map and ObjectMapper.
+ * <p>
+ * Not thread-safe: use one instance per connection (the outbound Flux is serialized anyway).
+ */
+public class GeminiRealtimeInputEncoder {
+
+    private static final byte[] MESSAGE_PREFIX = ascii("{\"realtime_input\":{\"media_chunks\":[");
+    private static final byte[] CHUNK_PREFIX = ascii("{\"mime_type\":\"audio/pcm\",\"data\":\"");
+    private static final byte[] CHUNK_SUFFIX = ascii("\"}");
+    private static final byte[] MESSAGE_SUFFIX = ascii("]}}");
+    private static final byte COMMA = ',';
+
+    private static final byte[] ALPHABET = ascii("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/");
+
+    // 3072 raw bytes -> 4096 base64 bytes per slice; must stay a multiple of 3 so no padding is emitted mid-chunk
+    private static final int RAW_SLICE = 3072;
+
+    private final byte[] encodedSlice = new byte[RAW_SLICE / 3 * 4];
+
+    public DataBuffer encode(DataBufferFactory factory, byte[] chunk) {
+        return encode(factory, List.of(chunk));
+    }
+
+    public DataBuffer encode(DataBufferFactory factory, List<byte[]> chunks) {
+        DataBuffer buffer = factory.allocateBuffer(encodedSize(chunks));
+        try {
+            buffer.write(MESSAGE_PREFIX);
+            for (int i = 0; i < chunks.size(); i++) {
+                if (i > 0) {
+                    buffer.write(COMMA);
+                }
+                buffer.write(CHUNK_PREFIX);
+                writeBase64(buffer, chunks.get(i));
+                buffer.write(CHUNK_SUFFIX);
+            }
+            buffer.write(MESSAGE_SUFFIX);
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    static int encodedSize(List<byte[]> chunks) {
+        int size = MESSAGE_PREFIX.length + MESSAGE_SUFFIX.length + Math.max(0, chunks.size() - 1);
+        for (byte[] chunk : chunks) {
+            size += CHUNK_PREFIX.length + base64Length(chunk.length) + CHUNK_SUFFIX.length;
+        }
+        return size;
+    }
+
+    private static int base64Length(int rawLength) {
+        return (rawLength + 2) / 3 * 4;
+    }
+
+    private void writeBase64(DataBuffer buffer, byte[] chunk) {
+        int offset = 0;
+        while (offset < chunk.length) {
+            int end = Math.min(offset + RAW_SLICE, chunk.length);
+            int out = 0;
+            int i = offset;
+            for (; i + 2 < end; i += 3) {
+                int bits = (chunk[i] & 0xff) << 16 | (chunk[i + 1] & 0xff) << 8 | (chunk[i + 2] & 0xff);
+                encodedSlice[out++] = ALPHABET[bits >>> 18];
+                encodedSlice[out++] = ALPHABET[(bits >>> 12) & 0x3f];
+                encodedSlice[out++] = ALPHABET[(bits >>> 6) & 0x3f];
+                encodedSlice[out++] = ALPHABET[bits & 0x3f];
+            }
+            int remaining = end - i;
+            if (remaining > 0) {
+                // Only the final slice of a chunk can have a partial group
+                int bits = (chunk[i] & 0xff) << 16 | (remaining == 2 ? (chunk[i + 1] & 0xff) << 8 : 0);
+                encodedSlice[out++] = ALPHABET[bits >>> 18];
+                encodedSlice[out++] = ALPHABET[(bits >>> 12) & 0x3f];
+                encodedSlice[out++] = remaining == 2 ? ALPHABET[(bits >>> 6) & 0x3f] : (byte) '=';
+                encodedSlice[out++] = '=';
+            }
+            buffer.write(encodedSlice, 0, out);
+            offset = end;
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
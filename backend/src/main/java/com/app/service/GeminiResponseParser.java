@@ -0,0 +1,165 @@
+package com.app.service;
+
+import com.app.model.GeminiLiveMessage;
+import com.app.model.GeminiReply;
+import com.app.model.GeminiUsage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.app.service.JsonPathExtractor.ANY_INDEX;
+
+/**
+ * Token-level extraction of the few fields the app reads from Gemini responses.
+ * <p>
+ * Replaces reading the whole body into a String and building a JsonNode tree: bytes are parsed straight from
+ * the incoming buffers and only text, finishReason and usage counts are materialized.
+ */
+public final class GeminiResponseParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final List<Object[]> REPLY_PATHS = List.of(
+            new Object[]{"candidates", 0, "content", "parts", 0, "text"},
+            new Object[]{"candidates", 0, "finishReason"},
+            new Object[]{"candidates", 0},
+            new Object[]{"usageMetadata", "promptTokenCount"},
+            new Object[]{"usageMetadata", "candidatesTokenCount"},
+            new Object[]{"usageMetadata", "totalTokenCount"});
+
+    private static final List<Object[]> LIVE_PATHS = List.of(
+            new Object[]{"serverContent", "modelTurn", "parts", ANY_INDEX, "text"},
+            new Object[]{"setupComplete"},
+            new Object[]{"serverContent", "turnComplete"},
+            new Object[]{"usageMetadata", "promptTokenCount"},
+            new Object[]{"usageMetadata", "responseTokenCount"},
+            new Object[]{"usageMetadata", "totalTokenCount"},
+            new Object[]{"serverContent", "inputTranscription", "text"});
+
+    private GeminiResponseParser() {
+    }
+
+    /**
+     * Parses a generateContent response body as it streams in; every buffer is released once consumed.
+     * A body longer than {@code maxBytes} fails with {@link DataBufferLimitException}, as the codecs'
+     * maxInMemorySize would when buffering it.
+     */
+    public static Mono<GeminiReply> reply(Flux<DataBuffer> body, int maxBytes) {
+        return Mono.using(ReplyCollector::new,
+                collector -> body
+                        .doOnNext(buffer -> {
+                            try {
+                                collector.bytes += buffer.readableByteCount();
+                                if (collector.bytes > maxBytes) {
+                                    throw new DataBufferLimitException(
+                                            "Gemini response exceeds the limit of " + maxBytes + " bytes");
+                                }
+                                collector.extractor.feed(buffer);
+                            } catch (IOException e) {
+                                throw new IllegalArgumentException("Malformed Gemini response: " + e.getMessage(), e);
+                            } finally {
+                                DataBufferUtils.release(buffer);
+                            }
+                        })
+                        .then(Mono.fromCallable(collector::finish)),
+                collector -> collector.extractor.close());
+    }
+
+    /**
+     * Parses one Live message; the payload is not released, it belongs to the WebSocket session.
+     */
+    public static GeminiLiveMessage liveMessage(DataBuffer payload) throws IOException {
+        LiveCollector collector = new LiveCollector();
+        try (JsonPathExtractor extractor = collector.extractor) {
+            extractor.feed(payload);
+            extractor.endOfInput();
+        }
+        return collector.result();
+    }
+
+    private static class ReplyCollector {
+        private final JsonPathExtractor extractor = new JsonPathExtractor(JSON, REPLY_PATHS, this::onValue);
+        private long bytes;
+        private String text;
+        private boolean candidates;
+        private String finishReason;
+        private boolean usage;
+        private int promptTokens;
+        private int candidatesTokens;
+        private int totalTokens;
+
+        private void onValue(int target, JsonParser parser) throws IOException {
+            switch (target) {
+                case 0 -> text = parser.getText();
+                case 1 -> finishReason = parser.getText();
+                case 2 -> candidates = true;
+                default -> {
+                    usage = true;
+                    int count = parser.getValueAsInt();
+                    if (target == 3) {
+                        promptTokens = count;
+                    } else if (target == 4) {
+                        candidatesTokens = count;
+                    } else {
+                        totalTokens = count;
+                    }
+                }
+            }
+        }
+
+        GeminiReply finish() {
+            try {
+                extractor.endOfInput();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed Gemini response: " + e.getMessage(), e);
+            }
+            return new GeminiReply(text, candidates, finishReason,
+                    usage ? new GeminiUsage(promptTokens, candidatesTokens, totalTokens) : null);
+        }
+    }
+
+    private static class LiveCollector {
+        private final JsonPathExtractor extractor = new JsonPathExtractor(JSON, LIVE_PATHS, this::onValue);
+        private final List<String> texts = new ArrayList<>(1);
+        private String inputTranscription;
+        private boolean setupComplete;
+        private boolean turnComplete;
+        private boolean usage;
+        private int promptTokens;
+        private int responseTokens;
+        private int totalTokens;
+
+        private void onValue(int target, JsonParser parser) throws IOException {
+            switch (target) {
+                case 0 -> texts.add(parser.getText());
+                case 1 -> setupComplete = true;
+                case 2 -> turnComplete = parser.getValueAsBoolean();
+                case 6 -> inputTranscription = parser.getText();
+                default -> {
+                    usage = true;
+                    int count = parser.getValueAsInt();
+                    if (target == 3) {
+                        promptTokens = count;
+                    } else if (target == 4) {
+                        responseTokens = count;
+                    } else {
+                        totalTokens = count;
+                    }
+                }
+            }
+        }
+
+        GeminiLiveMessage result() {
+            return new GeminiLiveMessage(setupComplete, List.copyOf(texts), inputTranscription, turnComplete,
+                    usage ? new GeminiUsage(promptTokens, responseTokens, totalTokens) : null);
+        }
+    }
+}
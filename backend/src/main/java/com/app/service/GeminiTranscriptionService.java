@@ -1,127 +1,178 @@
 package com.app.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.app.model.TranscriptionResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
-import org.springframework.web.reactive.socket.client.WebSocketClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.Base64;
+import java.time.Duration;
 import java.util.Map;
 
 @Service
-public class GeminiTranscriptionService {
+@RequiredArgsConstructor
+public class GeminiTranscriptionService implements TranscriptionEngine {
     private static final Path LOG_PATH = Path.of(System.getProperty("user.home"), "Documents", "PrepXL_Project", ".cursor", "debug.log");
+    private static final int BYTES_PER_MS = 32; // 16kHz, 16-bit mono PCM
+
+    private final MeterRegistry meterRegistry;
 
     @Value("${gemini.api.key}")
     private String geminiApiKey;
 
-    private final Sinks.Many<byte[]> audioSink = Sinks.many().multicast().onBackpressureBuffer();
-    private final Sinks.Many<String> transcriptionSink = Sinks.many().multicast().onBackpressureBuffer();
+    @Value("${gemini.live.url:wss://generativelanguage.googleapis.com/ws/google.ai.generativelanguage.v1alpha.GenerativeService.BidiGenerateContent}")
+    private String liveUrl;
+
+    // Batching several PCM chunks into one realtime_input message trades a little latency for fewer frames
+    @Value("${gemini.live.batch.max-chunks:1}")
+    private int batchMaxChunks;
+
+    @Value("${gemini.live.batch.max-delay-ms:40}")
+    private long batchMaxDelayMs;
+
+    @Value("${gemini.live.reconnect.initial-backoff-ms:100}")
+    private long initialBackoffMs;
+
+    @Value("${gemini.live.reconnect.max-backoff-ms:5000}")
+    private long maxBackoffMs;
+
+    @Value("${gemini.live.reconnect.jitter:0.5}")
+    private double backoffJitter;
+
+    // How much recent audio is replayed after the setup message when a socket is re-established
+    @Value("${gemini.live.replay-buffer-ms:2000}")
+    private int replayBufferMs;
+
+    @Value("${gemini.live.max-queued-chunks:256}")
+    private int maxQueuedChunks;
+
+    // How long a per-call connection stays open after the audio ends, to collect trailing text
+    @Value("${gemini.live.drain-ms:1500}")
+    private long drainMs;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    @PostConstruct
-    public void init() {
-        connectToGemini();
+    // Shared socket for the legacy ingest path; only dialled once that path is first used
+    private volatile GeminiLiveConnection connection;
+
+    private synchronized GeminiLiveConnection sharedConnection() {
+        if (connection == null) {
+            GeminiLiveConnection created = newConnection();
+            registerMetrics(created);
+            log("H9", "GeminiTranscriptionService.connect", "Connecting to Gemini WebSocket", 0);
+            created.start();
+            connection = created;
+        }
+        return connection;
+    }
+
+    private GeminiLiveConnection newConnection() {
+        URI uri = URI.create(liveUrl + "?key=" + geminiApiKey);
+        GeminiLiveConnection.Settings settings = new GeminiLiveConnection.Settings(
+                batchMaxChunks,
+                Duration.ofMillis(batchMaxDelayMs),
+                Duration.ofMillis(initialBackoffMs),
+                Duration.ofMillis(maxBackoffMs),
+                backoffJitter,
+                replayBufferMs * BYTES_PER_MS,
+                maxQueuedChunks);
+        return new GeminiLiveConnection(new ReactorNettyWebSocketClient(), uri, setupMessage(), settings);
     }
 
-    private void connectToGemini() {
-        WebSocketClient client = new ReactorNettyWebSocketClient();
-        String url = "wss://generativelanguage.googleapis.com/ws/google.ai.generativelanguage.v1alpha.GenerativeService.BidiGenerateContent?key=" + geminiApiKey;
-
-        client.execute(URI.create(url), session -> {
-            log("H9", "GeminiTranscriptionService.connect", "Connected to Gemini WebSocket", 0);
-
-            // 1. Send Setup Message
-            Map<String, Object> setupMsg = Map.of("setup", Map.of(
-                    "model", "models/gemini-2.0-flash-exp", // or gemini-1.5-flash-latest
-                    "generation_config", Map.of("response_modalities", new String[]{"TEXT"})
-            ));
-            
-            Mono<Void> sendSetup = session.send(Mono.fromCallable(() -> {
-                String json = objectMapper.writeValueAsString(setupMsg);
-                log("H9", "GeminiTranscriptionService.connect", "Sending Setup: " + json, json.length());
-                return session.textMessage(json);
-            }));
-
-            // 2. Stream Audio
-            Mono<Void> sendAudio = session.send(audioSink.asFlux().map(bytes -> {
-                try {
-                    String base64Audio = Base64.getEncoder().encodeToString(bytes);
-                    Map<String, Object> audioMsg = Map.of("realtime_input", Map.of(
-                            "media_chunks", new Object[]{
-                                    Map.of(
-                                            "mime_type", "audio/pcm",
-                                            "data", base64Audio
-                                    )
-                            }
-                    ));
-                    return session.textMessage(objectMapper.writeValueAsString(audioMsg));
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }));
-
-            // 3. Receive Transcription
-            Mono<Void> receive = session.receive()
-                    .doOnNext(message -> {
-                        try {
-                            String payload = message.getPayloadAsText();
-                            // log("H10", "GeminiTranscriptionService.receive", "Received: " + payload, payload.length());
-                            JsonNode root = objectMapper.readTree(payload);
-                            
-                            // Parse serverContent -> modelTurn -> parts -> text
-                            if (root.has("serverContent") && root.get("serverContent").has("modelTurn")) {
-                                JsonNode parts = root.get("serverContent").get("modelTurn").get("parts");
-                                if (parts != null && parts.isArray()) {
-                                    for (JsonNode part : parts) {
-                                        if (part.has("text")) {
-                                            String text = part.get("text").asText();
-                                            transcriptionSink.tryEmitNext(text);
-                                            log("H10", "GeminiTranscriptionService.receive", "Emitted text: " + text, text.length());
-                                        }
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            log("H10", "GeminiTranscriptionService.receive", "Error parsing: " + e.getMessage(), 0);
+    private String setupMessage() {
+        Map<String, Object> setupMsg = Map.of("setup", Map.of(
+                "model", "models/gemini-2.0-flash-exp", // or gemini-1.5-flash-latest
+                "generation_config", Map.of("response_modalities", new String[]{"TEXT"}),
+                // The transcript of what was said comes from here; the model's own replies are not used
+                "input_audio_transcription", Map.of()
+        ));
+        try {
+            return objectMapper.writeValueAsString(setupMsg);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize Gemini setup message", e);
+        }
+    }
+
+    private void registerMetrics(GeminiLiveConnection connection) {
+        Gauge.builder("gemini.live.connected", connection,
+                        c -> c.state() == GeminiLiveConnection.State.CONNECTED ? 1 : 0)
+                .description("1 while the Gemini Live socket is open")
+                .register(meterRegistry);
+        Gauge.builder("gemini.live.replay.buffer.bytes", connection, c -> c.status().bufferedBytes())
+                .register(meterRegistry);
+        FunctionCounter.builder("gemini.live.reconnects", connection, c -> c.status().reconnects())
+                .description("Gemini Live sessions re-established (setup completed) after a drop")
+                .register(meterRegistry);
+        FunctionCounter.builder("gemini.live.replayed.bytes", connection, c -> c.status().replayedBytes())
+                .register(meterRegistry);
+        FunctionCounter.builder("gemini.live.dropped.chunks", connection, c -> c.status().droppedChunks())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "gemini";
+    }
+
+    /**
+     * Opens a dedicated Live connection for this audio stream; it reconnects on its own and is closed
+     * once the audio completes and the drain period has passed, or when the result Flux is cancelled.
+     */
+    @Override
+    public Flux<TranscriptionResult> transcribe(Flux<byte[]> audio, String profile) {
+        return Flux.using(this::newConnection, liveConnection -> {
+            liveConnection.start();
+            Mono<Long> audioDone = audio
+                    .doOnNext(bytes -> {
+                        if (bytes.length > 0) {
+                            liveConnection.send(bytes);
                         }
                     })
-                    .then();
-
-            return sendSetup.then(Mono.zip(sendAudio, receive).then());
-        }).subscribe(
-                null,
-                error -> {
-                    log("H9", "GeminiTranscriptionService.error", "Gemini WebSocket Error: " + error.getMessage(), 0);
-                    // Reconnect logic could go here
-                    try { Thread.sleep(3000); } catch (InterruptedException e) {}
-                    connectToGemini();
-                },
-                () -> log("H9", "GeminiTranscriptionService.complete", "Gemini WebSocket Completed", 0)
-        );
+                    .then(Mono.delay(Duration.ofMillis(drainMs)));
+            return liveConnection.transcriptions()
+                    .takeUntilOther(audioDone);
+        }, GeminiLiveConnection::close);
     }
 
     public Mono<Void> ingest(byte[] bytes) {
-        // log("H7", "GeminiTranscriptionService.ingest", "Forwarding audio size: " + bytes.length, bytes.length);
         if (bytes.length > 0) {
-            audioSink.tryEmitNext(bytes);
+            sharedConnection().send(bytes);
         }
         return Mono.empty();
     }
 
     public Flux<String> transcriptionFlux() {
-        return transcriptionSink.asFlux();
+        return Flux.defer(() -> sharedConnection().transcriptions())
+                .filter(TranscriptionResult::isFinal)
+                .map(TranscriptionResult::text);
+    }
+
+    /**
+     * State of the shared socket; IDLE until the legacy ingest path first uses it.
+     */
+    public GeminiLiveConnection.Status connectionStatus() {
+        GeminiLiveConnection current = connection;
+        return current != null ? current.status()
+                : new GeminiLiveConnection.Status(GeminiLiveConnection.State.IDLE, 0, 0, 0, 0, 0, null);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        GeminiLiveConnection current = connection;
+        if (current != null) {
+            current.close();
+        }
     }
 
     private void log(String hypothesisId, String location, String message, int size) {
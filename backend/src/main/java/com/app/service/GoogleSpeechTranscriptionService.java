@@ -0,0 +1,278 @@
+package com.app.service;
+
+import com.app.model.SpeechEvent;
+import com.app.model.TranscriptionResult;
+import com.app.model.WordTiming;
+import com.google.api.gax.rpc.ClientStream;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.api.gax.rpc.StreamController;
+import com.google.cloud.speech.v1.*;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Google Cloud Speech-to-Text streaming recognition behind the {@link TranscriptionEngine} SPI.
+ * <p>
+ * Streams run on a {@link SpeechClientPool} of gRPC channels, created on a worker thread by {@link #warmUp()}
+ * or by the first stream, whichever comes first, so it never blocks application startup. The engine is ready once
+ * warm-up has seen every channel connected.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GoogleSpeechTranscriptionService implements TranscriptionEngine {
+
+    private final RecognitionProfileRegistry profiles;
+    private final MeterRegistry meterRegistry;
+    private volatile SpeechClientPool pool;
+
+    // Interim segments at or above this stability count towards the stable prefix of a hypothesis
+    @Value("${stt.stability-threshold:0.8}")
+    private float stabilityThreshold;
+
+    // Separate HTTP/2 connections to the Speech API; streams go to the least-loaded one
+    @Value("${stt.grpc.channels:4}")
+    private int channels;
+
+    @Value("${stt.grpc.executor-threads:0}")
+    private int executorThreads;
+
+    @Value("${stt.grpc.keep-alive-time-ms:60000}")
+    private long keepAliveTimeMs;
+
+    @Value("${stt.grpc.keep-alive-timeout-ms:20000}")
+    private long keepAliveTimeoutMs;
+
+    @Value("${stt.grpc.keep-alive-without-calls:false}")
+    private boolean keepAliveWithoutCalls;
+
+    @Value("${stt.grpc.max-inbound-message-size:16777216}")
+    private int maxInboundMessageSize;
+
+    @Value("${stt.grpc.flow-control-window:1048576}")
+    private int flowControlWindow;
+
+    @Value("${stt.grpc.endpoint:}")
+    private String endpoint;
+
+    @Value("${stt.grpc.plaintext:false}")
+    private boolean plaintext;
+
+    @Value("${stt.grpc.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    @Override
+    public String name() {
+        return "google";
+    }
+
+    @Override
+    public Mono<Void> warmUp() {
+        return pool()
+                .flatMap(pool -> Mono.fromFuture(pool::connect))
+                .timeout(Duration.ofMillis(connectTimeoutMs));
+    }
+
+    @Override
+    public boolean isReady() {
+        SpeechClientPool current = pool;
+        return current != null && !current.isShutdown() && current.isConnected();
+    }
+
+    @Override
+    public Flux<TranscriptionResult> transcribe(Flux<byte[]> audio, String profile) {
+        return transcribe(audio, profile, null);
+    }
+
+    @Override
+    public Flux<TranscriptionResult> transcribe(Flux<byte[]> audio, String profile, Consumer<SpeechEvent> speechEvents) {
+        return pool().flatMapMany(pool -> Flux.using(pool::acquire,
+                lease -> open(lease.client(), audio, profile, speechEvents),
+                SpeechClientPool.Lease::release));
+    }
+
+    @Override
+    public boolean supportsSpeechEvents() {
+        return true;
+    }
+
+    private Flux<TranscriptionResult> open(SpeechClient client, Flux<byte[]> audio, String profile,
+                                           Consumer<SpeechEvent> speechEvents) {
+        return Flux.create(sink -> {
+            // Cancels the gRPC call and stops forwarding audio once the result Flux terminates or is cancelled
+            Disposable.Composite resources = Disposables.composite();
+            sink.onDispose(resources);
+            try {
+                ClientStream<StreamingRecognizeRequest> requestStream = client
+                        .streamingRecognizeCallable()
+                        .splitCall(new SinkResponseObserver(sink, resources, stabilityThreshold, speechEvents));
+                // Precompiled and immutable, so the same message is reused for every stream of this profile
+                requestStream.send(profiles.configRequest(profile, speechEvents != null));
+                log.info("Google STT stream initialized and config sent");
+
+                Disposable audioSubscription = audio.subscribe(
+                        bytes -> requestStream.send(StreamingRecognizeRequest.newBuilder()
+                                .setAudioContent(ByteString.copyFrom(bytes))
+                                .build()),
+                        requestStream::closeSendWithError,
+                        () -> {
+                            requestStream.closeSend();
+                            log.info("Google STT stream closeSend called");
+                        });
+                resources.add(audioSubscription);
+            } catch (Exception e) {
+                log.error("Failed to initialize STT stream", e);
+                sink.error(e);
+            }
+        });
+    }
+
+    private Mono<SpeechClientPool> pool() {
+        SpeechClientPool current = pool;
+        if (current != null && !current.isShutdown()) {
+            return Mono.just(current);
+        }
+        return Mono.fromCallable(this::createPool).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Synchronized so a warm-up and an early first stream share one creation
+    private synchronized SpeechClientPool createPool() throws IOException {
+        if (pool == null || pool.isShutdown()) {
+            if (pool != null) {
+                pool.close();
+            }
+            long start = System.nanoTime();
+            pool = SpeechClientPool.create(new SpeechClientPool.Settings(channels, executorThreads,
+                    Duration.ofMillis(keepAliveTimeMs), Duration.ofMillis(keepAliveTimeoutMs), keepAliveWithoutCalls,
+                    maxInboundMessageSize, flowControlWindow, endpoint, plaintext), meterRegistry);
+            log.info("Speech client pool with {} channels created in {} ms", pool.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return pool;
+    }
+
+    /**
+     * Bridges gRPC callbacks into the result Flux; cancelling the Flux cancels the gRPC call.
+     * <p>
+     * Each final result is emitted on its own with word timings. The interim results of one response are
+     * joined into a single hypothesis whose stable prefix covers the leading segments above the stability threshold.
+     */
+    private static class SinkResponseObserver implements ResponseObserver<StreamingRecognizeResponse> {
+
+        private final FluxSink<TranscriptionResult> sink;
+        private final Disposable.Composite resources;
+        private final float stabilityThreshold;
+        private final Consumer<SpeechEvent> speechEvents;
+
+        SinkResponseObserver(FluxSink<TranscriptionResult> sink, Disposable.Composite resources,
+                             float stabilityThreshold, Consumer<SpeechEvent> speechEvents) {
+            this.sink = sink;
+            this.resources = resources;
+            this.stabilityThreshold = stabilityThreshold;
+            this.speechEvents = speechEvents;
+        }
+
+        @Override
+        public void onStart(StreamController controller) {
+            log.info("Google STT stream connected");
+            resources.add(controller::cancel);
+        }
+
+        @Override
+        public void onResponse(StreamingRecognizeResponse response) {
+            onResults(response);
+            if (speechEvents != null) {
+                SpeechEvent.Type type = switch (response.getSpeechEventType()) {
+                    case SPEECH_ACTIVITY_BEGIN -> SpeechEvent.Type.SPEECH_BEGIN;
+                    case SPEECH_ACTIVITY_END -> SpeechEvent.Type.SPEECH_END;
+                    case END_OF_SINGLE_UTTERANCE -> SpeechEvent.Type.END_OF_UTTERANCE;
+                    default -> null;
+                };
+                if (type != null) {
+                    speechEvents.accept(new SpeechEvent(type, toMillis(response.getSpeechEventTime())));
+                }
+            }
+        }
+
+        private void onResults(StreamingRecognizeResponse response) {
+            StringBuilder interim = new StringBuilder();
+            int stableLength = 0;
+            boolean stable = true;
+            for (StreamingRecognitionResult result : response.getResultsList()) {
+                log.debug("Received raw STT result: {}", result);
+                if (result.getAlternativesCount() == 0) {
+                    log.warn("Received STT result with NO alternatives (noise/silence?)");
+                    continue;
+                }
+                SpeechRecognitionAlternative alternative = result.getAlternatives(0);
+                String text = alternative.getTranscript();
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (result.getIsFinal()) {
+                    sink.next(new TranscriptionResult(text, true, "user", text.length(), wordTimings(alternative)));
+                    continue;
+                }
+                interim.append(text);
+                stable = stable && result.getStability() >= stabilityThreshold;
+                if (stable) {
+                    stableLength = interim.length();
+                }
+            }
+            if (!interim.isEmpty()) {
+                sink.next(new TranscriptionResult(interim.toString(), false, "user", stableLength, List.of()));
+            }
+        }
+
+        private static List<WordTiming> wordTimings(SpeechRecognitionAlternative alternative) {
+            if (alternative.getWordsCount() == 0) {
+                return List.of();
+            }
+            List<WordTiming> words = new ArrayList<>(alternative.getWordsCount());
+            for (WordInfo word : alternative.getWordsList()) {
+                words.add(new WordTiming(word.getWord(), toMillis(word.getStartTime()), toMillis(word.getEndTime())));
+            }
+            return List.copyOf(words);
+        }
+
+        private static long toMillis(com.google.protobuf.Duration duration) {
+            return duration.getSeconds() * 1000 + duration.getNanos() / 1_000_000;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.error("STT Stream Error: {}", t.getMessage());
+            sink.error(t);
+        }
+
+        @Override
+        public void onComplete() {
+            log.info("STT stream completed");
+            sink.complete();
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.app.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Pulls selected values out of a JSON document as its bytes arrive, without building a tree.
+ * <p>
+ * Targets are paths of field names and array indices, e.g. {@code {"candidates", 0, "finishReason"}};
+ * {@link #ANY_INDEX} matches every element of an array. Subtrees that cannot lead to a target are tokenized
+ * but otherwise ignored. Input is pushed through Jackson's non-blocking parser, so a document split across
+ * any number of buffers is handled without copying it into one. Not thread-safe; one instance per document.
+ */
+public class JsonPathExtractor implements AutoCloseable {
+
+    /** Receives the parser positioned on a matched value; for objects and arrays that is the start token. */
+    @FunctionalInterface
+    public interface Handler {
+        void onValue(int target, JsonParser parser) throws IOException;
+    }
+
+    public static final Object ANY_INDEX = new Object();
+
+    private static final int MAX_DEPTH = 64;
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final List<Object[]> targets;
+    private final Handler handler;
+
+    // Per open container: the current field name (objects) or element index (arrays)
+    private final Object[] path = new Object[MAX_DEPTH];
+    private final boolean[] inArray = new boolean[MAX_DEPTH];
+    private final int[] index = new int[MAX_DEPTH];
+    private int depth;
+    private int skipDepth;
+
+    public JsonPathExtractor(JsonFactory factory, List<Object[]> targets, Handler handler) {
+        try {
+            this.parser = factory.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.targets = targets;
+        this.handler = handler;
+    }
+
+    /**
+     * Consumes the readable bytes of the buffer; the caller still owns (and releases) it.
+     */
+    public void feed(DataBuffer buffer) throws IOException {
+        try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                feed(buffers.next());
+            }
+        }
+    }
+
+    public void feed(ByteBuffer bytes) throws IOException {
+        feeder.feedInput(bytes);
+        drain();
+    }
+
+    public void endOfInput() throws IOException {
+        feeder.endOfInput();
+        drain();
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            onToken(token);
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        if (skipDepth > 0) {
+            if (token.isStructStart()) {
+                skipDepth++;
+            } else if (token.isStructEnd()) {
+                skipDepth--;
+            }
+            return;
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            path[depth - 1] = parser.currentName();
+            return;
+        }
+        if (token.isStructEnd()) {
+            depth--;
+            return;
+        }
+        if (depth > 0 && inArray[depth - 1]) {
+            path[depth - 1] = ++index[depth - 1];
+        }
+        notifyMatches();
+        if (token.isStructStart()) {
+            if (depth == MAX_DEPTH || !leadsToTarget()) {
+                skipDepth = 1;
+                return;
+            }
+            inArray[depth] = token == JsonToken.START_ARRAY;
+            index[depth] = -1;
+            path[depth] = null;
+            depth++;
+        }
+    }
+
+    private void notifyMatches() throws IOException {
+        for (int t = 0; t < targets.size(); t++) {
+            Object[] target = targets.get(t);
+            if (target.length == depth && matches(target, depth)) {
+                handler.onValue(t, parser);
+            }
+        }
+    }
+
+    private boolean leadsToTarget() {
+        for (Object[] target : targets) {
+            if (target.length > depth && matches(target, depth)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(Object[] target, int length) {
+        for (int i = 0; i < length; i++) {
+            Object expected = target[i];
+            if (expected == ANY_INDEX ? !(path[i] instanceof Integer) : !expected.equals(path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
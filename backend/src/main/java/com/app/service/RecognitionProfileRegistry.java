@@ -0,0 +1,187 @@
+package com.app.service;
+
+import com.app.model.RecognitionProfile;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.speech.v1.RecognitionConfig;
+import com.google.cloud.speech.v1.SpeechContext;
+import com.google.cloud.speech.v1.StreamingRecognitionConfig;
+import com.google.cloud.speech.v1.StreamingRecognizeRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Named recognition profiles, each compiled once into the immutable config request sent at stream start.
+ * <p>
+ * Profiles are read from {@code stt.profiles.location}. Only a location that is a plain file, in practice a
+ * {@code file:} path, is polled and recompiled on change; the classpath default is read once at startup, since
+ * inside the packaged jar it is not a file. A file that fails to parse is logged and the previous profiles stay
+ * active.
+ */
+@Slf4j
+@Component
+public class RecognitionProfileRegistry {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final int SAMPLE_RATE = 16000;
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+
+    @Value("${stt.profiles.location:classpath:recognition-profiles.json}")
+    private String location;
+
+    @Value("${stt.profiles.reload-interval-ms:5000}")
+    private long reloadIntervalMs;
+
+    /** Config requests of one profile: plain, and with voice activity events for server-side endpointing. */
+    private record Compiled(StreamingRecognizeRequest plain, StreamingRecognizeRequest voiceActivity) {
+    }
+
+    private volatile Map<String, Compiled> compiled = Map.of();
+    private volatile long loadedModified;
+    private Disposable reloadTask;
+
+    public RecognitionProfileRegistry(ResourceLoader resourceLoader, ObjectMapper objectMapper) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        Resource resource = resourceLoader.getResource(location);
+        load(resource);
+        if (resource.isFile() && reloadIntervalMs > 0) {
+            File file = resource.getFile();
+            reloadTask = Flux.interval(Duration.ofMillis(reloadIntervalMs), Schedulers.boundedElastic())
+                    .filter(tick -> file.lastModified() != loadedModified)
+                    .subscribe(tick -> reload(resource));
+        } else if (reloadIntervalMs > 0) {
+            log.info("Recognition profiles at {} are not a plain file and will not be reloaded; "
+                    + "set stt.profiles.location to a file: path to change them without a restart", location);
+        }
+    }
+
+    /**
+     * Config request for the given profile; unknown or missing names fall back to the default profile.
+     */
+    public StreamingRecognizeRequest configRequest(String profile) {
+        return configRequest(profile, false);
+    }
+
+    /**
+     * @param voiceActivityEvents whether the stream should report speech begin/end events
+     */
+    public StreamingRecognizeRequest configRequest(String profile, boolean voiceActivityEvents) {
+        Map<String, Compiled> current = compiled;
+        Compiled request = profile == null ? null : current.get(profile);
+        if (request == null) {
+            if (profile != null && !DEFAULT_PROFILE.equals(profile)) {
+                log.warn("Unknown recognition profile '{}', using '{}'", profile, DEFAULT_PROFILE);
+            }
+            request = current.get(DEFAULT_PROFILE);
+        }
+        return voiceActivityEvents ? request.voiceActivity() : request.plain();
+    }
+
+    public boolean hasProfile(String profile) {
+        return compiled.containsKey(profile);
+    }
+
+    public Set<String> profileNames() {
+        return compiled.keySet();
+    }
+
+    private void reload(Resource resource) {
+        try {
+            load(resource);
+        } catch (Exception e) {
+            log.error("Failed to reload recognition profiles from {}, keeping previous ones", location, e);
+            // Don't retry the same broken file on every tick
+            loadedModified = lastModified(resource);
+        }
+    }
+
+    private void load(Resource resource) throws Exception {
+        long modified = lastModified(resource);
+        Map<String, RecognitionProfile> profiles;
+        try (InputStream in = resource.getInputStream()) {
+            profiles = objectMapper.readValue(in, new TypeReference<LinkedHashMap<String, RecognitionProfile>>() {});
+        }
+        if (!profiles.containsKey(DEFAULT_PROFILE)) {
+            throw new IllegalArgumentException("missing '" + DEFAULT_PROFILE + "' profile");
+        }
+        Map<String, Compiled> next = new LinkedHashMap<>();
+        profiles.forEach((name, profile) -> next.put(name, new Compiled(compile(profile, false), compile(profile, true))));
+        compiled = Map.copyOf(next);
+        loadedModified = modified;
+        log.info("Loaded recognition profiles {} from {}", next.keySet(), location);
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.isFile() ? resource.getFile().lastModified() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static StreamingRecognizeRequest compile(RecognitionProfile profile, boolean voiceActivityEvents) {
+        RecognitionConfig.Builder config = RecognitionConfig.newBuilder()
+                .setEncoding(RecognitionConfig.AudioEncoding.LINEAR16)
+                .setSampleRateHertz(SAMPLE_RATE)
+                .setLanguageCode(profile.languageCode() != null ? profile.languageCode() : "en-IN")
+                .setModel(profile.model() != null ? profile.model() : "latest_long")
+                .setUseEnhanced(!Boolean.FALSE.equals(profile.useEnhanced()))
+                .setEnableAutomaticPunctuation(!Boolean.FALSE.equals(profile.automaticPunctuation()))
+                .setEnableWordTimeOffsets(!Boolean.FALSE.equals(profile.wordTimeOffsets()))
+                .setMaxAlternatives(1)      // Only best result
+                .setAudioChannelCount(1);   // Mono channel
+        if (profile.phraseSets() != null) {
+            for (RecognitionProfile.PhraseSet phraseSet : profile.phraseSets()) {
+                if (phraseSet.phrases() == null || phraseSet.phrases().isEmpty()) {
+                    continue;
+                }
+                config.addSpeechContexts(SpeechContext.newBuilder()
+                        .addAllPhrases(phraseSet.phrases())
+                        .setBoost(phraseSet.boost())
+                        .build());
+            }
+        }
+
+        StreamingRecognitionConfig.Builder streamingConfig = StreamingRecognitionConfig.newBuilder()
+                .setConfig(config.build())
+                .setInterimResults(!Boolean.FALSE.equals(profile.interimResults()));
+        if (voiceActivityEvents) {
+            streamingConfig.setEnableVoiceActivityEvents(true)
+                    .setSingleUtterance(Boolean.TRUE.equals(profile.singleUtterance()));
+        }
+
+        return StreamingRecognizeRequest.newBuilder()
+                .setStreamingConfig(streamingConfig.build())
+                .build();
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (reloadTask != null) {
+            reloadTask.dispose();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.http.HttpResources;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Node-level admission control for streaming STT sessions.
+ * <p>
+ * A handshake gets a {@link Permit} while fewer than {@code max-active-sessions} are held. When the node is at
+ * capacity, up to {@code max-queued-handshakes} wait (at most {@code queue-timeout-ms}) for a permit to be
+ * released. When the event loops lag or transcript queues back up beyond their thresholds, new handshakes are
+ * shed straight away, since queuing them would only add to the overload. Rejections carry a retry-after hint.
+ * <p>
+ * A permit belongs to the STT session, so a detached resumable session counts against the cap until it expires.
+ */
+@Slf4j
+@Service
+public class SessionAdmissionService {
+
+    /** Why a handshake was shed; used as the metric tag. */
+    public enum ShedReason { CAPACITY, QUEUE_TIMEOUT, EVENT_LOOP_LAG, OUTBOUND_QUEUE }
+
+    public static class AdmissionRejectedException extends RuntimeException {
+        private final ShedReason reason;
+        private final Duration retryAfter;
+
+        AdmissionRejectedException(ShedReason reason, Duration retryAfter) {
+            super("STT session rejected: " + reason);
+            this.reason = reason;
+            this.retryAfter = retryAfter;
+        }
+
+        public ShedReason reason() {
+            return reason;
+        }
+
+        public Duration retryAfter() {
+            return retryAfter;
+        }
+    }
+
+    /** One admitted session; releasing is idempotent so every exit path can call it. */
+    public class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                active.decrementAndGet();
+                drainWaiters();
+            }
+        }
+    }
+
+    private final SpeechTranscriptionService sttService;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private Counter admitted;
+    private Timer waitTimer;
+
+    private EventLoopLagMonitor lagMonitor;
+    private volatile long queuedFrames;
+    private Disposable probeTask;
+
+    @Value("${stt.admission.max-active-sessions:200}")
+    private int maxActiveSessions;
+
+    @Value("${stt.admission.max-queued-handshakes:20}")
+    private int maxQueuedHandshakes;
+
+    @Value("${stt.admission.queue-timeout-ms:2000}")
+    private long queueTimeoutMs;
+
+    @Value("${stt.admission.max-event-loop-lag-ms:200}")
+    private long maxEventLoopLagMs;
+
+    // Audio frames waiting for upstream plus transcript events waiting for SSE subscribers, across all sessions
+    @Value("${stt.admission.max-queued-frames:5000}")
+    private long maxQueuedFrames;
+
+    @Value("${stt.admission.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${stt.admission.probe-interval-ms:500}")
+    private long probeIntervalMs;
+
+    public SessionAdmissionService(SpeechTranscriptionService sttService, MeterRegistry meterRegistry) {
+        this.sttService = sttService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        admitted = Counter.builder("stt.admission.admitted")
+                .description("STT sessions admitted")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("stt.admission.wait")
+                .description("Time queued handshakes waited for a permit")
+                .register(meterRegistry);
+        for (ShedReason reason : ShedReason.values()) {
+            shedCounter(reason);
+        }
+        Gauge.builder("stt.admission.active", active, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("stt.admission.queued", waiting, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("stt.admission.event.loop.lag", this, s -> s.lagMonitor != null ? s.lagMonitor.lagMillis() : 0)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("stt.admission.queued.frames", this, s -> s.queuedFrames).register(meterRegistry);
+
+        lagMonitor = new EventLoopLagMonitor(HttpResources.get().onServer(true));
+        probeTask = Flux.interval(Duration.ofMillis(probeIntervalMs))
+                .subscribe(tick -> {
+                    lagMonitor.probe();
+                    queuedFrames = sttService.queuedFrames();
+                });
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (probeTask != null) {
+            probeTask.dispose();
+        }
+    }
+
+    /**
+     * Emits a permit, possibly after queuing, or fails with {@link AdmissionRejectedException}.
+     */
+    public Mono<Permit> admit() {
+        ShedReason overload = overloadReason();
+        if (overload != null) {
+            return reject(overload);
+        }
+        Permit permit = tryAcquire();
+        if (permit != null) {
+            return Mono.just(permit);
+        }
+        if (waiting.incrementAndGet() > maxQueuedHandshakes) {
+            waiting.decrementAndGet();
+            return reject(ShedReason.CAPACITY);
+        }
+        long queuedAt = System.nanoTime();
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter = new Waiter(sink);
+                    sink.onCancel(waiter::cancel);
+                    waiters.add(waiter);
+                    // A permit may have been released between tryAcquire and enqueueing
+                    drainWaiters();
+                })
+                .doOnNext(p -> waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS))
+                .timeout(Duration.ofMillis(queueTimeoutMs), Mono.defer(() -> reject(ShedReason.QUEUE_TIMEOUT)));
+    }
+
+    public int activeSessions() {
+        return active.get();
+    }
+
+    /**
+     * Whether a handshake resumes a session that is still open here. Such a session kept its permit while
+     * detached, so the handshake needs none of its own.
+     */
+    public boolean resumesAdmittedSession(String resumeToken) {
+        return resumeToken != null && sttService.resume(resumeToken).isPresent();
+    }
+
+    private ShedReason overloadReason() {
+        if (lagMonitor != null && lagMonitor.lagMillis() > maxEventLoopLagMs) {
+            return ShedReason.EVENT_LOOP_LAG;
+        }
+        if (queuedFrames > maxQueuedFrames) {
+            return ShedReason.OUTBOUND_QUEUE;
+        }
+        return null;
+    }
+
+    private Permit tryAcquire() {
+        if (!acquireSlot()) {
+            return null;
+        }
+        admitted.increment();
+        return new Permit();
+    }
+
+    private boolean acquireSlot() {
+        while (true) {
+            int current = active.get();
+            if (current >= maxActiveSessions) {
+                return false;
+            }
+            if (active.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drainWaiters() {
+        while (!waiters.isEmpty() && acquireSlot()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null || !waiter.grant(new Permit())) {
+                // Queue emptied or the waiter was cancelled meanwhile: give the slot back and look again
+                active.decrementAndGet();
+                continue;
+            }
+            admitted.increment();
+        }
+    }
+
+    private <T> Mono<T> reject(ShedReason reason) {
+        shedCounter(reason).increment();
+        log.warn("Shedding STT handshake: {} (active {}, queued {}, loop lag {} ms, queued frames {})",
+                reason, active.get(), waiting.get(), lagMonitor != null ? lagMonitor.lagMillis() : 0, queuedFrames);
+        return Mono.error(new AdmissionRejectedException(reason, Duration.ofSeconds(retryAfterSeconds)));
+    }
+
+    private Counter shedCounter(ShedReason reason) {
+        return Counter.builder("stt.admission.shed")
+                .description("STT handshakes rejected by admission control")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    /**
+     * A queued handshake; exactly one of grant and cancel wins, and a permit that loses is released.
+     */
+    private class Waiter {
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile Permit granted;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        boolean grant(Permit permit) {
+            granted = permit;
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            waiting.decrementAndGet();
+            sink.success(permit);
+            return true;
+        }
+
+        void cancel() {
+            if (done.compareAndSet(false, true)) {
+                waiting.decrementAndGet();
+                waiters.remove(this);
+            } else {
+                Permit permit = granted;
+                if (permit != null) {
+                    permit.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.app.service;
+
+import com.app.model.SessionInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@code /actuator/sessions}: lists active streaming sessions from their lock-free counters;
+ * {@code DELETE /actuator/sessions/{id}} force-closes one, which also closes its WebSocket.
+ * <p>
+ * Neither operation is authenticated, so the endpoint is not in the default web exposure; expose it only on a
+ * management port that is not reachable from outside.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "sessions")
+@RequiredArgsConstructor
+public class SessionsEndpoint {
+
+    private final SpeechTranscriptionService sttService;
+
+    @ReadOperation
+    public List<SessionInfo> sessions() {
+        return sttService.sessions().stream()
+                .map(TranscriptionSession::info)
+                .sorted(Comparator.comparing(SessionInfo::openedAt))
+                .toList();
+    }
+
+    @ReadOperation
+    public SessionInfo session(@Selector String id) {
+        return sttService.session(id).map(TranscriptionSession::info).orElse(null);
+    }
+
+    @DeleteOperation
+    public SessionInfo close(@Selector String id) {
+        return sttService.session(id)
+                .map(session -> {
+                    log.warn("Force-closing session {} via actuator", id);
+                    SessionInfo info = session.info();
+                    session.forceClose();
+                    return info;
+                })
+                .orElse(null);
+    }
+}
@@ -0,0 +1,164 @@
+package com.app.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a 16kHz 16-bit mono PCM stream into chunks at silence boundaries.
+ * <p>
+ * Audio is examined in 20ms frames. Once a chunk is at least {@code minChunkMs} long, it is cut after
+ * {@code minSilenceMs} of consecutive frames below the energy threshold; a chunk that never reaches a pause
+ * is cut at {@code maxChunkMs}. A leading WAV header is skipped. Only the chunk being assembled is held in
+ * memory. Not thread-safe; feed it from a single serialized stream.
+ */
+public class SilenceChunker {
+
+    public record Chunk(int index, long startMs, byte[] pcm) {
+        public long endMs() {
+            return startMs + pcm.length / BYTES_PER_MS;
+        }
+    }
+
+    private static final int BYTES_PER_MS = 32; // 16kHz * 2 bytes
+    private static final int FRAME_MS = 20;
+    private static final int FRAME_BYTES = FRAME_MS * BYTES_PER_MS;
+    private static final int MAX_HEADER_BYTES = 4096;
+
+    private final long minChunkMs;
+    private final long maxChunkMs;
+    private final int minSilenceFrames;
+    private final double silenceRms;
+
+    private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+    private final byte[] frame = new byte[FRAME_BYTES];
+    private int frameFill;
+    private int silentFrames;
+    private long chunkStartBytes;
+    private int nextIndex;
+
+    // First bytes are held back until we know whether they start a WAV header
+    private boolean headerDone;
+    private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+
+    public SilenceChunker(long minChunkMs, long maxChunkMs, long minSilenceMs, double silenceRms) {
+        this.minChunkMs = minChunkMs;
+        this.maxChunkMs = maxChunkMs;
+        this.minSilenceFrames = (int) Math.max(1, minSilenceMs / FRAME_MS);
+        this.silenceRms = silenceRms;
+    }
+
+    /**
+     * Consumes the next piece of the upload and returns the chunks it completed, usually none or one.
+     */
+    public List<Chunk> accept(byte[] bytes) {
+        List<Chunk> completed = new ArrayList<>(1);
+        byte[] pcm = headerDone ? bytes : stripHeader(bytes);
+        int offset = 0;
+        while (offset < pcm.length) {
+            int n = Math.min(FRAME_BYTES - frameFill, pcm.length - offset);
+            System.arraycopy(pcm, offset, frame, frameFill, n);
+            frameFill += n;
+            offset += n;
+            if (frameFill == FRAME_BYTES) {
+                onFrame(completed);
+                frameFill = 0;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Flushes whatever audio is left once the upload has ended.
+     */
+    public List<Chunk> finish() {
+        if (!headerDone && header.size() > 0) {
+            // Upload shorter than a header: whatever is there is raw PCM
+            byte[] held = header.toByteArray();
+            headerDone = true;
+            header.reset();
+            List<Chunk> completed = accept(held);
+            completed.addAll(finish());
+            return completed;
+        }
+        if (frameFill > 0) {
+            current.write(frame, 0, frameFill & ~1);
+            frameFill = 0;
+        }
+        List<Chunk> completed = new ArrayList<>(1);
+        if (current.size() > 0) {
+            completed.add(cut());
+        }
+        return completed;
+    }
+
+    private void onFrame(List<Chunk> completed) {
+        current.write(frame, 0, FRAME_BYTES);
+        silentFrames = rms(frame) < silenceRms ? silentFrames + 1 : 0;
+        long chunkMs = current.size() / BYTES_PER_MS;
+        if ((chunkMs >= minChunkMs && silentFrames >= minSilenceFrames) || chunkMs >= maxChunkMs) {
+            completed.add(cut());
+        }
+    }
+
+    private Chunk cut() {
+        Chunk chunk = new Chunk(nextIndex++, chunkStartBytes / BYTES_PER_MS, current.toByteArray());
+        chunkStartBytes += chunk.pcm().length;
+        current.reset();
+        silentFrames = 0;
+        return chunk;
+    }
+
+    private static double rms(byte[] pcm) {
+        ByteBuffer samples = ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN);
+        double sum = 0;
+        int count = pcm.length / 2;
+        for (int i = 0; i < count; i++) {
+            double sample = samples.getShort(i * 2);
+            sum += sample * sample;
+        }
+        return Math.sqrt(sum / count);
+    }
+
+    /**
+     * Holds back the first bytes until it is known whether they are a WAV header, then returns the PCM part.
+     */
+    private byte[] stripHeader(byte[] bytes) {
+        header.write(bytes, 0, bytes.length);
+        byte[] seen = header.toByteArray();
+        int pcmStart = seen.length < 12 ? -1 : pcmStart(seen);
+        if (pcmStart < 0) {
+            if (seen.length > MAX_HEADER_BYTES) {
+                throw new IllegalArgumentException("WAV upload has no data chunk within " + MAX_HEADER_BYTES + " bytes");
+            }
+            return new byte[0];
+        }
+        headerDone = true;
+        header.reset();
+        return Arrays.copyOfRange(seen, pcmStart, seen.length);
+    }
+
+    /**
+     * Offset of the first PCM byte: 0 for raw PCM, after the "data" sub-chunk header for WAV, -1 if not yet known.
+     */
+    private static int pcmStart(byte[] seen) {
+        if (!(seen[0] == 'R' && seen[1] == 'I' && seen[2] == 'F' && seen[3] == 'F')) {
+            return 0;
+        }
+        int pos = 12;
+        while (pos + 8 <= seen.length) {
+            if (seen[pos] == 'd' && seen[pos + 1] == 'a' && seen[pos + 2] == 't' && seen[pos + 3] == 'a') {
+                return pos + 8;
+            }
+            int size = ByteBuffer.wrap(seen, pos + 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            if (size < 0) {
+                throw new IllegalArgumentException("Malformed WAV header");
+            }
+            pos += 8 + size + (size & 1);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,243 @@
+package com.app.service;
+
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.GrpcTransportChannel;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.speech.v1.SpeechSettings;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of SpeechClients with one gRPC channel (one HTTP/2 connection) each; every stream goes to the
+ * channel that currently carries the fewest.
+ * <p>
+ * On a single connection all streams share the server's concurrent-stream limit, one flow-control window and
+ * one event loop, which caps throughput long before the CPU does. gax can pool channels itself, but it
+ * assigns calls round-robin and does not expose per-channel load, so each client here gets exactly one
+ * channel and the pool does the placement.
+ * <p>
+ * The pool builds the channels itself, so {@link #connect()} can open their connections before the first stream
+ * (gRPC channels otherwise stay idle until the first call).
+ */
+@Slf4j
+public class SpeechClientPool implements AutoCloseable {
+
+    /**
+     * @param executorThreads threads for gRPC callbacks, shared by all channels; 0 keeps gRPC's default executor
+     * @param endpoint        host:port, or blank for the Speech API default
+     * @param plaintext       no TLS and no credentials, for a local emulator or fake server
+     */
+    public record Settings(int channels,
+                           int executorThreads,
+                           Duration keepAliveTime,
+                           Duration keepAliveTimeout,
+                           boolean keepAliveWithoutCalls,
+                           int maxInboundMessageSize,
+                           int flowControlWindow,
+                           String endpoint,
+                           boolean plaintext) {
+    }
+
+    /**
+     * One stream's hold on a channel; released exactly once, when the stream ends.
+     */
+    public static final class Lease {
+        private final Channel channel;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Channel channel) {
+            this.channel = channel;
+        }
+
+        public SpeechClient client() {
+            return channel.client;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                channel.activeStreams.decrementAndGet();
+            }
+        }
+    }
+
+    private record Channel(int index, ManagedChannel managedChannel, SpeechClient client,
+                           AtomicInteger activeStreams) {
+    }
+
+    private final List<Channel> channels;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final List<Meter> meters = new ArrayList<>();
+    // Rotates the starting point of the least-loaded scan so ties do not all land on channel 0
+    private final AtomicInteger nextStart = new AtomicInteger();
+    private volatile boolean connected;
+
+    private SpeechClientPool(List<Channel> channels, ExecutorService executor, MeterRegistry meterRegistry) {
+        this.channels = channels;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        for (Channel channel : channels) {
+            meters.add(Gauge.builder("stt.grpc.channel.streams", channel.activeStreams(), AtomicInteger::get)
+                    .description("Active streaming recognitions on one Speech API channel")
+                    .tag("channel", String.valueOf(channel.index()))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Creates every client up front; blocking (credentials and channel setup), so call it off the event loop.
+     */
+    public static SpeechClientPool create(Settings settings, MeterRegistry meterRegistry) throws IOException {
+        ExecutorService executor = settings.executorThreads() > 0
+                ? Executors.newFixedThreadPool(settings.executorThreads(), threadFactory())
+                : null;
+        List<Channel> channels = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.max(1, settings.channels()); i++) {
+                channels.add(createChannel(i, settings, executor));
+            }
+        } catch (IOException | RuntimeException e) {
+            channels.forEach(SpeechClientPool::closeChannel);
+            if (executor != null) {
+                executor.shutdown();
+            }
+            throw e;
+        }
+        return new SpeechClientPool(List.copyOf(channels), executor, meterRegistry);
+    }
+
+    /**
+     * Places a stream on the channel with the fewest active streams. Concurrent callers may pick the same
+     * channel; the imbalance is at most the number of racing callers and evens out on the next acquisitions.
+     */
+    public Lease acquire() {
+        int size = channels.size();
+        int start = Math.floorMod(nextStart.getAndIncrement(), size);
+        Channel best = channels.get(start);
+        for (int i = 1; i < size; i++) {
+            Channel candidate = channels.get((start + i) % size);
+            if (candidate.activeStreams().get() < best.activeStreams().get()) {
+                best = candidate;
+            }
+        }
+        best.activeStreams().incrementAndGet();
+        return new Lease(best);
+    }
+
+    /**
+     * Asks every channel to connect and completes once all of them are READY; fails if a channel's first
+     * connection attempt fails or the pool is shut down meanwhile.
+     */
+    public CompletableFuture<Void> connect() {
+        CompletableFuture<?>[] ready = channels.stream()
+                .map(channel -> {
+                    CompletableFuture<Void> future = new CompletableFuture<>();
+                    awaitReady(channel, future);
+                    return future;
+                })
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(ready).thenRun(() -> connected = true);
+    }
+
+    /** Whether {@link #connect()} has seen every channel READY at least once. */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    private static void awaitReady(Channel channel, CompletableFuture<Void> ready) {
+        ConnectivityState state = channel.managedChannel().getState(true);
+        switch (state) {
+            case READY -> ready.complete(null);
+            case TRANSIENT_FAILURE, SHUTDOWN -> ready.completeExceptionally(new IllegalStateException(
+                    "Speech API channel " + channel.index() + " failed to connect: " + state));
+            default -> channel.managedChannel().notifyWhenStateChanged(state, () -> awaitReady(channel, ready));
+        }
+    }
+
+    public int size() {
+        return channels.size();
+    }
+
+    public boolean isShutdown() {
+        return channels.stream().anyMatch(channel -> channel.client().isShutdown()
+                || channel.managedChannel().isShutdown());
+    }
+
+    @Override
+    public void close() {
+        meters.forEach(meterRegistry::remove);
+        channels.forEach(SpeechClientPool::closeChannel);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static Channel createChannel(int index, Settings settings, ExecutorService executor)
+            throws IOException {
+        String target = settings.endpoint() != null && !settings.endpoint().isBlank()
+                ? settings.endpoint()
+                : SpeechSettings.getDefaultEndpoint();
+        ManagedChannel managedChannel = configure(NettyChannelBuilder.forTarget(target), settings, executor).build();
+        try {
+            // gax still adds credentials and API headers per call; it just uses this channel as is
+            SpeechSettings.Builder speech = SpeechSettings.newBuilder()
+                    .setTransportChannelProvider(FixedTransportChannelProvider.create(
+                            GrpcTransportChannel.create(managedChannel)));
+            if (settings.plaintext()) {
+                speech.setCredentialsProvider(NoCredentialsProvider.create());
+            }
+            return new Channel(index, managedChannel, SpeechClient.create(speech.build()), new AtomicInteger());
+        } catch (IOException | RuntimeException e) {
+            managedChannel.shutdownNow();
+            throw e;
+        }
+    }
+
+    private static void closeChannel(Channel channel) {
+        channel.client().close();
+        channel.managedChannel().shutdown();
+    }
+
+    private static NettyChannelBuilder configure(NettyChannelBuilder builder, Settings settings,
+                                                 ExecutorService executor) {
+        builder.keepAliveTime(settings.keepAliveTime().toMillis(), TimeUnit.MILLISECONDS);
+        builder.keepAliveTimeout(settings.keepAliveTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        builder.keepAliveWithoutCalls(settings.keepAliveWithoutCalls());
+        builder.maxInboundMessageSize(settings.maxInboundMessageSize());
+        builder.flowControlWindow(settings.flowControlWindow());
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        if (settings.plaintext()) {
+            builder.usePlaintext();
+        }
+        return builder;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "speech-grpc-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,288 +1,371 @@
 package com.app.service;
 
+import com.app.cluster.ClusterMembership;
+import com.app.cluster.EventBus;
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptEvent;
 import com.app.model.TranscriptionResult;
-import com.google.api.gax.rpc.ClientStream;
-import com.google.api.gax.rpc.ResponseObserver;
-import com.google.api.gax.rpc.StreamController;
-import com.google.cloud.speech.v1.*;
-import com.google.protobuf.ByteString;
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
+import com.app.search.TranscriptIndex;
+import com.app.store.TranscriptRecord;
+import com.app.store.TranscriptStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Mono;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
 public class SpeechTranscriptionService {
 
-    private SpeechClient speechClient;
-    private volatile ClientStream<StreamingRecognizeRequest> requestStream;
-    private final AtomicBoolean isStreaming = new AtomicBoolean(false);
-    
-    // Track audio duration to prevent premature closure
-    private volatile long streamStartTime = 0;
-    private volatile long totalAudioBytes = 0;
-    private static final int SAMPLE_RATE = 16000;
-    private static final int BYTES_PER_SAMPLE = 2; // 16-bit PCM
-    private static final long MIN_AUDIO_DURATION_MS = 400; // Minimum 400ms before allowing silence closure
-
-    private AiService aiService;
-    private final Sinks.Many<TranscriptionResult> transcriptSink =
-            Sinks.many().multicast().onBackpressureBuffer();
-
-    // Debug file output
-    private java.io.FileOutputStream debugFos;
-    
-    // Setter for dependency injection (circular dep avoidance if needed, or just autowire)
-    // But better to use constructor injection if possible. 
-    // Since we are using @Service usually Spring handles it. 
-    // However, for this existing class structure, I will add it via setter or field injection if required.
-    // Actually, I'll update the constructor/field via the tool.
-    
-    public SpeechTranscriptionService(AiService aiService) {
+    // Gives up on a locally owned resume token after this many draws; the token then still works on this node
+    private static final int MAX_TOKEN_ATTEMPTS = 256;
+
+    private final AiService aiService;
+    private final TranscriptionEngineRouter router;
+    private final TranscriptStore store;
+    private final TranscriptIndex index;
+    private final EventBus eventBus;
+    private final ClusterMembership membership;
+    private final Map<String, TranscriptionSession> sessions = new ConcurrentHashMap<>();
+    private final DistributionSummary snapshotBytes;
+    private final DistributionSummary deltaBytes;
+    private final Map<TranscriptionSession.Endpointing, Timer> finalLatency =
+            new EnumMap<>(TranscriptionSession.Endpointing.class);
+    private final Counter aiCallsSaved;
+    private final Counter aiCallsSuperseded;
+    private final Map<String, TranscriptionSession> resumeTokens = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final Counter resumed;
+    private final Counter resumeExpired;
+    private final Counter duplicateFrames;
+
+    // "client" closes utterances on the client's silence message, "server" on the engine's voice activity events
+    @Value("${stt.endpointing.mode:client}")
+    private String defaultEndpointing;
+
+    // Server endpointing: silence after the end of speech before the utterance is closed
+    @Value("${stt.endpointing.trailing-silence-ms:300}")
+    private long trailingSilenceMs;
+
+    // Resumable sessions: how long a session waits for its client to reconnect, and what it keeps meanwhile
+    @Value("${stt.resume.grace-period-ms:30000}")
+    private long resumeGracePeriodMs;
+
+    @Value("${stt.resume.audio-buffer-bytes:320000}")
+    private int resumeAudioBufferBytes;
+
+    // Recent deltas kept per session for subscribers that reconnect with Last-Event-ID
+    @Value("${stt.resume.replay-deltas:256}")
+    private int replayDeltas;
+
+    // Finals arriving within this gap are sent to the AI as one turn; 0 sends each final on its own
+    @Value("${ai.turn.quiet-period-ms:800}")
+    private long turnQuietPeriodMs;
+
+    public SpeechTranscriptionService(AiService aiService, TranscriptionEngineRouter router, TranscriptStore store,
+                                      TranscriptIndex index, EventBus eventBus, ClusterMembership membership,
+                                      MeterRegistry meterRegistry) {
         this.aiService = aiService;
+        this.router = router;
+        this.store = store;
+        this.index = index;
+        this.eventBus = eventBus;
+        this.membership = membership;
+        eventBus.setSnapshotSource(this::localSnapshots);
+        this.snapshotBytes = utteranceBytes(meterRegistry, "snapshot");
+        this.deltaBytes = utteranceBytes(meterRegistry, "delta");
+        this.aiCallsSaved = Counter.builder("ai.turn.calls.saved")
+                .description("Final results merged into another AI request instead of getting their own")
+                .register(meterRegistry);
+        this.aiCallsSuperseded = Counter.builder("ai.turn.calls.superseded")
+                .description("In-flight AI requests cancelled because the user kept talking")
+                .register(meterRegistry);
+        this.resumed = Counter.builder("stt.resume.resumed")
+                .description("Reconnects that got their session back")
+                .register(meterRegistry);
+        this.resumeExpired = Counter.builder("stt.resume.expired")
+                .description("Resumable sessions closed because the client did not return within the grace period")
+                .register(meterRegistry);
+        this.duplicateFrames = Counter.builder("stt.resume.frames.duplicate")
+                .description("Audio frames resent after a reconnect that the session already had")
+                .register(meterRegistry);
+        for (TranscriptionSession.Endpointing mode : TranscriptionSession.Endpointing.values()) {
+            finalLatency.put(mode, Timer.builder("stt.endpointing.final.latency")
+                    .description("Time from the end of speech to the final result")
+                    .tag("mode", mode.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
     }
 
-    @PostConstruct
-    public void init() {
-        try {
-            speechClient = SpeechClient.create();
-            log.info("SpeechClient created successfully");
-        } catch (Exception e) {
-            log.error("Failed to create SpeechClient", e);
-        }
+    private static DistributionSummary utteranceBytes(MeterRegistry meterRegistry, String mode) {
+        return DistributionSummary.builder("transcript.utterance.bytes")
+                .description("Transcript text bytes sent per utterance")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .register(meterRegistry);
     }
 
-    public synchronized void startStream() {
-        if (isStreaming.get()) {
-            return; 
-        }
+    public TranscriptionSession openSession(String sessionId, String profile) {
+        return openSession(sessionId, profile, null);
+    }
 
-        log.info("Initializing Google STT stream");
-        streamStartTime = System.currentTimeMillis();
-        totalAudioBytes = 0;
-        
-        try {
-             debugFos = new java.io.FileOutputStream("debug_audio.pcm", true); // Append mode
-        } catch (Exception e) {
-            log.error("Failed to open debug file", e);
-        }
+    /**
+     * Opens the streaming state for one client; the engine is chosen here and kept for the whole session.
+     *
+     * @param profile     recognition profile requested at handshake, or null for the default
+     * @param endpointing "client" or "server" as requested at handshake, or null for the configured default
+     */
+    public TranscriptionSession openSession(String sessionId, String profile, String endpointing) {
+        return openSession(sessionId, profile, endpointing, false);
+    }
 
-        ResponseObserver<StreamingRecognizeResponse> responseObserver =
-                new ResponseObserver<>() {
+    /**
+     * @param resumable keep the session for the grace period after its connection drops, see {@link #resume}
+     */
+    public TranscriptionSession openSession(String sessionId, String profile, String endpointing, boolean resumable) {
+        TranscriptionEngineRouter.Route route = router.select();
+        String profileName = profile != null ? profile : RecognitionProfileRegistry.DEFAULT_PROFILE;
+        TranscriptionSession.Endpointing mode = endpointingMode(endpointing != null ? endpointing : defaultEndpointing);
+        if (mode == TranscriptionSession.Endpointing.SERVER && !route.primary().supportsSpeechEvents()) {
+            log.warn("Engine {} reports no speech events, session {} falls back to client endpointing",
+                    route.primary().name(), sessionId);
+            mode = TranscriptionSession.Endpointing.CLIENT;
+        }
+        log.info("Session {} routed to transcription engine {} with profile {}", sessionId, route.describe(), profileName);
+        TranscriptState transcript = new TranscriptState(sessionId, snapshotBytes, deltaBytes, replayDeltas);
+        TranscriptionSession.EndpointingSettings endpointingSettings = new TranscriptionSession.EndpointingSettings(
+                mode, Duration.ofMillis(trailingSilenceMs), finalLatency.get(mode));
+        TurnAssembler.Settings turnSettings = new TurnAssembler.Settings(
+                Duration.ofMillis(turnQuietPeriodMs), aiCallsSaved, aiCallsSuperseded);
+        TranscriptionSession.Resumption resumption = resumable
+                ? new TranscriptionSession.Resumption(newResumeToken(), Duration.ofMillis(resumeGracePeriodMs),
+                        resumeAudioBufferBytes, resumed, duplicateFrames, resumeExpired)
+                : null;
+        TranscriptionSession session = new TranscriptionSession(sessionId, router, route, profileName,
+                endpointingSettings, turnSettings, resumption, transcript,
+                new TranscriptionSession.Listener() {
                     @Override
-                    public void onStart(StreamController controller) {
-                        log.info("Google STT stream connected");
+                    public void onResult(TranscriptionSession session, TranscriptionResult result, TranscriptDelta delta) {
+                        SpeechTranscriptionService.this.onResult(session, result, delta);
                     }
 
                     @Override
-                    public void onResponse(StreamingRecognizeResponse response) {
-                        for (StreamingRecognitionResult result : response.getResultsList()) {
-                             // Log every result to see if we get *anything*
-                             log.info("Received raw STT result: {}", result);
-                            if (result.getAlternativesCount() > 0) {
-                                String text = result.getAlternatives(0).getTranscript();
-                                boolean isFinal = result.getIsFinal();
-                                
-                                if (!text.isBlank()) {
-                                    log.info("Transcript: {} (isFinal: {})", text, isFinal);
-                                    transcriptSink.tryEmitNext(new TranscriptionResult(text, isFinal, "user"));
-                                    
-                                    if (isFinal) {
-                                        // Generate AI response for every completed sentence
-                                        log.info("Triggering AI for: '{}'", text);
-                                        aiService.generateResponse(text)
-                                            .subscribe(
-                                                aiResponse -> {
-                                                    log.info("AI Response generated: {}", aiResponse);
-                                                    transcriptSink.tryEmitNext(new TranscriptionResult(aiResponse, true, "ai"));
-                                                },
-                                                error -> log.error("Failed to generate AI response", error)
-                                            );
-                                    }
-                                }
-                            } else {
-                                log.warn("Received STT result with NO alternatives (noise/silence?)");
-                            }
-                        }
+                    public Mono<String> respond(TranscriptionSession session, String prompt) {
+                        return aiService.generateResponse(prompt);
                     }
 
                     @Override
-                    public void onError(Throwable t) {
-                        log.error("STT Stream Error: {}", t.getMessage());
-                        isStreaming.set(false);
-                        requestStream = null;
+                    public void onAiReply(TranscriptionSession session, String reply) {
+                        SpeechTranscriptionService.this.onAiReply(session, reply);
                     }
 
                     @Override
-                    public void onComplete() {
-                        log.info("STT stream completed");
-                        isStreaming.set(false);
-                        requestStream = null;
-                        try { if(debugFos!=null) debugFos.close(); } catch(Exception e){}
+                    public void onClosed(TranscriptionSession session) {
+                        sessions.remove(session.id(), session);
+                        if (session.isResumable()) {
+                            resumeTokens.remove(session.resumeToken(), session);
+                        }
+                        log.info("Session {} closed; {} AI calls saved by merging finals",
+                                session.id(), session.turns().callsSaved());
                     }
-                };
-
-        try {
-            if (speechClient == null || speechClient.isShutdown()) {
-                speechClient = SpeechClient.create();
-            }
-            
-            requestStream = speechClient.streamingRecognizeCallable().splitCall(responseObserver);
-
-            // Product names and brand terms - Maximum boost
-            SpeechContext productContext = SpeechContext.newBuilder()
-                    .addAllPhrases(java.util.List.of(
-                        "Gemini", "PrepXL", "ChatGPT", "OpenAI", "Google",
-                        "Claude", "Anthropic", "Llama", "Meta",
-                        "Google Gemini", "Gemini AI"
-                    ))
-                    .setBoost(20.0f) // Maximum boost for proper nouns
-                    .build();
-
-            // Technical terms - Strong boost
-            SpeechContext techContext = SpeechContext.newBuilder()
-                    .addAllPhrases(java.util.List.of(
-                        "API", "REST", "GraphQL", "WebSocket", "HTTP", "HTTPS",
-                        "Java", "Spring Boot", "React", "JavaScript", "Python",
-                        "Docker", "Kubernetes", "AWS", "Azure", "GCP",
-                        "microservice", "backend", "frontend", "full stack",
-                        "Computer Science", "Information Technology"
-                    ))
-                    .setBoost(15.0f) // Strong boost for technical terms
-                    .build();
-
-            // Common phrases and commands - Moderate boost
-            SpeechContext commandContext = SpeechContext.newBuilder()
-                    .addAllPhrases(java.util.List.of(
-                        "tell me", "tell me a joke", "what is", "how do I", "can you",
-                        "show me", "explain", "help me", "could you", "please",
-                        "my name is", "I am", "hello", "hi there"
-                    ))
-                    .setBoost(12.0f)
-                    .build();
-
-            // Educational and institutional terms
-            SpeechContext eduContext = SpeechContext.newBuilder()
-                    .addAllPhrases(java.util.List.of(
-                        "Centurion University", "Centurion University of Technology and Management",
-                        "mock interview", "resume", "ATS", "cover letter",
-                        "system design", "data structures", "algorithms",
-                        "behavioral question", "technical round", "coding interview"
-                    ))
-                    .setBoost(10.0f)
-                    .build();
-
-            RecognitionConfig recognitionConfig = RecognitionConfig.newBuilder()
-                    .setEncoding(RecognitionConfig.AudioEncoding.LINEAR16)
-                    .setSampleRateHertz(16000)  // ✅ FIXED: 16kHz for optimal accuracy (was 48kHz)
-                    .setLanguageCode("en-IN")   // ✅ FIXED: Indian English (was en-US)
-                    .setModel("latest_long")    // Best for continuous speech
-                    .setUseEnhanced(true)       // ✅ ADDED: Enhanced model for 10-15% accuracy boost
-                    .setEnableAutomaticPunctuation(true)  // ✅ FIXED: Enable punctuation (was false)
-                    .setMaxAlternatives(1)      // Only best result
-                    .setAudioChannelCount(1)    // Mono channel
-                    .addSpeechContexts(productContext)
-                    .addSpeechContexts(techContext)
-                    .addSpeechContexts(commandContext)
-                    .addSpeechContexts(eduContext)
-                    .build();
-
-            StreamingRecognitionConfig streamingConfig = StreamingRecognitionConfig.newBuilder()
-                    .setConfig(recognitionConfig)
-                    .setInterimResults(true)
-                    .build();
-
-            requestStream.send(StreamingRecognizeRequest.newBuilder()
-                    .setStreamingConfig(streamingConfig)
-                    .build());
-
-            isStreaming.set(true);
-            log.info("Google STT stream initialized and config sent");
-            
-        } catch (Exception e) {
-            log.error("Failed to initialize STT stream", e);
-            isStreaming.set(false);
-            requestStream = null;
+                });
+        sessions.put(sessionId, session);
+        if (resumable) {
+            resumeTokens.put(session.resumeToken(), session);
         }
+        return session;
     }
 
-    public synchronized void stopStream() {
-        if (!isStreaming.get() || requestStream == null) {
-            return;
-        }
+    /**
+     * The open resumable session issued {@code resumeToken}, for a client that reconnects to it; it counts as
+     * resumed once {@link TranscriptionSession#attach} succeeds.
+     */
+    public Optional<TranscriptionSession> resume(String resumeToken) {
+        return Optional.ofNullable(resumeTokens.get(resumeToken));
+    }
+
+    /**
+     * A token this node owns on the cluster ring, so a client reconnecting through another node can be sent
+     * here; with N nodes about N tries are needed.
+     */
+    private String newResumeToken() {
+        byte[] bytes = new byte[16];
+        String token;
+        int attempts = 0;
+        do {
+            random.nextBytes(bytes);
+            token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        } while (!membership.isLocal(token) && ++attempts < MAX_TOKEN_ATTEMPTS);
+        return token;
+    }
+
+    private static TranscriptionSession.Endpointing endpointingMode(String name) {
         try {
-            requestStream.closeSend();
-            log.info("Google STT stream closeSend called");
-        } catch (Exception e) {
-            log.error("Error closing STT stream", e);
-        } finally {
-            isStreaming.set(false);
-            requestStream = null;
-            try { if(debugFos!=null) debugFos.close(); } catch(Exception e){}
+            return TranscriptionSession.Endpointing.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown endpointing mode '{}', using client endpointing", name);
+            return TranscriptionSession.Endpointing.CLIENT;
         }
     }
 
-    public void sendAudio(byte[] pcmData) {
-        log.info("Received audio chunk: {} bytes", pcmData.length);
-        
-        try { if(debugFos!=null) debugFos.write(pcmData); } catch(Exception e){}
-
-        if (!isStreaming.get() || requestStream == null) {
-            log.warn("Stream not active, attempting to restart...");
-            /* startStream(); */ // Don't block here, assume async start
-             // Actually, if we just call startStream(), it'll sync start.
-             startStream();
-            if (!isStreaming.get() || requestStream == null) {
-                log.error("Failed to restart stream, dropping audio chunk");
-                return;
-            }
+    private void onResult(TranscriptionSession session, TranscriptionResult result, TranscriptDelta delta) {
+        eventBus.publish(new TranscriptEvent(session.id(), result, delta));
+        // Interims that did not change the text are not worth persisting
+        if (delta != null || result.isFinal()) {
+            record(new TranscriptRecord(session.id(), System.currentTimeMillis(), result.sender(),
+                    result.isFinal(), result.text()));
         }
 
-        try {
-            requestStream.send(StreamingRecognizeRequest.newBuilder()
-                    .setAudioContent(ByteString.copyFrom(pcmData))
-                    .build());
-            totalAudioBytes += pcmData.length;
-        } catch (Exception e) {
-            log.error("Error sending audio chunk", e);
-            isStreaming.set(false);
+        if (result.isFinal()) {
+            // Finals are merged into turns; the assembler asks for a reply once the user has finished
+            session.turns().onFinal(result.text());
         }
     }
 
-    public Flux<TranscriptionResult> transcriptionFlux() {
-        return transcriptSink.asFlux();
+    private void onAiReply(TranscriptionSession session, String aiResponse) {
+        log.info("AI Response generated: {}", aiResponse);
+        eventBus.publish(new TranscriptEvent(session.id(), new TranscriptionResult(aiResponse, true, "ai"),
+                session.transcript().aiReply(aiResponse)));
+        record(new TranscriptRecord(session.id(), System.currentTimeMillis(), "ai", true, aiResponse));
     }
 
-    public boolean isStreamInitialized() {
-        return isStreaming.get();
+    private void record(TranscriptRecord record) {
+        store.append(record);
+        index.add(record);
     }
-    
+
+    public Collection<TranscriptionSession> sessions() {
+        return sessions.values();
+    }
+
+    public Optional<TranscriptionSession> session(String sessionId) {
+        return Optional.ofNullable(sessions.get(sessionId));
+    }
+
+    public Flux<TranscriptionResult> transcriptionFlux() {
+        return eventBus.results();
+    }
+
     /**
-     * Check if enough audio has been received to safely close the stream.
-     * Prevents premature closure on short utterances like single words.
+     * Backlog across all sessions: audio frames waiting for upstream plus transcript events waiting for SSE subscribers.
      */
-    public boolean hasMinimumAudio() {
-        if (!isStreaming.get()) {
-            return true; // If not streaming, allow closure
+    public long queuedFrames() {
+        long queued = 0;
+        for (TranscriptionSession session : sessions.values()) {
+            queued += session.queuedAudioFrames();
         }
-        
-        long durationMs = System.currentTimeMillis() - streamStartTime;
-        long audioMs = (totalAudioBytes * 1000L) / (SAMPLE_RATE * BYTES_PER_SAMPLE);
-        
-        boolean hasEnough = durationMs >= MIN_AUDIO_DURATION_MS || audioMs >= MIN_AUDIO_DURATION_MS;
-        
-        if (!hasEnough) {
-            log.debug("Insufficient audio: {}ms duration, {}ms audio - ignoring silence", durationMs, audioMs);
+        return queued + eventBus.queued();
+    }
+
+    /**
+     * Incremental transcript updates: a snapshot of every open session first, then live deltas.
+     * A subscriber that sees a seq gap for a session should resubscribe to get a fresh snapshot.
+     */
+    public Flux<TranscriptDelta> deltaFlux() {
+        return deltaFlux(null);
+    }
+
+    /**
+     * Snapshots of the open sessions, then live deltas.
+     *
+     * @param lastEventId id of the last delta the subscriber got before reconnecting ({@code sessionId:seq}, from the
+     *                    SSE Last-Event-ID header), or null; that session's missed deltas are replayed instead of its
+     *                    snapshot while they are still kept
+     */
+    public Flux<TranscriptDelta> deltaFlux(String lastEventId) {
+        return deltaFlux(null, lastEventId);
+    }
+
+    /**
+     * Like {@link #deltaFlux(String)}, across all nodes of a cluster: sessions running elsewhere start with a
+     * snapshot fetched from their node, then their deltas arrive over the {@link EventBus}.
+     *
+     * @param sessionId only this session, or null for every session
+     */
+    public Flux<TranscriptDelta> deltaFlux(String sessionId, String lastEventId) {
+        return Flux.defer(() -> {
+            // Subscribe to live deltas before taking snapshots so nothing falls between the two
+            AtomicReference<Disposable> connection = new AtomicReference<>();
+            Flux<TranscriptDelta> live = eventBus.deltas(sessionId).replay(256).autoConnect(0, connection::set);
+            int separator = lastEventId != null ? lastEventId.lastIndexOf(':') : -1;
+            String lastSession = separator > 0 ? lastEventId.substring(0, separator) : null;
+            long lastSeq = separator > 0 ? parseSeq(lastEventId.substring(separator + 1)) : -1;
+
+            List<TranscriptDelta> initial = new ArrayList<>();
+            Map<String, Long> sentSeq = new HashMap<>();
+            for (TranscriptionSession session : sessions.values()) {
+                if (sessionId != null && !sessionId.equals(session.id())) {
+                    continue;
+                }
+                List<TranscriptDelta> missed = session.id().equals(lastSession) && lastSeq >= 0
+                        ? session.transcript().deltasAfter(lastSeq)
+                        : null;
+                if (missed != null) {
+                    initial.addAll(missed);
+                    sentSeq.put(session.id(), missed.isEmpty() ? lastSeq : missed.get(missed.size() - 1).seq());
+                } else {
+                    TranscriptDelta snapshot = session.transcript().snapshot();
+                    initial.add(snapshot);
+                    sentSeq.put(session.id(), snapshot.seq());
+                }
+            }
+            return eventBus.remoteSnapshots(sessionId)
+                    .collectList()
+                    .flatMapMany(remote -> {
+                        for (TranscriptDelta snapshot : remote) {
+                            if (sentSeq.putIfAbsent(snapshot.sessionId(), snapshot.seq()) == null) {
+                                initial.add(snapshot);
+                            }
+                        }
+                        return Flux.fromIterable(initial)
+                                .concatWith(live.filter(delta ->
+                                        delta.seq() > sentSeq.getOrDefault(delta.sessionId(), 0L)));
+                    })
+                    .doFinally(signal -> {
+                        Disposable upstream = connection.get();
+                        if (upstream != null) {
+                            upstream.dispose();
+                        }
+                    });
+        });
+    }
+
+    /** Snapshots of the sessions running on this node, for delta subscribers on other nodes. */
+    private List<TranscriptDelta> localSnapshots(String sessionId) {
+        return sessions.values().stream()
+                .filter(session -> sessionId == null || sessionId.equals(session.id()))
+                .map(session -> session.transcript().snapshot())
+                .toList();
+    }
+
+    private static long parseSeq(String seq) {
+        try {
+            return Long.parseLong(seq);
+        } catch (NumberFormatException e) {
+            return -1;
         }
-        
-        return hasEnough;
     }
-    
+
     /**
      * Intelligent filtering to determine if AI should be triggered.
      * Prevents unnecessary API calls on fillers, introductions, and meaningless phrases.
@@ -382,12 +465,4 @@ public class SpeechTranscriptionService {
         // Passed all filters
         return true;
     }
-
-    @PreDestroy
-    public void cleanup() {
-        stopStream();
-        if (speechClient != null) {
-            speechClient.close();
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.app.service;
+
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptionResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Per-session transcript model that turns full engine hypotheses into suffix deltas.
+ * <p>
+ * Only the part of a hypothesis that differs from the previous one is emitted. Interim results that change
+ * nothing are dropped. A final result closes the utterance and the next result starts a new one at offset 0.
+ * Text bytes are counted per utterance for both full-snapshot and delta encodings so the saving is measurable.
+ * The most recent deltas are kept so a subscriber that reconnects can be sent exactly the ones it missed.
+ */
+@Slf4j
+public class TranscriptState {
+
+    private final String sessionId;
+    private final DistributionSummary snapshotBytesSummary;
+    private final DistributionSummary deltaBytesSummary;
+    private final int historySize;
+    private final ArrayDeque<TranscriptDelta> history = new ArrayDeque<>();
+
+    private long seq;
+    private int utterance;
+    private String hypothesis = "";
+    private int stableLength;
+
+    // Text bytes for the current utterance, as full snapshots would send them and as deltas do
+    private long snapshotBytes;
+    private long deltaBytes;
+
+    public TranscriptState(String sessionId, DistributionSummary snapshotBytesSummary,
+                           DistributionSummary deltaBytesSummary, int historySize) {
+        this.sessionId = sessionId;
+        this.snapshotBytesSummary = snapshotBytesSummary;
+        this.deltaBytesSummary = deltaBytesSummary;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Folds an engine result into the model; returns the delta to publish, or null if nothing changed.
+     */
+    public synchronized TranscriptDelta apply(TranscriptionResult result) {
+        String next = result.text();
+        int offset = commonPrefixLength(hypothesis, next);
+        if (!result.isFinal() && offset == next.length() && next.length() == hypothesis.length()
+                && result.stableLength() == stableLength) {
+            return null;
+        }
+
+        String suffix = next.substring(offset);
+        snapshotBytes += utf8Length(next);
+        deltaBytes += utf8Length(suffix);
+        TranscriptDelta delta = remember(new TranscriptDelta(sessionId, ++seq, utterance, "user", offset, suffix,
+                result.stableLength(), result.isFinal(), false, result.words()));
+
+        if (result.isFinal()) {
+            snapshotBytesSummary.record(snapshotBytes);
+            deltaBytesSummary.record(deltaBytes);
+            log.debug("Session {} utterance {}: {} text bytes as snapshots, {} as deltas",
+                    sessionId, utterance, snapshotBytes, deltaBytes);
+            utterance++;
+            hypothesis = "";
+            stableLength = 0;
+            snapshotBytes = 0;
+            deltaBytes = 0;
+        } else {
+            hypothesis = next;
+            stableLength = result.stableLength();
+        }
+        return delta;
+    }
+
+    public synchronized TranscriptDelta aiReply(String text) {
+        return remember(new TranscriptDelta(sessionId, ++seq, Math.max(0, utterance - 1), "ai", 0, text,
+                text.length(), true, false, List.of()));
+    }
+
+    /**
+     * Full in-progress hypothesis, for subscribers that (re)connect; carries the current seq without advancing it.
+     */
+    public synchronized TranscriptDelta snapshot() {
+        return new TranscriptDelta(sessionId, seq, utterance, "user", 0, hypothesis, stableLength,
+                false, true, List.of());
+    }
+
+    /**
+     * Deltas with a seq above {@code seq}, oldest first; null if some of them are no longer kept.
+     */
+    public synchronized List<TranscriptDelta> deltasAfter(long seq) {
+        if (seq == this.seq) {
+            return List.of();
+        }
+        if (seq > this.seq) {
+            return null; // not a seq of this session
+        }
+        TranscriptDelta oldest = history.peekFirst();
+        if (oldest == null || oldest.seq() > seq + 1) {
+            return null;
+        }
+        return history.stream().filter(delta -> delta.seq() > seq).toList();
+    }
+
+    private TranscriptDelta remember(TranscriptDelta delta) {
+        if (historySize > 0) {
+            if (history.size() == historySize) {
+                history.removeFirst();
+            }
+            history.addLast(delta);
+        }
+        return delta;
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        // Don't split a surrogate pair
+        if (i > 0 && i < max && Character.isHighSurrogate(a.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int utf8Length(String text) {
+        return text.isEmpty() ? 0 : text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,55 @@
+package com.app.service;
+
+import com.app.model.SpeechEvent;
+import com.app.model.TranscriptionResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Consumer;
+
+/**
+ * A speech-to-text backend that turns a stream of 16kHz 16-bit mono PCM frames into transcription results.
+ * <p>
+ * Subscribing opens one upstream recognition stream. Completing the audio Flux half-closes it and the
+ * returned Flux completes once the upstream has delivered its remaining results; cancelling aborts it.
+ */
+public interface TranscriptionEngine {
+
+    /** Short, stable identifier used in configuration, routing and metrics (e.g. "google"). */
+    String name();
+
+    /**
+     * @param profile recognition profile name; engines without profile support ignore it
+     */
+    Flux<TranscriptionResult> transcribe(Flux<byte[]> audio, String profile);
+
+    default Flux<TranscriptionResult> transcribe(Flux<byte[]> audio) {
+        return transcribe(audio, RecognitionProfileRegistry.DEFAULT_PROFILE);
+    }
+
+    /**
+     * Like {@link #transcribe(Flux, String)}, additionally reporting voice activity to {@code speechEvents}
+     * for server-side endpointing. Engines without voice activity support ignore the listener.
+     */
+    default Flux<TranscriptionResult> transcribe(Flux<byte[]> audio, String profile, Consumer<SpeechEvent> speechEvents) {
+        return transcribe(audio, profile);
+    }
+
+    /** Whether {@link #transcribe(Flux, String, Consumer)} reports speech events. */
+    default boolean supportsSpeechEvents() {
+        return false;
+    }
+
+    /**
+     * Creates the upstream client and opens its connections ahead of the first stream, off the caller's thread;
+     * completes once {@link #isReady()} holds. Only called for enabled engines, so disabled ones never dial out.
+     */
+    default Mono<Void> warmUp() {
+        return Mono.empty();
+    }
+
+    /** Whether a stream can be opened without first creating or connecting the upstream client. */
+    default boolean isReady() {
+        return true;
+    }
+}
@@ -0,0 +1,292 @@
+package com.app.service;
+
+import com.app.model.SpeechEvent;
+import com.app.model.TranscriptionResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Picks a {@link TranscriptionEngine} per session from rolling first-result latency and error rates.
+ * <p>
+ * With hedging enabled, a second engine is started on the same audio if the first has not produced a
+ * result within the deadline (or has already failed); whichever yields a result first wins and the other
+ * is cancelled.
+ * <p>
+ * Enabled engines are warmed up in parallel in the background at startup; engines that are not enabled are
+ * never touched, so their clients are not created. Until an engine is ready it is only picked if no ready
+ * engine exists.
+ */
+@Slf4j
+@Component
+public class TranscriptionEngineRouter {
+
+    /** Engines chosen for one session; {@code hedge} is null when hedging is off or only one engine is enabled. */
+    public record Route(TranscriptionEngine primary, TranscriptionEngine hedge) {
+        public String describe() {
+            return hedge == null ? primary.name() : primary.name() + "+" + hedge.name();
+        }
+    }
+
+    private final List<TranscriptionEngine> availableEngines;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, EngineStats> stats = new LinkedHashMap<>();
+    private Disposable warmUp;
+
+    // Preference order; engines not listed here are never routed to
+    @Value("${transcription.engines:google}")
+    private List<String> enabledEngines;
+
+    @Value("${transcription.router.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    // Score = latency EWMA + error-rate EWMA * penalty, so a flaky engine loses to a slower healthy one
+    @Value("${transcription.router.error-penalty-ms:5000}")
+    private long errorPenaltyMs;
+
+    // Assumed latency for engines without samples yet
+    @Value("${transcription.router.initial-latency-ms:800}")
+    private long initialLatencyMs;
+
+    @Value("${transcription.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${transcription.hedge.deadline-ms:1500}")
+    private long hedgeDeadlineMs;
+
+    // Frames kept for a late-starting hedge engine; should cover the deadline at the client's frame rate
+    @Value("${transcription.hedge.replay-frames:128}")
+    private int hedgeReplayFrames;
+
+    // Warm-up of an engine that fails is retried with backoff up to this interval
+    @Value("${transcription.warmup.max-backoff-ms:30000}")
+    private long warmUpMaxBackoffMs;
+
+    public TranscriptionEngineRouter(List<TranscriptionEngine> availableEngines, MeterRegistry meterRegistry) {
+        this.availableEngines = availableEngines;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String name : enabledEngines) {
+            availableEngines.stream()
+                    .filter(engine -> engine.name().equals(name.trim()))
+                    .findFirst()
+                    .ifPresentOrElse(engine -> stats.put(engine.name(), registerStats(engine)),
+                            () -> log.warn("Transcription engine '{}' is enabled but not available", name));
+        }
+        if (stats.isEmpty()) {
+            throw new IllegalStateException("No transcription engine enabled, check transcription.engines");
+        }
+        log.info("Transcription engines enabled: {} (hedging {})", stats.keySet(), hedgeEnabled ? "on" : "off");
+        warmUp = Flux.fromIterable(enabledEngines())
+                .flatMap(this::warmUp)
+                .subscribe();
+    }
+
+    private Mono<Void> warmUp(TranscriptionEngine engine) {
+        Timer timer = Timer.builder("transcription.engine.warmup")
+                .description("Time from startup until the engine's upstream client is ready")
+                .tag("engine", engine.name())
+                .register(meterRegistry);
+        long start = System.nanoTime();
+        return engine.warmUp()
+                .doOnError(e -> log.warn("Warm-up of transcription engine '{}' failed: {}", engine.name(), e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(500))
+                        .maxBackoff(Duration.ofMillis(warmUpMaxBackoffMs)))
+                .doOnSuccess(v -> {
+                    long nanos = System.nanoTime() - start;
+                    timer.record(nanos, TimeUnit.NANOSECONDS);
+                    log.info("Transcription engine '{}' ready after {} ms", engine.name(), nanos / 1_000_000);
+                });
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (warmUp != null) {
+            warmUp.dispose();
+        }
+    }
+
+    /** Enabled engines in configured preference order. */
+    public List<TranscriptionEngine> enabledEngines() {
+        return stats.values().stream().map(engineStats -> engineStats.engine).toList();
+    }
+
+    public Route select() {
+        List<EngineStats> ranked = new ArrayList<>(stats.values());
+        // Stable sort keeps the configured preference order between equal scores
+        ranked.sort(Comparator.comparing((EngineStats engineStats) -> !engineStats.engine.isReady())
+                .thenComparingDouble(EngineStats::score));
+        TranscriptionEngine primary = ranked.get(0).engine;
+        TranscriptionEngine hedge = hedgeEnabled && ranked.size() > 1 ? ranked.get(1).engine : null;
+        return new Route(primary, hedge);
+    }
+
+    public Flux<TranscriptionResult> transcribe(Route route, String profile, Flux<byte[]> audio) {
+        return transcribe(route, profile, audio, null);
+    }
+
+    /**
+     * @param speechEvents voice activity listener for server-side endpointing, or null
+     */
+    public Flux<TranscriptionResult> transcribe(Route route, String profile, Flux<byte[]> audio,
+                                               Consumer<SpeechEvent> speechEvents) {
+        if (route.hedge() == null) {
+            return instrument(route.primary(), profile, audio, speechEvents);
+        }
+        return Flux.defer(() -> {
+            Flux<byte[]> shared = audio.replay(hedgeReplayFrames).autoConnect(1);
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            AtomicReference<Throwable> hedgeError = new AtomicReference<>();
+            // Emits once the primary has ended without a result: true if it failed, false if it just completed
+            Sinks.One<Boolean> primaryEnded = Sinks.one();
+            Flux<TranscriptionResult> primary = holdBackEarlyError(
+                    instrument(route.primary(), profile, shared, speechEvents), primaryError)
+                    .doOnComplete(() -> primaryEnded.tryEmitValue(primaryError.get() != null));
+            // The hedge starts at the deadline while the primary is still running without a result, or as soon as
+            // the primary fails; a primary that completed normally (silence) leaves nothing to hedge
+            Flux<TranscriptionResult> hedge = Mono.firstWithSignal(
+                            Mono.delay(Duration.ofMillis(hedgeDeadlineMs)).thenReturn(true),
+                            primaryEnded.asMono())
+                    .filter(start -> start)
+                    .flatMapMany(start -> {
+                        log.info("Hedging transcription with '{}' after no result from '{}'",
+                                route.hedge().name(), route.primary().name());
+                        return holdBackEarlyError(instrument(route.hedge(), profile, shared, speechEvents), hedgeError);
+                    });
+            return Flux.firstWithValue(primary, hedge)
+                    .onErrorResume(NoSuchElementException.class, e -> {
+                        // Neither engine produced a result: that is silent audio, unless both engines failed
+                        Throwable failure = primaryError.get();
+                        if (failure != null && hedgeError.get() != null) {
+                            failure.addSuppressed(hedgeError.get());
+                            return Flux.error(failure);
+                        }
+                        return Flux.empty();
+                    });
+        });
+    }
+
+    /**
+     * Turns an engine's failure before its first result into an empty completion, recorded in {@code error}, so
+     * the other engine of a hedged route can still answer. Failures after a result are passed on.
+     */
+    private static Flux<TranscriptionResult> holdBackEarlyError(Flux<TranscriptionResult> results,
+                                                               AtomicReference<Throwable> error) {
+        return Flux.defer(() -> {
+            AtomicBoolean produced = new AtomicBoolean();
+            return results
+                    .doOnNext(result -> produced.set(true))
+                    .onErrorResume(e -> {
+                        if (produced.get()) {
+                            return Flux.error(e);
+                        }
+                        error.set(e);
+                        return Flux.empty();
+                    });
+        });
+    }
+
+    private Flux<TranscriptionResult> instrument(TranscriptionEngine engine, String profile, Flux<byte[]> audio,
+                                                 Consumer<SpeechEvent> speechEvents) {
+        EngineStats engineStats = stats.get(engine.name());
+        return Flux.defer(() -> {
+            AtomicLong firstAudioAt = new AtomicLong();
+            AtomicBoolean firstResult = new AtomicBoolean();
+            engineStats.streams.incrementAndGet();
+            Flux<byte[]> timedAudio = audio.doOnNext(bytes -> firstAudioAt.compareAndSet(0, System.nanoTime()));
+            Flux<TranscriptionResult> results = speechEvents != null
+                    ? engine.transcribe(timedAudio, profile, speechEvents)
+                    : engine.transcribe(timedAudio, profile);
+            return results
+                    .doOnNext(result -> {
+                        long startedAt = firstAudioAt.get();
+                        if (startedAt != 0 && firstResult.compareAndSet(false, true)) {
+                            engineStats.recordLatency(System.nanoTime() - startedAt);
+                        }
+                    })
+                    .doOnError(e -> engineStats.recordOutcome(true))
+                    .doOnComplete(() -> engineStats.recordOutcome(false));
+        });
+    }
+
+    private EngineStats registerStats(TranscriptionEngine engine) {
+        EngineStats engineStats = new EngineStats(engine, Timer.builder("transcription.engine.first.result")
+                .description("Time from first audio frame to first result")
+                .tag("engine", engine.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        Gauge.builder("transcription.engine.latency.ewma", engineStats, EngineStats::latencyMs)
+                .tag("engine", engine.name())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("transcription.engine.error.rate", engineStats, EngineStats::errorRate)
+                .tag("engine", engine.name())
+                .register(meterRegistry);
+        FunctionCounter.builder("transcription.engine.streams", engineStats, s -> s.streams.get())
+                .tag("engine", engine.name())
+                .register(meterRegistry);
+        return engineStats;
+    }
+
+    private class EngineStats {
+        private final TranscriptionEngine engine;
+        private final Timer firstResultTimer;
+        private final AtomicLong streams = new AtomicLong();
+        private double latencyEwmaMs = -1;
+        private double errorRateEwma;
+
+        EngineStats(TranscriptionEngine engine, Timer firstResultTimer) {
+            this.engine = engine;
+            this.firstResultTimer = firstResultTimer;
+        }
+
+        synchronized void recordLatency(long nanos) {
+            firstResultTimer.record(nanos, TimeUnit.NANOSECONDS);
+            double ms = nanos / 1_000_000.0;
+            latencyEwmaMs = latencyEwmaMs < 0 ? ms : latencyEwmaMs + ewmaAlpha * (ms - latencyEwmaMs);
+        }
+
+        synchronized void recordOutcome(boolean failed) {
+            errorRateEwma += ewmaAlpha * ((failed ? 1.0 : 0.0) - errorRateEwma);
+        }
+
+        synchronized double latencyMs() {
+            return latencyEwmaMs < 0 ? initialLatencyMs : latencyEwmaMs;
+        }
+
+        synchronized double errorRate() {
+            return errorRateEwma;
+        }
+
+        synchronized double score() {
+            return latencyMs() + errorRateEwma * errorPenaltyMs;
+        }
+    }
+}
@@ -0,0 +1,570 @@
+package com.app.service;
+
+import com.app.model.SessionInfo;
+import com.app.model.SpeechEvent;
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptionResult;
+import com.app.model.WordTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Scannable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Streaming state of one WebSocket client: the engine route picked for it and the current utterance stream.
+ * <p>
+ * Each {@link #startStream()} opens a new upstream stream through the router; {@link #stopStream()} half-closes
+ * it, so final results still arrive after the client goes quiet. Results are also folded into the session's
+ * {@link TranscriptState}, which yields the deltas published to incremental subscribers.
+ * <p>
+ * Utterances end either on the client's "silence" message ({@link Endpointing#CLIENT}) or on the engine's voice
+ * activity events ({@link Endpointing#SERVER}): the stream is half-closed once speech has ended and the trailing
+ * silence has passed without new speech, or right away on an end-of-utterance event.
+ * <p>
+ * A resumable session outlives its connection: when the socket drops it is {@linkplain #detach detached} and
+ * kept, stream included, for a grace period in which a reconnecting client can {@linkplain #attach attach} to
+ * it again and resend only the audio frames after {@link #nextFrameSeq()}.
+ */
+@Slf4j
+public class TranscriptionSession {
+
+    /**
+     * Receives each engine result together with the delta it produced (null when the result changed nothing),
+     * and answers the session's assembled user turns.
+     */
+    interface Listener {
+        void onResult(TranscriptionSession session, TranscriptionResult result, TranscriptDelta delta);
+
+        Mono<String> respond(TranscriptionSession session, String prompt);
+
+        void onAiReply(TranscriptionSession session, String reply);
+
+        void onClosed(TranscriptionSession session);
+    }
+
+    public enum Endpointing { CLIENT, SERVER }
+
+    /**
+     * @param finalLatency records time from the end of speech to the next final result, for this mode
+     */
+    record EndpointingSettings(Endpointing mode, Duration trailingSilence, Timer finalLatency) {
+    }
+
+    /**
+     * Lets a client reconnect to the session within the grace period after its connection drops.
+     *
+     * @param audioBufferBytes recent audio of the current stream, replayed into the next stream if this one fails
+     */
+    record Resumption(String token, Duration gracePeriod, int audioBufferBytes, Counter resumed,
+                      Counter duplicateFrames, Counter expired) {
+    }
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int BYTES_PER_SAMPLE = 2; // 16-bit PCM
+    private static final long MIN_AUDIO_DURATION_MS = 400; // Minimum 400ms before allowing silence closure
+
+    private final String id;
+    private final TranscriptionEngineRouter router;
+    private final TranscriptionEngineRouter.Route route;
+    private final String profile;
+    private final EndpointingSettings endpointing;
+    private final TranscriptState transcript;
+    private final TurnAssembler turns;
+    private final Listener listener;
+    // Null for sessions that end with their connection
+    private final Resumption resumption;
+    private final AudioRingBuffer streamAudio;
+    private final AtomicLong nextFrameSeq = new AtomicLong();
+    // Serializes numbered frames: a stale connection and the one replacing it may deliver at the same time
+    private final Object frameLock = new Object();
+
+    // Audio of the utterance currently being streamed; null while no stream is open
+    private volatile Sinks.Many<byte[]> audioSink;
+
+    // Track audio duration to prevent premature closure
+    private volatile long streamStartTime = 0;
+    private volatile long totalAudioBytes = 0;
+
+    // Introspection counters; written on the hot path without locking, read by the sessions endpoint
+    private final long openedAt = System.currentTimeMillis();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong lastInterimAt = new AtomicLong();
+    private final AtomicLong lastFinalAt = new AtomicLong();
+    private final AtomicInteger aiCallsInFlight = new AtomicInteger();
+
+    // Closes the client connection; set by the transport so the session can be closed from outside
+    private volatile Runnable forceCloseHook;
+
+    // Connection binding; guarded by this
+    private long attachment;
+    private boolean attached;
+    private boolean closed;
+    private Disposable expiry;
+    // Admission slot of this session, released when it closes so a detached session still counts against the cap
+    private SessionAdmissionService.Permit permit;
+    // Set when a stream fails, so the next stream starts with the buffered audio
+    private boolean replayOnRestart;
+
+    // nanoTime at which speech was last seen ending, until the final result for it arrives; 0 if none pending
+    private final AtomicLong speechEndedAt = new AtomicLong();
+    // Server endpointing: half-closes the stream once the trailing silence has passed
+    private volatile Disposable pendingEndpoint;
+
+    TranscriptionSession(String id, TranscriptionEngineRouter router, TranscriptionEngineRouter.Route route,
+                         String profile, EndpointingSettings endpointing, TurnAssembler.Settings turnSettings,
+                         Resumption resumption, TranscriptState transcript, Listener listener) {
+        this.id = id;
+        this.router = router;
+        this.route = route;
+        this.profile = profile;
+        this.endpointing = endpointing;
+        this.transcript = transcript;
+        this.listener = listener;
+        this.resumption = resumption;
+        this.streamAudio = resumption != null ? new AudioRingBuffer(resumption.audioBufferBytes()) : null;
+        this.turns = new TurnAssembler(id, turnSettings, this::respond, reply -> listener.onAiReply(this, reply));
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String engine() {
+        return route.describe();
+    }
+
+    public String profile() {
+        return profile;
+    }
+
+    public Endpointing endpointing() {
+        return endpointing.mode();
+    }
+
+    public TranscriptState transcript() {
+        return transcript;
+    }
+
+    public TurnAssembler turns() {
+        return turns;
+    }
+
+    public boolean isResumable() {
+        return resumption != null;
+    }
+
+    /** Token a reconnecting client presents to get this session back; null if not resumable. */
+    public String resumeToken() {
+        return resumption != null ? resumption.token() : null;
+    }
+
+    /** Sequence number of the next audio frame the session expects. */
+    public long nextFrameSeq() {
+        return nextFrameSeq.get();
+    }
+
+    public synchronized void startStream() {
+        if (audioSink != null) {
+            return;
+        }
+
+        log.info("Initializing {} stream for session {} (profile {}, {} endpointing)",
+                route.describe(), id, profile, endpointing.mode());
+        streamStartTime = System.currentTimeMillis();
+        totalAudioBytes = 0;
+
+        List<byte[]> replay = List.of();
+        if (streamAudio != null) {
+            if (replayOnRestart) {
+                // Only audio after the last final is kept, so the new stream does not transcribe it again
+                replay = streamAudio.snapshot();
+                streamAudio.restartOffsets();
+            } else {
+                streamAudio.clear();
+            }
+            replayOnRestart = false;
+        }
+
+        Sinks.Many<byte[]> sink = Sinks.many().unicast().onBackpressureBuffer();
+        audioSink = sink;
+        if (!replay.isEmpty()) {
+            log.info("Replaying {} buffered audio chunks into the new stream for session {}", replay.size(), id);
+            replay.forEach(sink::tryEmitNext);
+            totalAudioBytes += replay.stream().mapToLong(chunk -> chunk.length).sum();
+        }
+        Consumer<SpeechEvent> speechEvents = endpointing.mode() == Endpointing.SERVER
+                ? event -> onSpeechEvent(sink, event)
+                : null;
+        router.transcribe(route, profile, sink.asFlux(), speechEvents)
+                .subscribe(
+                        result -> {
+                            log.info("Transcript: {} (isFinal: {})", result.text(), result.isFinal());
+                            (result.isFinal() ? lastFinalAt : lastInterimAt).set(System.currentTimeMillis());
+                            if (result.isFinal()) {
+                                recordFinalLatency();
+                                if (streamAudio != null) {
+                                    streamAudio.discardBefore(finalEndOffset(result));
+                                }
+                            }
+                            listener.onResult(this, result, transcript.apply(result));
+                        },
+                        error -> {
+                            log.error("STT Stream Error for session {}: {}", id, error.getMessage());
+                            streamFailed(sink);
+                        },
+                        () -> {
+                            log.info("STT stream completed for session {}", id);
+                            streamEnded(sink);
+                        });
+    }
+
+    /**
+     * Stream offset (bytes) up to which a final result covers the audio: the end of its last word, or all audio
+     * sent so far when the engine gives no word timings.
+     */
+    private static long finalEndOffset(TranscriptionResult result) {
+        List<WordTiming> words = result.words();
+        if (words == null || words.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long samples = words.get(words.size() - 1).endMs() * SAMPLE_RATE / 1000;
+        return samples * BYTES_PER_SAMPLE;
+    }
+
+    public synchronized void stopStream() {
+        cancelPendingEndpoint();
+        Sinks.Many<byte[]> sink = audioSink;
+        if (sink == null) {
+            return;
+        }
+        audioSink = null;
+        sink.tryEmitComplete();
+    }
+
+    /**
+     * Client-side end of speech. Half-closes the stream if enough audio was received; ignored with server endpointing.
+     *
+     * @return whether the stream was closed
+     */
+    public synchronized boolean onClientSilence() {
+        if (endpointing.mode() == Endpointing.SERVER || !isStreamInitialized() || !hasMinimumAudio()) {
+            return false;
+        }
+        speechEndedAt.set(System.nanoTime());
+        stopStream();
+        return true;
+    }
+
+    private void onSpeechEvent(Sinks.Many<byte[]> sink, SpeechEvent event) {
+        log.debug("Speech event {} at {}ms for session {}", event.type(), event.audioOffsetMs(), id);
+        switch (event.type()) {
+            case SPEECH_BEGIN -> {
+                cancelPendingEndpoint();
+                speechEndedAt.set(0);
+            }
+            case SPEECH_END -> {
+                speechEndedAt.set(System.nanoTime());
+                cancelPendingEndpoint();
+                pendingEndpoint = Mono.delay(endpointing.trailingSilence())
+                        .subscribe(tick -> endUtterance(sink, "trailing silence"));
+            }
+            case END_OF_UTTERANCE -> {
+                speechEndedAt.compareAndSet(0, System.nanoTime());
+                endUtterance(sink, "end of utterance");
+            }
+        }
+    }
+
+    private synchronized void endUtterance(Sinks.Many<byte[]> sink, String reason) {
+        if (audioSink == sink) {
+            log.info("Closing STT stream for session {} on {}", id, reason);
+            stopStream();
+        }
+    }
+
+    private void cancelPendingEndpoint() {
+        Disposable pending = pendingEndpoint;
+        if (pending != null) {
+            pending.dispose();
+            pendingEndpoint = null;
+        }
+    }
+
+    private void recordFinalLatency() {
+        long endedAt = speechEndedAt.getAndSet(0);
+        if (endedAt != 0) {
+            endpointing.finalLatency().record(System.nanoTime() - endedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Audio of a resumable session, numbered by the client. Frames the session already has (resent after a
+     * reconnect) are dropped; the caller delivers frames of one connection in order. Each frame is accepted once
+     * even while an old and a new connection both deliver.
+     */
+    public void sendAudio(long seq, byte[] pcmData) {
+        synchronized (frameLock) {
+            long expected = nextFrameSeq.get();
+            if (seq < expected) {
+                resumption.duplicateFrames().increment();
+                return;
+            }
+            if (seq > expected) {
+                log.warn("Session {}: audio frames {}..{} never arrived", id, expected, seq - 1);
+            }
+            nextFrameSeq.set(seq + 1);
+            sendAudio(pcmData);
+        }
+    }
+
+    public void sendAudio(byte[] pcmData) {
+        log.debug("Received audio chunk: {} bytes", pcmData.length);
+        bytesReceived.addAndGet(pcmData.length);
+        framesReceived.incrementAndGet();
+
+        Sinks.Many<byte[]> sink = audioSink;
+        if (sink == null) {
+            log.warn("Stream not active, attempting to restart...");
+            startStream();
+            sink = audioSink;
+            if (sink == null) {
+                log.error("Failed to restart stream, dropping audio chunk");
+                return;
+            }
+        }
+
+        Sinks.EmitResult emitResult = sink.tryEmitNext(pcmData);
+        if (emitResult.isFailure()) {
+            log.error("Error sending audio chunk: {}", emitResult);
+            abandonStream(sink);
+            return;
+        }
+        totalAudioBytes += pcmData.length;
+        if (streamAudio != null) {
+            streamAudio.add(pcmData);
+        }
+    }
+
+    /** Audio frames accepted from the client but not yet taken by the upstream stream. */
+    public int queuedAudioFrames() {
+        Sinks.Many<byte[]> sink = audioSink;
+        Integer buffered = sink != null ? Scannable.from(sink).scan(Scannable.Attr.BUFFERED) : null;
+        return buffered != null ? buffered : 0;
+    }
+
+    public boolean isStreamInitialized() {
+        return audioSink != null;
+    }
+
+    /**
+     * Check if enough audio has been received to safely close the stream.
+     * Prevents premature closure on short utterances like single words.
+     */
+    public boolean hasMinimumAudio() {
+        if (!isStreamInitialized()) {
+            return true; // If not streaming, allow closure
+        }
+
+        long durationMs = System.currentTimeMillis() - streamStartTime;
+        long audioMs = (totalAudioBytes * 1000L) / (SAMPLE_RATE * BYTES_PER_SAMPLE);
+
+        boolean hasEnough = durationMs >= MIN_AUDIO_DURATION_MS || audioMs >= MIN_AUDIO_DURATION_MS;
+
+        if (!hasEnough) {
+            log.debug("Insufficient audio: {}ms duration, {}ms audio - ignoring silence", durationMs, audioMs);
+        }
+
+        return hasEnough;
+    }
+
+    public void close() {
+        SessionAdmissionService.Permit held;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            attached = false;
+            forceCloseHook = null;
+            cancelExpiry();
+            held = permit;
+            permit = null;
+        }
+        if (held != null) {
+            held.release();
+        }
+        stopStream();
+        turns.close();
+        listener.onClosed(this);
+    }
+
+    /**
+     * Keeps an admission permit until the session closes, including any time it spends detached. A session holds
+     * one permit; another (that of a connection resuming it) is released right away, as is one handed to a
+     * session that is already closed.
+     */
+    public void holdPermit(SessionAdmissionService.Permit permit) {
+        boolean kept;
+        synchronized (this) {
+            kept = !closed && this.permit == null;
+            if (kept) {
+                this.permit = permit;
+            }
+        }
+        if (!kept) {
+            permit.release();
+        }
+    }
+
+    /**
+     * Binds the session to a client connection. A connection still bound to it (a stale socket the client has
+     * already replaced) is closed.
+     *
+     * @param forceCloseHook closes the new connection
+     * @return the attachment to pass to {@link #detach}, or -1 if the session is already closed
+     */
+    public long attach(Runnable forceCloseHook) {
+        Runnable stale;
+        long current;
+        synchronized (this) {
+            if (closed) {
+                return -1;
+            }
+            cancelExpiry();
+            stale = attached ? this.forceCloseHook : null;
+            this.forceCloseHook = forceCloseHook;
+            attached = true;
+            current = ++attachment;
+        }
+        if (current > 1 && resumption != null) {
+            resumption.resumed().increment();
+        }
+        if (stale != null) {
+            log.info("Session {} taken over by a new connection, closing the previous one", id);
+            stale.run();
+        }
+        return current;
+    }
+
+    /**
+     * The connection of {@code attachment} has ended. A resumable session stays open for the grace period, with
+     * its stream; any other session closes. Ignored if a newer connection has attached since.
+     */
+    public void detach(long attachment) {
+        synchronized (this) {
+            if (closed || !attached || attachment != this.attachment) {
+                return;
+            }
+            attached = false;
+            forceCloseHook = null;
+            if (resumption != null) {
+                log.info("Session {} detached, resumable for {}", id, resumption.gracePeriod());
+                expiry = Mono.delay(resumption.gracePeriod()).subscribe(tick -> expire(attachment));
+                return;
+            }
+        }
+        close();
+    }
+
+    public synchronized boolean isAttached() {
+        return attached;
+    }
+
+    /**
+     * Closes the client connection, if any, and the session; a resumable session is not kept for resumption.
+     */
+    public void forceClose() {
+        Runnable hook = forceCloseHook;
+        if (hook != null) {
+            hook.run();
+        }
+        close();
+    }
+
+    private void expire(long attachment) {
+        synchronized (this) {
+            if (closed || attached || attachment != this.attachment) {
+                return;
+            }
+            expiry = null;
+        }
+        log.info("Session {} was not resumed within {}, closing", id, resumption.gracePeriod());
+        resumption.expired().increment();
+        close();
+    }
+
+    private void cancelExpiry() {
+        if (expiry != null) {
+            expiry.dispose();
+            expiry = null;
+        }
+    }
+
+    private Mono<String> respond(String prompt) {
+        return Mono.defer(() -> {
+            aiCallsInFlight.incrementAndGet();
+            return listener.respond(this, prompt)
+                    .doFinally(signal -> aiCallsInFlight.decrementAndGet());
+        });
+    }
+
+    public SessionInfo info() {
+        long streamStart = streamStartTime;
+        boolean streaming = audioSink != null;
+        return new SessionInfo(id, route.describe(), profile, endpointing.mode().name(),
+                Instant.ofEpochMilli(openedAt),
+                streaming,
+                streaming ? System.currentTimeMillis() - streamStart : null,
+                bytesReceived.get(),
+                framesReceived.get(),
+                queuedAudioFrames(),
+                timestamp(lastInterimAt),
+                timestamp(lastFinalAt),
+                aiCallsInFlight.get(),
+                turns.callsSaved(),
+                resumption != null,
+                isAttached());
+    }
+
+    private static Instant timestamp(AtomicLong epochMillis) {
+        long value = epochMillis.get();
+        return value == 0 ? null : Instant.ofEpochMilli(value);
+    }
+
+    private synchronized void streamFailed(Sinks.Many<byte[]> sink) {
+        if (audioSink == sink && streamAudio != null) {
+            replayOnRestart = true;
+        }
+        streamEnded(sink);
+    }
+
+    /**
+     * Gives up on a stream whose sink rejected audio. The sink is completed, so the upstream stream is half-closed
+     * instead of being left open, and the next frame starts a new stream.
+     */
+    private synchronized void abandonStream(Sinks.Many<byte[]> sink) {
+        if (audioSink == sink) {
+            stopStream();
+        } else {
+            sink.tryEmitComplete();
+        }
+    }
+
+    private synchronized void streamEnded(Sinks.Many<byte[]> sink) {
+        if (audioSink == sink) {
+            audioSink = null;
+        }
+    }
+}
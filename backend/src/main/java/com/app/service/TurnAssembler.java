@@ -0,0 +1,155 @@
+package com.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Per-session assembly of final results into user turns, so one spoken question gets one AI reply.
+ * <p>
+ * The engine often splits a question into several finals a few hundred milliseconds apart. Finals are
+ * buffered until no new one has arrived for the quiet period, or until one ends with a question mark, and are
+ * then sent as a single prompt. If the user keeps talking while that prompt is still being answered, the call
+ * is cancelled and its text is folded into the next prompt, so the reply covers the whole turn.
+ */
+@Slf4j
+public class TurnAssembler {
+
+    public record Settings(Duration quietPeriod, Counter callsSaved, Counter callsSuperseded) {
+    }
+
+    private final String sessionId;
+    private final Settings settings;
+    private final Function<String, Mono<String>> responder;
+    private final Consumer<String> onReply;
+
+    // Guarded by this
+    private final List<String> pending = new ArrayList<>();
+    private int pendingFinals;
+    private Disposable quietTimer;
+    private long quietToken;
+    private Disposable inFlight;
+    private String inFlightPrompt;
+    private long callIds;
+    private long currentCall;
+    private long finals;
+    private long calls;
+
+    public TurnAssembler(String sessionId, Settings settings, Function<String, Mono<String>> responder,
+                         Consumer<String> onReply) {
+        this.sessionId = sessionId;
+        this.settings = settings;
+        this.responder = responder;
+        this.onReply = onReply;
+    }
+
+    public synchronized void onFinal(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        finals++;
+        pendingFinals++;
+        if (currentCall != 0) {
+            // Cancelling runs callEnded on this thread, so take what is needed first
+            Disposable call = inFlight;
+            pending.add(inFlightPrompt);
+            log.debug("Session {}: cancelled the AI call for '{}', the turn continues", sessionId, inFlightPrompt);
+            clearCall();
+            call.dispose();
+            settings.callsSuperseded().increment();
+        }
+        pending.add(trimmed);
+        cancelQuietTimer();
+        if (trimmed.endsWith("?") || settings.quietPeriod().isZero()) {
+            flush();
+        } else {
+            long token = quietToken;
+            quietTimer = Mono.delay(settings.quietPeriod()).subscribe(tick -> onQuiet(token));
+        }
+    }
+
+    /**
+     * Sends whatever is still buffered; an in-flight call is left to finish.
+     */
+    public synchronized void close() {
+        cancelQuietTimer();
+        flush();
+    }
+
+    /** Final results received minus AI calls made for them. */
+    public synchronized long callsSaved() {
+        return finals - calls;
+    }
+
+    private synchronized void onQuiet(long token) {
+        // A final that arrived meanwhile has rescheduled the timer or flushed already
+        if (token == quietToken) {
+            quietTimer = null;
+            flush();
+        }
+    }
+
+    private void cancelQuietTimer() {
+        quietToken++;
+        if (quietTimer != null) {
+            quietTimer.dispose();
+            quietTimer = null;
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        String prompt = String.join(" ", pending);
+        pending.clear();
+        settings.callsSaved().increment(pendingFinals - 1);
+        pendingFinals = 0;
+        calls++;
+
+        long call = ++callIds;
+        currentCall = call;
+        inFlightPrompt = prompt;
+        log.info("Triggering AI for: '{}'", prompt);
+        Disposable subscription = responder.apply(prompt)
+                .doFinally(signal -> callEnded(call))
+                .subscribe(
+                        reply -> deliver(call, reply),
+                        error -> log.error("Failed to generate AI response", error));
+        // The call may already have ended if the responder completed synchronously
+        if (currentCall == call) {
+            inFlight = subscription;
+        }
+    }
+
+    private void deliver(long call, String reply) {
+        synchronized (this) {
+            if (call != currentCall) {
+                return; // superseded while the reply was on its way
+            }
+            // Once the reply is out there is nothing left to supersede
+            clearCall();
+        }
+        onReply.accept(reply);
+    }
+
+    private synchronized void callEnded(long call) {
+        if (call == currentCall) {
+            clearCall();
+        }
+    }
+
+    private void clearCall() {
+        currentCall = 0;
+        inFlight = null;
+        inFlightPrompt = null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Readiness of the enabled transcription engines, reported as "upstreams" and included in the readiness group.
+ * OUT_OF_SERVICE until at least one engine has finished warming up, so traffic is only routed to an instance
+ * that can open a stream without first creating its upstream client.
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamsHealthIndicator implements HealthIndicator {
+
+    private final TranscriptionEngineRouter router;
+
+    @Override
+    public Health health() {
+        Map<String, Object> engines = new LinkedHashMap<>();
+        boolean anyReady = false;
+        for (TranscriptionEngine engine : router.enabledEngines()) {
+            boolean ready = engine.isReady();
+            anyReady |= ready;
+            engines.put(engine.name(), ready ? "READY" : "WARMING_UP");
+        }
+        return (anyReady ? Health.up() : Health.outOfService()).withDetails(engines).build();
+    }
+}
@@ -0,0 +1,389 @@
+package com.app.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * One segment of the transcript log: an append-only record file plus a memory-mapped index.
+ * <p>
+ * Log records are {@code [int length][int crc32][payload]}. Each index entry is 32 bytes:
+ * {@code [long sessionHash][long timestampMs][long logPosition][int previousSlot][int flags]}, where
+ * {@code previousSlot} points at the previous entry of the same session in this segment (-1 for none). Reading a
+ * session walks that chain from its newest entry and seeks straight to each record, so the cost is proportional
+ * to the session's records, not to the segment. A zero timestamp marks the end of the index.
+ * <p>
+ * Appends come from a single writer thread; reads may run concurrently from any thread.
+ */
+class LogSegment implements Closeable {
+
+    static final int ENTRY_BYTES = 32;
+    private static final int HEADER_BYTES = 8;
+    private static final int FLAG_FINAL = 1;
+    private static final int FLAG_AI = 2;
+
+    private final long id;
+    private final Path logPath;
+    private final Path indexPath;
+    private final FileChannel log;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final int capacity;
+
+    // Newest index slot per session hash; guarded by this
+    private final Map<Long, Integer> lastSlot = new HashMap<>();
+    private volatile int entries;
+    private volatile long size;
+    private volatile long minTimestamp = Long.MAX_VALUE;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+    private volatile int interimCount;
+
+    private LogSegment(long id, Path logPath, Path indexPath, int capacity) throws IOException {
+        this.id = id;
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+        this.capacity = capacity;
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * ENTRY_BYTES);
+    }
+
+    /**
+     * @param recover rebuild the index from the log and cut off a torn tail; needed for the segment that was
+     *                active when the process stopped, since its index may lag or lead the log. Without it, an
+     *                index that does not end exactly at the end of the log fails with an {@link IOException}.
+     */
+    static LogSegment open(long id, Path logPath, Path indexPath, int capacity, boolean recover) throws IOException {
+        // An existing index keeps its size, so lowering the configured capacity never cuts off indexed records
+        if (Files.exists(indexPath)) {
+            capacity = (int) Math.max(capacity, Files.size(indexPath) / ENTRY_BYTES);
+        }
+        LogSegment segment = new LogSegment(id, logPath, indexPath, capacity);
+        try {
+            if (recover) {
+                segment.recover();
+            } else {
+                segment.loadIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    long id() {
+        return id;
+    }
+
+    long size() {
+        return size;
+    }
+
+    int entries() {
+        return entries;
+    }
+
+    int remainingEntries() {
+        return capacity - entries;
+    }
+
+    long minTimestamp() {
+        return minTimestamp;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    int interimCount() {
+        return interimCount;
+    }
+
+    Path logPath() {
+        return logPath;
+    }
+
+    Path indexPath() {
+        return indexPath;
+    }
+
+    /**
+     * Writes the records with one channel write and indexes them; at most {@link #remainingEntries()} records.
+     *
+     * @return bytes written
+     */
+    int append(List<TranscriptRecord> records) throws IOException {
+        if (records.size() > remainingEntries()) {
+            throw new IllegalArgumentException("Segment " + id + " index is full");
+        }
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        int total = 0;
+        for (TranscriptRecord record : records) {
+            byte[] payload = encode(record);
+            payloads.add(payload);
+            total += HEADER_BYTES + payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (byte[] payload : payloads) {
+            buffer.putInt(payload.length).putInt(crc(payload)).put(payload);
+        }
+        buffer.flip();
+        long start = size;
+        long position = start;
+        while (buffer.hasRemaining()) {
+            position += log.write(buffer, position);
+        }
+        // Before indexing, so a concurrent reader that finds a new entry also sees its record within bounds
+        size = position;
+
+        long recordPosition = start;
+        for (int i = 0; i < records.size(); i++) {
+            index(records.get(i), recordPosition);
+            recordPosition += HEADER_BYTES + payloads.get(i).length;
+        }
+        return total;
+    }
+
+    /**
+     * Records of one session with {@code from <= timestamp <= to}, oldest first.
+     */
+    List<TranscriptRecord> read(String sessionId, long from, long to) throws IOException {
+        long hash = hash(sessionId);
+        int slot;
+        synchronized (this) {
+            slot = lastSlot.getOrDefault(hash, -1);
+        }
+        List<TranscriptRecord> records = new ArrayList<>();
+        while (slot >= 0) {
+            int base = slot * ENTRY_BYTES;
+            long timestamp = index.getLong(base + 8);
+            if (timestamp < from) {
+                break; // the chain is in append order, so everything further back is older
+            }
+            if (timestamp <= to && index.getLong(base) == hash) {
+                TranscriptRecord record = readAt(index.getLong(base + 16));
+                if (record.sessionId().equals(sessionId)) {
+                    records.add(record);
+                }
+            }
+            slot = index.getInt(base + 24);
+        }
+        Collections.reverse(records);
+        return records;
+    }
+
+    /**
+     * Every record in append order; used by compaction.
+     */
+    List<TranscriptRecord> readAll() throws IOException {
+        int count = entries;
+        List<TranscriptRecord> records = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            records.add(readAt(index.getLong(slot * ENTRY_BYTES + 16)));
+        }
+        return records;
+    }
+
+    void flush(boolean metadata) throws IOException {
+        log.force(metadata);
+        index.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            log.close();
+        } finally {
+            indexChannel.close();
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(logPath);
+        Files.deleteIfExists(indexPath);
+    }
+
+    private void index(TranscriptRecord record, long position) {
+        long hash = hash(record.sessionId());
+        int slot = entries;
+        int base = slot * ENTRY_BYTES;
+        int previous;
+        synchronized (this) {
+            previous = lastSlot.getOrDefault(hash, -1);
+        }
+        int flags = (record.isFinal() ? FLAG_FINAL : 0) | (record.isAi() ? FLAG_AI : 0);
+        index.putLong(base, hash)
+                .putLong(base + 8, Math.max(1, record.timestampMs()))
+                .putLong(base + 16, position)
+                .putInt(base + 24, previous)
+                .putInt(base + 28, flags);
+        if (slot + 1 < capacity) {
+            index.putLong(base + ENTRY_BYTES + 8, 0); // end marker
+        }
+        synchronized (this) {
+            lastSlot.put(hash, slot);
+        }
+        track(record.timestampMs(), flags);
+        entries = slot + 1;
+    }
+
+    private void track(long timestamp, int flags) {
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        if ((flags & FLAG_FINAL) == 0) {
+            interimCount++;
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        int slot = 0;
+        long lastPosition = -1;
+        while (slot < capacity) {
+            int base = slot * ENTRY_BYTES;
+            long timestamp = index.getLong(base + 8);
+            if (timestamp == 0) {
+                break;
+            }
+            synchronized (this) {
+                lastSlot.put(index.getLong(base), slot);
+            }
+            track(timestamp, index.getInt(base + 28));
+            lastPosition = index.getLong(base + 16);
+            slot++;
+        }
+        entries = slot;
+        // The index stores record starts; the log ends after the last record
+        long fileSize = log.size();
+        size = lastPosition < 0 ? 0 : lastPosition + HEADER_BYTES + checkedLength(lastPosition, fileSize);
+        if (size != fileSize) {
+            throw new IOException("Index of " + logPath + " ends at " + size + " but the log has " + fileSize + " bytes");
+        }
+    }
+
+    private void recover() throws IOException {
+        long fileSize = log.size();
+        long position = 0;
+        List<TranscriptRecord> records = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        while (position + HEADER_BYTES <= fileSize && records.size() < capacity) {
+            ByteBuffer header = readFully(position, HEADER_BYTES);
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length <= 0 || position + HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            byte[] payload = readFully(position + HEADER_BYTES, length).array();
+            if (crc(payload) != crc) {
+                break;
+            }
+            records.add(decode(payload));
+            positions.add(position);
+            position += HEADER_BYTES + length;
+        }
+        if (position < fileSize && records.size() == capacity) {
+            throw new IOException("Segment " + logPath + " holds more records than its index capacity " + capacity);
+        }
+        if (position < fileSize) {
+            log.truncate(position);
+        }
+        for (int i = 0; i < records.size(); i++) {
+            index(records.get(i), positions.get(i));
+        }
+        if (records.isEmpty()) {
+            index.putLong(8, 0);
+        }
+        size = position;
+    }
+
+    private int checkedLength(long position, long end) throws IOException {
+        if (position < 0 || position + HEADER_BYTES > end) {
+            throw new IOException("Record position " + position + " is outside " + logPath);
+        }
+        int length = readFully(position, 4).getInt();
+        if (length <= 0 || position + HEADER_BYTES + length > end) {
+            throw new IOException("Corrupt record length " + length + " at " + position + " in " + logPath);
+        }
+        return length;
+    }
+
+    /** Fails with an {@link IOException} rather than decoding a record that does not match its checksum. */
+    private TranscriptRecord readAt(long position) throws IOException {
+        int length = checkedLength(position, size);
+        int crc = readFully(position + 4, 4).getInt();
+        byte[] payload = readFully(position + HEADER_BYTES, length).array();
+        if (crc(payload) != crc) {
+            throw new IOException("Checksum mismatch at " + position + " in " + logPath);
+        }
+        return decode(payload);
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment " + logPath);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] encode(TranscriptRecord record) {
+        byte[] session = record.sessionId().getBytes(StandardCharsets.UTF_8);
+        byte[] text = record.text().getBytes(StandardCharsets.UTF_8);
+        byte[] sender = record.sender().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 2 + session.length + 1 + sender.length + 1 + 4 + text.length);
+        buffer.putLong(record.timestampMs())
+                .putShort((short) session.length).put(session)
+                .put((byte) sender.length).put(sender)
+                .put((byte) (record.isFinal() ? 1 : 0))
+                .putInt(text.length).put(text);
+        return buffer.array();
+    }
+
+    private static TranscriptRecord decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long timestamp = buffer.getLong();
+        String session = string(buffer, buffer.getShort() & 0xFFFF);
+        String sender = string(buffer, buffer.get() & 0xFF);
+        boolean isFinal = buffer.get() != 0;
+        String text = string(buffer, buffer.getInt());
+        return new TranscriptRecord(session, timestamp, sender, isFinal, text);
+    }
+
+    private static String string(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /** 64-bit FNV-1a of the session id. */
+    static long hash(String sessionId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : sessionId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
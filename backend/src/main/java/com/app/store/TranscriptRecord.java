@@ -0,0 +1,11 @@
+package com.app.store;
+
+/**
+ * One persisted transcript event: a user transcript (interim or final) or an AI reply.
+ */
+public record TranscriptRecord(String sessionId, long timestampMs, String sender, boolean isFinal, String text) {
+
+    public boolean isAi() {
+        return "ai".equals(sender);
+    }
+}
@@ -0,0 +1,419 @@
+package com.app.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Embedded, append-only store of transcript events, so session history survives the transient sinks.
+ * <p>
+ * {@link #append} only enqueues; a single background writer drains the queue in batches (up to
+ * {@code stt.store.batch-size} records or {@code stt.store.batch-delay-ms}) and writes each batch with one
+ * channel write. The log is split into {@link LogSegment}s that roll over by size or index capacity. Closed
+ * segments are compacted in the background: segments past the retention period are deleted, and interim
+ * results are dropped from the rest, since only finals and AI replies are worth keeping for review.
+ * A compacted segment is written next to the original and then swapped in behind a marker file, so a crash
+ * part-way through the swap is completed on the next start; a segment whose index still disagrees with its log
+ * is rebuilt from the log.
+ * If the store directory cannot be opened the store disables itself and the app runs without history.
+ */
+@Slf4j
+@Service
+public class TranscriptStore {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})\\.log");
+    private static final Pattern COMPACTED_MARKER = Pattern.compile("segment-(\\d{10})\\.compacted");
+    private static final String COMPACTING = ".compacting";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${stt.store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stt.store.dir:data/transcripts}")
+    private Path dir;
+
+    @Value("${stt.store.segment-max-bytes:67108864}")
+    private long segmentMaxBytes;
+
+    // Index entries per segment; each takes 32 bytes of the segment's mapped index file
+    @Value("${stt.store.segment-max-entries:262144}")
+    private int segmentMaxEntries;
+
+    @Value("${stt.store.batch-size:256}")
+    private int batchSize;
+
+    @Value("${stt.store.batch-delay-ms:50}")
+    private long batchDelayMs;
+
+    @Value("${stt.store.queue-capacity:65536}")
+    private int queueCapacity;
+
+    // fsync after each batch; off by default, the OS flushes the page cache on its own
+    @Value("${stt.store.fsync:false}")
+    private boolean fsync;
+
+    @Value("${stt.store.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${stt.store.compaction-interval-minutes:10}")
+    private long compactionIntervalMinutes;
+
+    private final List<LogSegment> segments = new CopyOnWriteArrayList<>();
+    // Compaction swaps and deletes segment files; reads hold the read lock so files stay open underneath them
+    private final ReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    private volatile LogSegment active;
+    private volatile boolean available;
+
+    private Sinks.Many<TranscriptRecord> queue;
+    private Scheduler writerScheduler;
+    private Disposable compaction;
+
+    private Counter appended;
+    private Counter dropped;
+    private Counter bytesWritten;
+    private Timer batchTimer;
+
+    public TranscriptStore(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Transcript store disabled");
+            return;
+        }
+        try {
+            openSegments();
+        } catch (IOException e) {
+            log.error("Failed to open transcript store in {}, running without history", dir, e);
+            return;
+        }
+        registerMetrics();
+
+        queue = Sinks.many().unicast().onBackpressureBuffer(Queues.<TranscriptRecord>get(queueCapacity).get());
+        writerScheduler = Schedulers.newSingle("transcript-store");
+        queue.asFlux()
+                .bufferTimeout(batchSize, Duration.ofMillis(batchDelayMs), writerScheduler)
+                .publishOn(writerScheduler)
+                .subscribe(this::writeBatch);
+        compaction = Flux.interval(Duration.ofMinutes(compactionIntervalMinutes), writerScheduler)
+                .subscribe(tick -> compact());
+        available = true;
+        log.info("Transcript store open in {}: {} segments", dir, segments.size());
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (!available) {
+            return;
+        }
+        available = false;
+        compaction.dispose();
+        // Let the writer drain what is queued before the files are closed
+        synchronized (this) {
+            queue.tryEmitComplete();
+        }
+        writerScheduler.schedule(() -> {
+            try {
+                for (LogSegment segment : segments) {
+                    segment.flush(true);
+                    segment.close();
+                }
+            } catch (IOException e) {
+                log.warn("Failed to close transcript store cleanly", e);
+            }
+        });
+        writerScheduler.disposeGracefully().block(Duration.ofSeconds(5));
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Queues an event for writing; never blocks. Events are dropped (and counted) when the queue is full.
+     */
+    public synchronized void append(TranscriptRecord record) {
+        if (!available) {
+            return;
+        }
+        // Sessions and AI replies append from their own threads; the sink needs serialized emissions
+        if (queue.tryEmitNext(record).isFailure()) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * A session's events with {@code from <= timestamp <= to}, oldest first, at most {@code limit} (the newest ones).
+     */
+    public List<TranscriptRecord> read(String sessionId, long from, long to, int limit) throws IOException {
+        if (!available) {
+            return List.of();
+        }
+        List<TranscriptRecord> records = new ArrayList<>();
+        segmentsLock.readLock().lock();
+        try {
+            for (LogSegment segment : segments) {
+                if (segment.entries() == 0 || segment.maxTimestamp() < from || segment.minTimestamp() > to) {
+                    continue;
+                }
+                records.addAll(segment.read(sessionId, from, to));
+            }
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+        return records.size() > limit ? records.subList(records.size() - limit, records.size()) : records;
+    }
+
+    /**
+     * Every stored event in append order, e.g. to rebuild a derived index at startup.
+     */
+    public void forEach(Consumer<TranscriptRecord> consumer) throws IOException {
+        if (!available) {
+            return;
+        }
+        segmentsLock.readLock().lock();
+        try {
+            for (LogSegment segment : segments) {
+                segment.readAll().forEach(consumer);
+            }
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+
+    private void openSegments() throws IOException {
+        Files.createDirectories(dir);
+        finishCompactions();
+        List<Long> ids;
+        try (Stream<Path> files = Files.list(dir)) {
+            ids = files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            boolean last = i == ids.size() - 1;
+            segments.add(openSegment(ids.get(i), last));
+        }
+        if (segments.isEmpty()) {
+            segments.add(openSegment(0, true));
+        }
+        active = segments.get(segments.size() - 1);
+    }
+
+    private LogSegment openSegment(long id, boolean recover) throws IOException {
+        if (recover) {
+            return LogSegment.open(id, logPath(id, ""), indexPath(id, ""), segmentMaxEntries, true);
+        }
+        try {
+            return LogSegment.open(id, logPath(id, ""), indexPath(id, ""), segmentMaxEntries, false);
+        } catch (IOException e) {
+            log.warn("Rebuilding index of transcript segment {}: {}", id, e.getMessage());
+            return LogSegment.open(id, logPath(id, ""), indexPath(id, ""), segmentMaxEntries, true);
+        }
+    }
+
+    /**
+     * Completes swaps that a marker shows were committed, and deletes compacted files that never got that far.
+     */
+    private void finishCompactions() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.toList();
+        }
+        for (Path file : files) {
+            Matcher marker = COMPACTED_MARKER.matcher(file.getFileName().toString());
+            if (marker.matches()) {
+                long id = Long.parseLong(marker.group(1));
+                swapCompacted(id);
+                log.info("Completed interrupted compaction of transcript segment {}", id);
+            }
+        }
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(COMPACTING) && Files.deleteIfExists(file)) {
+                log.info("Deleted unfinished compaction file {}", file.getFileName());
+            }
+        }
+    }
+
+    private Path compactedMarker(long id) {
+        return dir.resolve(String.format("segment-%010d.compacted", id));
+    }
+
+    /** Moves whichever compacted files are still pending over the segment's own, then drops the marker. */
+    private void swapCompacted(long id) throws IOException {
+        for (Path target : List.of(logPath(id, ""), indexPath(id, ""))) {
+            Path compacted = target.resolveSibling(target.getFileName() + COMPACTING);
+            if (Files.exists(compacted)) {
+                Files.move(compacted, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        Files.deleteIfExists(compactedMarker(id));
+    }
+
+    private Path logPath(long id, String suffix) {
+        return dir.resolve(String.format("segment-%010d.log%s", id, suffix));
+    }
+
+    private Path indexPath(long id, String suffix) {
+        return dir.resolve(String.format("segment-%010d.idx%s", id, suffix));
+    }
+
+    private void writeBatch(List<TranscriptRecord> batch) {
+        long start = System.nanoTime();
+        try {
+            int offset = 0;
+            while (offset < batch.size()) {
+                if (active.size() >= segmentMaxBytes || active.remainingEntries() == 0) {
+                    roll();
+                }
+                int count = Math.min(batch.size() - offset, active.remainingEntries());
+                bytesWritten.increment(active.append(batch.subList(offset, offset + count)));
+                offset += count;
+            }
+            if (fsync) {
+                active.flush(false);
+            }
+            appended.increment(batch.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write {} transcript records", batch.size(), e);
+            dropped.increment(batch.size());
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void roll() throws IOException {
+        LogSegment previous = active;
+        previous.flush(true);
+        LogSegment next = openSegment(previous.id() + 1, false);
+        segments.add(next);
+        active = next;
+        log.info("Rolled transcript log to segment {} ({} bytes, {} records in previous)",
+                next.id(), previous.size(), previous.entries());
+    }
+
+    /**
+     * Runs on the writer thread, so the active segment never changes underneath it.
+     */
+    private void compact() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours);
+        for (LogSegment segment : List.copyOf(segments)) {
+            if (segment == active) {
+                continue;
+            }
+            try {
+                if (segment.entries() == 0 || segment.maxTimestamp() < cutoff) {
+                    remove(segment);
+                    log.info("Deleted transcript segment {} (past retention)", segment.id());
+                } else if (segment.interimCount() > 0) {
+                    long before = segment.size();
+                    rewriteWithoutInterims(segment);
+                    LogSegment compacted = replace(segment);
+                    log.info("Compacted transcript segment {}: {} -> {} bytes", segment.id(), before, compacted.size());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to compact transcript segment {}", segment.id(), e);
+            }
+        }
+    }
+
+    private void remove(LogSegment segment) throws IOException {
+        segmentsLock.writeLock().lock();
+        try {
+            segments.remove(segment);
+            segment.delete();
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the segment's finals to temporary files next to it.
+     */
+    private void rewriteWithoutInterims(LogSegment segment) throws IOException {
+        List<TranscriptRecord> kept = segment.readAll().stream()
+                .filter(TranscriptRecord::isFinal)
+                .toList();
+        Path log = logPath(segment.id(), COMPACTING);
+        Path index = indexPath(segment.id(), COMPACTING);
+        Files.deleteIfExists(log);
+        Files.deleteIfExists(index);
+        try (LogSegment compacted = LogSegment.open(segment.id(), log, index, segmentMaxEntries, false)) {
+            for (int i = 0; i < kept.size(); i += batchSize) {
+                compacted.append(kept.subList(i, Math.min(kept.size(), i + batchSize)));
+            }
+            compacted.flush(true);
+        }
+    }
+
+    /**
+     * Moves the compacted files over the segment's own and reopens it, under the write lock. The marker is
+     * written once both compacted files are complete, so {@link #finishCompactions} can tell a swap to finish
+     * from one to discard.
+     */
+    private LogSegment replace(LogSegment segment) throws IOException {
+        segmentsLock.writeLock().lock();
+        try {
+            segment.close();
+            try (FileChannel marker = FileChannel.open(compactedMarker(segment.id()),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                marker.force(true);
+            }
+            swapCompacted(segment.id());
+            LogSegment reopened = openSegment(segment.id(), false);
+            segments.set(segments.indexOf(segment), reopened);
+            return reopened;
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+    }
+
+    private void registerMetrics() {
+        appended = Counter.builder("transcript.store.appended").register(meterRegistry);
+        dropped = Counter.builder("transcript.store.dropped")
+                .description("Records dropped because the write queue was full or a write failed")
+                .register(meterRegistry);
+        bytesWritten = Counter.builder("transcript.store.written")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("transcript.store.batch")
+                .description("Time to write one batch")
+                .register(meterRegistry);
+        Gauge.builder("transcript.store.segments", segments, List::size).register(meterRegistry);
+    }
+}
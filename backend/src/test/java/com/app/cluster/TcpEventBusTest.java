@@ -0,0 +1,77 @@
+package com.app.cluster;
+
+import com.app.model.TranscriptDelta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TcpEventBusTest {
+
+    private static final int MAX_FRAME_BYTES = 4096;
+
+    private final List<TcpEventBus> buses = new ArrayList<>();
+
+    @AfterEach
+    void closeBuses() {
+        buses.forEach(TcpEventBus::close);
+    }
+
+    private TcpEventBus bus(String node, int port, PeerAddress peer, MeterRegistry meterRegistry) {
+        ClusterMembership membership = new ClusterMembership(node, null, List.of(peer), 16);
+        TcpEventBus bus = new TcpEventBus(membership, new TcpEventBus.Settings("localhost", port, "test-secret",
+                Duration.ofMillis(100), Duration.ofSeconds(5), MAX_FRAME_BYTES, 4096),
+                new ObjectMapper(), meterRegistry).start();
+        buses.add(bus);
+        return bus;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static TranscriptDelta snapshot(int session, String text) {
+        return new TranscriptDelta("session-" + session, 1, 0, "user", 0, text, text.length(), false, true, null);
+    }
+
+    @Test
+    void snapshotReplyLargerThanAFrameArrivesInParts() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        MeterRegistry registryA = new SimpleMeterRegistry();
+        MeterRegistry registryB = new SimpleMeterRegistry();
+        TcpEventBus a = bus("a", portA, new PeerAddress("b", "localhost", portB), registryA);
+        TcpEventBus b = bus("b", portB, new PeerAddress("a", "localhost", portA), registryB);
+
+        // About 100 KB of snapshots, 25 times the frame limit, plus one that cannot fit any frame
+        List<TranscriptDelta> snapshots = new ArrayList<>(IntStream.range(0, 500)
+                .mapToObj(session -> snapshot(session, "the deploy finished without errors " + session))
+                .toList());
+        snapshots.add(snapshot(500, "x".repeat(MAX_FRAME_BYTES)));
+        b.setSnapshotSource(sessionId -> sessionId == null ? snapshots : List.of());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registryA.get("cluster.peers.connected").gauge().value() < 1
+                || registryB.get("cluster.peers.connected").gauge().value() < 1) {
+            assertTrue(System.nanoTime() < deadline, "the nodes did not connect");
+            Thread.sleep(20);
+        }
+
+        List<TranscriptDelta> received = a.remoteSnapshots(null).collectList().block(Duration.ofSeconds(10));
+        assertEquals(snapshots.subList(0, 500), received);
+    }
+}
@@ -0,0 +1,104 @@
+package com.app.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PhraseIteratorTest {
+
+    private final Map<String, PostingList> terms = new HashMap<>();
+    private final List<List<String>> docs = new ArrayList<>();
+
+    private void add(String text) {
+        int doc = docs.size();
+        List<String> tokens = Tokenizer.tokenize(text);
+        docs.add(tokens);
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i), term -> new ArrayList<>()).add(i);
+        }
+        positions.forEach((term, values) -> terms.computeIfAbsent(term, t -> new PostingList())
+                .add(doc, values.stream().mapToInt(Integer::intValue).toArray(), values.size()));
+    }
+
+    private PhraseIterator phrase(String... words) {
+        PostingList.Cursor[] cursors = new PostingList.Cursor[words.length];
+        for (int i = 0; i < words.length; i++) {
+            cursors[i] = terms.get(words[i]).cursor();
+        }
+        return new PhraseIterator(cursors);
+    }
+
+    private static List<Integer> all(DocIterator iterator) {
+        List<Integer> docs = new ArrayList<>();
+        for (int doc = iterator.nextDoc(); doc != DocIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            docs.add(doc);
+        }
+        return docs;
+    }
+
+    @Test
+    void matchesOnlyConsecutivePositions() {
+        add("system design interview");
+        add("design the system");
+        add("a system for design");
+        add("system design and more system design");
+        add("the design system design");
+
+        assertEquals(List.of(0, 3, 4), all(phrase("system", "design")));
+        assertEquals(List.of(4), all(phrase("design", "system")));
+        assertEquals(List.of(0), all(phrase("system", "design", "interview")));
+        assertEquals(List.of(4), all(phrase("design", "system", "design")));
+    }
+
+    @Test
+    void matchesRepeatedTerms() {
+        add("new york");
+        add("new new york");
+        add("new and new");
+
+        assertEquals(List.of(1), all(phrase("new", "new")));
+        assertEquals(List.of(1), all(phrase("new", "new", "york")));
+    }
+
+    @Test
+    void agreesWithBruteForceAcrossSkipBlocks() {
+        Random random = new Random(4);
+        String[] vocabulary = {"a", "b", "c", "d", "e"};
+        for (int d = 0; d < 20 * PostingList.SKIP_INTERVAL; d++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0, n = 1 + random.nextInt(12); i < n; i++) {
+                text.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            add(text.toString());
+        }
+        for (String[] words : new String[][]{{"a", "b"}, {"c", "c"}, {"a", "b", "c"}, {"e", "d", "c", "b"}}) {
+            List<Integer> expected = new ArrayList<>();
+            for (int d = 0; d < docs.size(); d++) {
+                if (contains(docs.get(d), List.of(words))) {
+                    expected.add(d);
+                }
+            }
+            assertEquals(expected, all(phrase(words)), String.join(" ", words));
+
+            // advance() must agree with a full scan from any starting point
+            for (int target = 0; target < docs.size(); target += 97) {
+                int from = target;
+                int next = expected.stream().filter(doc -> doc >= from).findFirst().orElse(DocIterator.NO_MORE_DOCS);
+                assertEquals(next, phrase(words).advance(target));
+            }
+        }
+    }
+
+    private static boolean contains(List<String> tokens, List<String> phrase) {
+        return Collections.indexOfSubList(tokens, phrase) >= 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.app.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PostingListTest {
+
+    /** Documents with positions, added in increasing id order like the index does. */
+    private record Posting(int doc, int[] positions) {
+    }
+
+    static List<Posting> randomPostings(Random random, int count, int maxGap) {
+        List<Posting> postings = new ArrayList<>();
+        int doc = -1;
+        for (int i = 0; i < count; i++) {
+            doc += 1 + random.nextInt(maxGap);
+            int[] positions = new int[1 + random.nextInt(5)];
+            int position = -1;
+            for (int j = 0; j < positions.length; j++) {
+                // Some gaps need two or three varint bytes
+                position += 1 + (random.nextInt(8) == 0 ? random.nextInt(100_000) : random.nextInt(10));
+                positions[j] = position;
+            }
+            postings.add(new Posting(doc, positions));
+        }
+        return postings;
+    }
+
+    private static PostingList build(List<Posting> postings) {
+        PostingList list = new PostingList();
+        for (Posting posting : postings) {
+            list.add(posting.doc(), posting.positions(), posting.positions().length);
+        }
+        return list;
+    }
+
+    @Test
+    void decodesEveryDocumentAndPosition() {
+        Random random = new Random(1);
+        // Gaps up to 300k make multi-byte doc deltas
+        for (int maxGap : new int[]{1, 3, 300_000}) {
+            List<Posting> postings = randomPostings(random, 1000, maxGap);
+            PostingList list = build(postings);
+            assertEquals(1000, list.docCount());
+
+            PostingList.Cursor cursor = list.cursor();
+            assertEquals(1000, cursor.cost());
+            for (int i = 0; i < postings.size(); i++) {
+                Posting posting = postings.get(i);
+                assertEquals(posting.doc(), cursor.nextDoc());
+                assertEquals(posting.positions().length, cursor.freq());
+                // Skipping some positions must not derail decoding of the next document
+                if (i % 3 != 0) {
+                    assertArrayEquals(posting.positions(), cursor.positions(new int[cursor.freq()]));
+                }
+            }
+            assertEquals(DocIterator.NO_MORE_DOCS, cursor.nextDoc());
+            assertEquals(DocIterator.NO_MORE_DOCS, cursor.nextDoc());
+        }
+    }
+
+    @Test
+    void usesOneByteForSmallDeltas() {
+        PostingList list = new PostingList();
+        for (int doc = 0; doc < 100; doc++) {
+            list.add(doc, new int[]{doc % 100}, 1);
+        }
+        // doc delta, frequency and position: one byte each
+        assertEquals(300, list.sizeBytes());
+    }
+
+    @Test
+    void advanceLandsOnFirstDocumentAtOrAfterTarget() {
+        Random random = new Random(2);
+        List<Posting> postings = randomPostings(random, 5 * PostingList.SKIP_INTERVAL + 7, 20);
+        PostingList list = build(postings);
+        int last = postings.get(postings.size() - 1).doc();
+
+        for (int run = 0; run < 200; run++) {
+            PostingList.Cursor cursor = list.cursor();
+            int target = -1;
+            while (true) {
+                // Mostly short hops, sometimes across several skip blocks
+                target += 1 + (random.nextBoolean() ? random.nextInt(5) : random.nextInt(3000));
+                int expected = expectedAdvance(postings, target);
+                int doc = cursor.advance(target);
+                assertEquals(expected, doc, "advance(" + target + ")");
+                if (doc == DocIterator.NO_MORE_DOCS) {
+                    break;
+                }
+                int index = indexOf(postings, doc);
+                assertArrayEquals(postings.get(index).positions(), cursor.positions(new int[cursor.freq()]));
+                target = doc;
+            }
+            assertEquals(DocIterator.NO_MORE_DOCS, expectedAdvance(postings, last + 1));
+        }
+    }
+
+    @Test
+    void advanceHitsSkipBoundariesExactly() {
+        Random random = new Random(3);
+        List<Posting> postings = randomPostings(random, 4 * PostingList.SKIP_INTERVAL + 1, 4);
+        PostingList list = build(postings);
+        for (int i = PostingList.SKIP_INTERVAL - 1; i < postings.size(); i += PostingList.SKIP_INTERVAL) {
+            for (int offset = -1; offset <= 1; offset++) {
+                int index = Math.min(postings.size() - 1, i + offset);
+                int target = postings.get(index).doc();
+                assertEquals(target, list.cursor().advance(target));
+                assertEquals(expectedAdvance(postings, target - 1), list.cursor().advance(target - 1));
+            }
+        }
+    }
+
+    @Test
+    void positionsCanBeReadOncePerDocument() {
+        PostingList list = new PostingList();
+        list.add(4, new int[]{1, 7}, 2);
+        PostingList.Cursor cursor = list.cursor();
+        assertEquals(4, cursor.nextDoc());
+        cursor.positions(new int[2]);
+        assertThrows(IllegalStateException.class, () -> cursor.positions(new int[2]));
+    }
+
+    private static int expectedAdvance(List<Posting> postings, int target) {
+        for (Posting posting : postings) {
+            if (posting.doc() >= target) {
+                return posting.doc();
+            }
+        }
+        return DocIterator.NO_MORE_DOCS;
+    }
+
+    private static int indexOf(List<Posting> postings, int doc) {
+        for (int i = 0; i < postings.size(); i++) {
+            if (postings.get(i).doc() == doc) {
+                return i;
+            }
+        }
+        throw new AssertionError("No document " + doc);
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchQueryTest {
+
+    @Test
+    void splitsTermsPhrasesAndPrefixes() {
+        SearchQuery query = SearchQuery.parse("Kubernetes \"System Design\" deploy*");
+        assertEquals(List.of("kubernetes"), query.terms());
+        assertEquals(List.of(List.of("system", "design")), query.phrases());
+        assertEquals(List.of("deploy"), query.prefixes());
+    }
+
+    @Test
+    void turnsMultiTokenWordsIntoPhrases() {
+        SearchQuery query = SearchQuery.parse("e-mail follow-up*");
+        assertEquals(List.of(List.of("e", "mail")), query.phrases());
+        // A multi-token prefix word expands only its last token; the rest must match as usual
+        assertEquals(List.of("follow"), query.terms());
+        assertEquals(List.of("up"), query.prefixes());
+    }
+
+    @Test
+    void quotedSingleWordIsATerm() {
+        SearchQuery query = SearchQuery.parse("\"design\" \"  \"");
+        assertEquals(List.of("design"), query.terms());
+        assertEquals(List.of(), query.phrases());
+    }
+
+    @Test
+    void unbalancedQuoteQuotesTheRest() {
+        SearchQuery query = SearchQuery.parse("cloud \"load balancer");
+        assertEquals(List.of("cloud"), query.terms());
+        assertEquals(List.of(List.of("load", "balancer")), query.phrases());
+    }
+
+    @Test
+    void punctuationAroundWordsIsIgnored() {
+        SearchQuery query = SearchQuery.parse("  (kubernetes),  ");
+        assertEquals(List.of("kubernetes"), query.terms());
+        // A bare star has nothing to expand
+        assertEquals(List.of("x"), SearchQuery.parse("* x").terms());
+        assertEquals(List.of(), SearchQuery.parse("* x").prefixes());
+    }
+
+    @Test
+    void rejectsQueriesWithoutWords() {
+        for (String query : new String[]{"", "   ", "\"\"", "*", "-- !? \"\u2014\""}) {
+            assertThrows(IllegalArgumentException.class, () -> SearchQuery.parse(query), query);
+        }
+    }
+}
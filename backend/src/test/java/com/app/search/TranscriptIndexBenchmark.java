@@ -0,0 +1,83 @@
+package com.app.search;
+
+import com.app.model.SearchResult;
+import com.app.store.TranscriptRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query latency of the transcript index over more than a million utterances with the default
+ * {@code search.index.max-documents}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class TranscriptIndexBenchmark {
+
+    private static final int UTTERANCES = 1_200_000;
+    private static final int SESSIONS = 20_000;
+    private static final int VOCABULARY = 30_000;
+    private static final int QUERIES = 500;
+    private static final String[] QUERY_SHAPES = {
+            // common term, rare term, two terms, phrase, prefix, phrase and prefix together
+            "w1", "w25000", "w3 w40", "\"w5 w6\"", "w12*", "\"w1 w2\" w7*",
+    };
+
+    @Test
+    void queryLatency() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TranscriptIndex index = TranscriptIndexTest.index(meterRegistry, 2_000_000);
+        Random random = new Random(7);
+        // Word frequencies follow a Zipf-like curve, as in speech: a few very common words and a long tail
+        double[] cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        long now = System.currentTimeMillis();
+        long start = System.nanoTime();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < UTTERANCES; i++) {
+            text.setLength(0);
+            for (int w = 0, n = 4 + random.nextInt(16); w < n; w++) {
+                int word = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                text.append('w').append(word < 0 ? -word - 1 : word).append(' ');
+            }
+            index.add(new TranscriptRecord("session-" + (i % SESSIONS), now - UTTERANCES + i,
+                    i % 3 == 0 ? "ai" : "user", true, text.toString()));
+        }
+        double indexSeconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(UTTERANCES, meterRegistry.get("search.index.documents").gauge().value());
+
+        StringBuilder report = new StringBuilder();
+        for (String query : QUERY_SHAPES) {
+            for (int i = 0; i < QUERIES / 10; i++) {
+                index.search(query, 50);
+            }
+            long[] nanos = new long[QUERIES];
+            int total = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                long queryStart = System.nanoTime();
+                SearchResult result = index.search(query, 50);
+                nanos[i] = System.nanoTime() - queryStart;
+                total = result.total();
+            }
+            assertTrue(total > 0, query);
+            Arrays.sort(nanos);
+            report.append(String.format("%n  %-14s %8d hits  p50 %7.3f ms  p99 %7.3f ms", query, total,
+                    nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 99 / 100] / 1e6));
+        }
+        log.info("indexed {} utterances in {} ms ({} MB postings); query latency:{}", UTTERANCES,
+                Math.round(indexSeconds * 1000),
+                Math.round(meterRegistry.get("search.index.postings").gauge().value() / 1e6), report);
+    }
+}
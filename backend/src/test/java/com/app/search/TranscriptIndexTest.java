@@ -0,0 +1,93 @@
+package com.app.search;
+
+import com.app.model.SearchHit;
+import com.app.model.SearchResult;
+import com.app.store.TranscriptRecord;
+import com.app.store.TranscriptStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TranscriptIndexTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /** An index configured like application.properties, over a store that is not open. */
+    static TranscriptIndex index(MeterRegistry meterRegistry, int maxDocuments) {
+        TranscriptIndex index = new TranscriptIndex(new TranscriptStore(meterRegistry), meterRegistry);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxDocuments", maxDocuments);
+        ReflectionTestUtils.setField(index, "maxPrefixTerms", 1000);
+        ReflectionTestUtils.setField(index, "retentionHours", 168L);
+        index.init();
+        return index;
+    }
+
+    @Test
+    void findsPhrasesPrefixesAndTermsNewestFirst() {
+        TranscriptIndex index = index(meterRegistry, 1000);
+        long now = System.currentTimeMillis();
+        index.add(new TranscriptRecord("a", now, "user", true, "we deploy on kubernetes"));
+        index.add(new TranscriptRecord("a", now + 1, "ai", true, "kubernetes deployments scale out"));
+        index.add(new TranscriptRecord("b", now + 2, "user", false, "kubernetes interim"));
+        index.add(new TranscriptRecord("b", now + 3, "user", true, "design the system for kubernetes"));
+
+        assertEquals(List.of(now + 3, now + 1, now), timestamps(index.search("kubernetes", 10)));
+        assertEquals(List.of(now + 1, now), timestamps(index.search("deploy* kubernetes", 10)));
+        assertEquals(List.of(now + 3), timestamps(index.search("\"the system\"", 10)));
+        assertEquals(List.of(), timestamps(index.search("\"system the\"", 10)));
+
+        SearchResult limited = index.search("kubernetes", 2);
+        assertEquals(3, limited.total());
+        assertEquals(List.of(now + 3, now + 1), timestamps(limited));
+        assertEquals("ai", limited.hits().get(1).sender());
+    }
+
+    @Test
+    void evictsOldestDocumentsOnceFull() {
+        TranscriptIndex index = index(meterRegistry, 80);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            index.add(new TranscriptRecord("s" + i, now + i, "user", true, "utterance number " + i));
+        }
+
+        SearchResult result = index.search("utterance", 1000);
+        assertEquals(80, result.total());
+        assertEquals(now + 999, result.hits().get(0).timestampMs());
+        assertEquals(now + 920, result.hits().get(79).timestampMs());
+        assertEquals(List.of(now + 999), timestamps(index.search("999", 10)));
+        assertEquals(0, index.search("5", 10).total());
+        assertEquals(920, meterRegistry.counter("search.index.evicted").count());
+        assertEquals(80, meterRegistry.get("search.index.documents").gauge().value());
+    }
+
+    @Test
+    void hidesAndDropsUtterancesPastRetention() {
+        TranscriptIndex index = index(meterRegistry, 80);
+        long expired = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(169);
+        for (int i = 0; i < 15; i++) {
+            index.add(new TranscriptRecord("old", expired + i, "user", true, "old standup notes"));
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            index.add(new TranscriptRecord("new", now + i, "user", true, "new standup notes"));
+        }
+
+        // The first segment (10 documents) is dropped; the 5 expired ones sharing a segment with fresh ones are
+        // skipped at query time
+        SearchResult result = index.search("standup", 100);
+        assertEquals(5, result.total());
+        assertEquals(List.of("new"), result.hits().stream().map(SearchHit::sessionId).distinct().toList());
+        assertEquals(10, meterRegistry.counter("search.index.evicted").count());
+    }
+
+    private static List<Long> timestamps(SearchResult result) {
+        return result.hits().stream().map(SearchHit::timestampMs).toList();
+    }
+}
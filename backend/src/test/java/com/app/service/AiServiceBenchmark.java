@@ -0,0 +1,134 @@
+package com.app.service;
+
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.net.ssl.KeyManagerFactory;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency of a request over a new TLS connection (cold: TCP and TLS handshakes, HTTP/2 preface) against one over
+ * a pooled connection kept warm, with the HTTP client configured like {@link AiService}. The server is local, so
+ * the gap is handshake CPU only; against the real API each cold request also pays one to two extra round trips.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class AiServiceBenchmark {
+
+    private static final int REQUESTS = 300;
+    private static final char[] PASSWORD = "benchmark".toCharArray();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void coldVersusWarmTlsLatency() throws Exception {
+        KeyManagerFactory keyManagers = keyManagers();
+        DisposableServer server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                .secure(spec -> spec.sslContext(Http2SslContextSpec.forServer(keyManagers)))
+                .handle((request, response) -> response.sendString(Mono.just("{}")))
+                .bindNow();
+        String uri = "https://localhost:" + server.port() + "/v1beta/models/gemini-flash-latest";
+        try {
+            long[] cold = new long[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                ConnectionProvider provider = provider();
+                cold[i] = timedRequest(client(provider), uri);
+                provider.disposeLater().block();
+            }
+
+            ConnectionProvider provider = provider();
+            HttpClient warmClient = client(provider);
+            timedRequest(warmClient, uri);
+            long[] warm = new long[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                warm[i] = timedRequest(warmClient, uri);
+            }
+            provider.disposeLater().block();
+
+            Arrays.sort(cold);
+            Arrays.sort(warm);
+            log.info("request latency over TLS, {} requests each: cold p50 {} ms p99 {} ms; warm p50 {} ms p99 {} ms",
+                    REQUESTS, millis(cold[REQUESTS / 2]), millis(cold[REQUESTS * 99 / 100]),
+                    millis(warm[REQUESTS / 2]), millis(warm[REQUESTS * 99 / 100]));
+            assertTrue(warm[REQUESTS / 2] < cold[REQUESTS / 2]);
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    /** Same pool and protocol settings as {@link AiService}, trusting the benchmark's self-signed certificate. */
+    private static HttpClient client(ConnectionProvider provider) {
+        return HttpClient.create(provider)
+                .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                .secure(spec -> spec.sslContext(Http2SslContextSpec.forClient()
+                        .configure(builder -> builder.trustManager(InsecureTrustManagerFactory.INSTANCE))));
+    }
+
+    private static ConnectionProvider provider() {
+        return ConnectionProvider.builder("benchmark")
+                .maxConnections(50)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private static long timedRequest(HttpClient client, String uri) {
+        long start = System.nanoTime();
+        Integer status = client.get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.asString().thenReturn(response.status().code()))
+                .block(Duration.ofSeconds(10));
+        long nanos = System.nanoTime() - start;
+        assertEquals(200, status);
+        return nanos;
+    }
+
+    /** A self-signed key pair for localhost, made with the JDK's keytool. */
+    private KeyManagerFactory keyManagers() throws Exception {
+        Path keyStore = dir.resolve("benchmark.p12");
+        Process keytool = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "localhost", "-keyalg", "EC", "-groupname", "secp256r1",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost", "-validity", "1",
+                "-storetype", "PKCS12", "-keystore", keyStore.toString(),
+                "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(keytool.getInputStream().readAllBytes());
+        assertEquals(0, keytool.waitFor(), output);
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keyStore)) {
+            store.load(in, PASSWORD);
+        }
+        KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        factory.init(store, PASSWORD);
+        return factory;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
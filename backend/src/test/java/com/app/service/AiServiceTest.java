@@ -0,0 +1,81 @@
+package com.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiServiceTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final DisposableServer server = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .handle((request, response) -> {
+                if (request.method().name().equals("GET")) {
+                    lookups.incrementAndGet();
+                    return response.sendString(Mono.just("{}"));
+                }
+                return response.header("Content-Type", "application/json")
+                        .sendString(Mono.just("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"Hi\"}]}}]}"));
+            })
+            .bindNow();
+    private AiService service;
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.cleanup();
+        }
+        server.disposeNow();
+    }
+
+    private AiService service(long keepAliveIntervalMs, long keepAliveAfterUseMs) {
+        AiService service = new AiService(new ObjectMapper(), WebClient.builder());
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+        ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:" + server.port());
+        ReflectionTestUtils.setField(service, "maxConnections", 50);
+        ReflectionTestUtils.setField(service, "pendingAcquireTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "maxIdleTimeMs", 30000L);
+        ReflectionTestUtils.setField(service, "maxLifeTimeMs", 300000L);
+        ReflectionTestUtils.setField(service, "evictIntervalMs", 10000L);
+        ReflectionTestUtils.setField(service, "connectTimeoutMs", 5000);
+        ReflectionTestUtils.setField(service, "http2", true);
+        ReflectionTestUtils.setField(service, "maxInMemorySize", 262144);
+        ReflectionTestUtils.setField(service, "prewarm", false);
+        ReflectionTestUtils.setField(service, "keepAliveIntervalMs", keepAliveIntervalMs);
+        ReflectionTestUtils.setField(service, "keepAliveAfterUseMs", keepAliveAfterUseMs);
+        service.init();
+        this.service = service;
+        return service;
+    }
+
+    @Test
+    void keepAliveRunsOnlyAfterRecentCalls() throws InterruptedException {
+        AiService service = service(50, 400);
+
+        Thread.sleep(400);
+        assertEquals(0, lookups.get(), "keep-alive ran before any call");
+
+        assertEquals("Hi", service.generateResponse("hello").block(Duration.ofSeconds(5)));
+        Thread.sleep(300);
+        int afterCall = lookups.get();
+        assertTrue(afterCall >= 2, "only " + afterCall + " keep-alive lookups after a call");
+
+        // Past the window the lookups stop, leaving the connection to the pool's idle eviction
+        Thread.sleep(400);
+        int stopped = lookups.get();
+        Thread.sleep(400);
+        assertEquals(stopped, lookups.get());
+    }
+}
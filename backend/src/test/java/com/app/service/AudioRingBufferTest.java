@@ -0,0 +1,62 @@
+package com.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AudioRingBufferTest {
+
+    private static byte[] chunk(int value, int length) {
+        byte[] chunk = new byte[length];
+        Arrays.fill(chunk, (byte) value);
+        return chunk;
+    }
+
+    @Test
+    void evictsOldestChunksPastCapacity() {
+        AudioRingBuffer buffer = new AudioRingBuffer(250);
+        buffer.add(chunk(1, 100));
+        buffer.add(chunk(2, 100));
+        buffer.add(chunk(3, 100));
+
+        assertEquals(200, buffer.sizeBytes());
+        List<byte[]> chunks = buffer.snapshot();
+        assertArrayEquals(chunk(2, 100), chunks.get(0));
+        assertArrayEquals(chunk(3, 100), chunks.get(1));
+    }
+
+    @Test
+    void discardBeforeCountsEvictedAudioAndSplitsChunks() {
+        AudioRingBuffer buffer = new AudioRingBuffer(250);
+        buffer.add(chunk(1, 100));
+        buffer.add(chunk(2, 100));
+        buffer.add(chunk(3, 100));
+
+        // Offsets are stream offsets: the evicted first chunk still occupied 0-99
+        buffer.discardBefore(150);
+        assertEquals(150, buffer.sizeBytes());
+        List<byte[]> chunks = buffer.snapshot();
+        assertArrayEquals(chunk(2, 50), chunks.get(0));
+        assertArrayEquals(chunk(3, 100), chunks.get(1));
+
+        buffer.discardBefore(100);
+        assertEquals(150, buffer.sizeBytes());
+        buffer.discardBefore(300);
+        assertEquals(0, buffer.sizeBytes());
+    }
+
+    @Test
+    void restartOffsetsCountsFromTheBufferedAudio() {
+        AudioRingBuffer buffer = new AudioRingBuffer(1000);
+        buffer.add(chunk(1, 100));
+        buffer.add(chunk(2, 100));
+        buffer.restartOffsets();
+
+        buffer.discardBefore(100);
+        assertEquals(List.of(2), buffer.snapshot().stream().map(chunk -> (int) chunk[0]).toList());
+    }
+}
@@ -0,0 +1,78 @@
+package com.app.service;
+
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A stand-in for the Gemini Live WebSocket endpoint. Each accepted connection is handed to a {@link Script}
+ * that answers the client's text frames; the connection is closed from the server side when the script's
+ * replies complete, which is how tests drop a session.
+ */
+final class FakeGeminiLiveServer implements AutoCloseable {
+
+    interface Script {
+        /**
+         * @param connection zero-based number of the connection
+         * @param received   the client's text frames; the setup message comes first
+         */
+        Flux<String> replies(int connection, Flux<String> received);
+    }
+
+    static final String SETUP_COMPLETE = "{\"setupComplete\":{}}";
+    static final String TURN_COMPLETE = "{\"serverContent\":{\"turnComplete\":true}}";
+
+    private final List<List<String>> received = new CopyOnWriteArrayList<>();
+    private final List<Long> acceptedAtNanos = new CopyOnWriteArrayList<>();
+    private final DisposableServer server;
+
+    FakeGeminiLiveServer(Script script) {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.ws("/live", (in, out) -> {
+                    List<String> frames = new CopyOnWriteArrayList<>();
+                    int connection;
+                    synchronized (received) {
+                        connection = received.size();
+                        received.add(frames);
+                        acceptedAtNanos.add(System.nanoTime());
+                    }
+                    Flux<String> inbound = in.receive().asString().doOnNext(frames::add);
+                    return out.sendString(script.replies(connection, inbound));
+                }))
+                .bindNow();
+    }
+
+    static String inputTranscription(String text) {
+        return "{\"serverContent\":{\"inputTranscription\":{\"text\":\"" + text + "\"}}}";
+    }
+
+    static String modelText(String text) {
+        return "{\"serverContent\":{\"modelTurn\":{\"parts\":[{\"text\":\"" + text + "\"}]}}}";
+    }
+
+    URI uri() {
+        return URI.create("ws://localhost:" + server.port() + "/live");
+    }
+
+    /** Frames received so far, per connection. */
+    List<List<String>> received() {
+        return new ArrayList<>(received);
+    }
+
+    /** {@link System#nanoTime()} at which each connection was accepted. */
+    List<Long> acceptedAtNanos() {
+        return new ArrayList<>(acceptedAtNanos);
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,105 @@
+package com.app.service;
+
+import com.google.cloud.speech.v1.SpeechRecognitionAlternative;
+import com.google.cloud.speech.v1.StreamingRecognitionResult;
+import com.google.cloud.speech.v1.StreamingRecognizeRequest;
+import com.google.cloud.speech.v1.StreamingRecognizeResponse;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plaintext stand-in for the Speech API's StreamingRecognize.
+ * <p>
+ * Each stream is held open for {@code holdTime} from its first message, as a real recognizer would for audio
+ * streamed in real time, then answered with one final result counting the audio frames received. The per-connection
+ * stream limit mirrors the one the real server enforces.
+ */
+class FakeSpeechServer implements AutoCloseable {
+
+    static final MethodDescriptor<StreamingRecognizeRequest, StreamingRecognizeResponse> STREAMING_RECOGNIZE =
+            MethodDescriptor.<StreamingRecognizeRequest, StreamingRecognizeResponse>newBuilder()
+                    .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(
+                            "google.cloud.speech.v1.Speech", "StreamingRecognize"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StreamingRecognizeRequest.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StreamingRecognizeResponse.getDefaultInstance()))
+                    .build();
+
+    private final Server server;
+    private final Duration holdTime;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final AtomicInteger peakStreams = new AtomicInteger();
+
+    FakeSpeechServer(int maxStreamsPerConnection, Duration holdTime) throws IOException {
+        this.holdTime = holdTime;
+        ServerServiceDefinition service = ServerServiceDefinition.builder("google.cloud.speech.v1.Speech")
+                .addMethod(STREAMING_RECOGNIZE, ServerCalls.asyncBidiStreamingCall(this::stream))
+                .build();
+        server = NettyServerBuilder.forPort(0)
+                .maxConcurrentCallsPerConnection(maxStreamsPerConnection)
+                .addService(service)
+                .build()
+                .start();
+    }
+
+    String endpoint() {
+        return "localhost:" + server.getPort();
+    }
+
+    int peakStreams() {
+        return peakStreams.get();
+    }
+
+    private StreamObserver<StreamingRecognizeRequest> stream(StreamObserver<StreamingRecognizeResponse> responses) {
+        long startedAt = System.nanoTime();
+        peakStreams.accumulateAndGet(activeStreams.incrementAndGet(), Math::max);
+        AtomicInteger frames = new AtomicInteger();
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(StreamingRecognizeRequest request) {
+                if (request.hasAudioContent()) {
+                    frames.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                activeStreams.decrementAndGet();
+            }
+
+            @Override
+            public void onCompleted() {
+                long remaining = holdTime.toNanos() - (System.nanoTime() - startedAt);
+                scheduler.schedule(() -> {
+                    activeStreams.decrementAndGet();
+                    responses.onNext(StreamingRecognizeResponse.newBuilder()
+                            .addResults(StreamingRecognitionResult.newBuilder()
+                                    .setIsFinal(true)
+                                    .addAlternatives(SpeechRecognitionAlternative.newBuilder()
+                                            .setTranscript("frames " + frames.get())))
+                            .build());
+                    responses.onCompleted();
+                }, Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        scheduler.shutdownNow();
+    }
+}
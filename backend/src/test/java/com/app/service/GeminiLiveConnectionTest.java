@@ -0,0 +1,146 @@
+package com.app.service;
+
+import com.app.model.TranscriptionResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiLiveConnectionTest {
+
+    private static final String SETUP = "{\"setup\":{}}";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private GeminiLiveConnection connection;
+
+    @AfterEach
+    void closeConnection() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /** No jitter, so the backoff delays are exactly 100 ms, 200 ms, 400 ms, ... */
+    private GeminiLiveConnection connection(FakeGeminiLiveServer server) {
+        connection = new GeminiLiveConnection(new ReactorNettyWebSocketClient(), server.uri(), SETUP,
+                new GeminiLiveConnection.Settings(1, Duration.ofMillis(40), Duration.ofMillis(100),
+                        Duration.ofSeconds(5), 0.0, 64 * 1024, 256));
+        return connection;
+    }
+
+    private static byte[] chunk(int value) {
+        byte[] chunk = new byte[640];
+        Arrays.fill(chunk, (byte) value);
+        return chunk;
+    }
+
+    /** The PCM carried by a realtime_input frame. */
+    private static byte[] audio(String frame) throws Exception {
+        ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+        for (JsonNode chunk : MAPPER.readTree(frame).path("realtime_input").path("media_chunks")) {
+            pcm.write(Base64.getDecoder().decode(chunk.path("data").asText()));
+        }
+        return pcm.toByteArray();
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting until " + description);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void backsOffAndCountsReconnectOnlyOnceSetupCompletes() throws InterruptedException {
+        try (FakeGeminiLiveServer server = new FakeGeminiLiveServer((number, received) -> switch (number) {
+            // Drops right after setup, then refuses setup once, then completes it late and stays up
+            case 0 -> Flux.just(FakeGeminiLiveServer.SETUP_COMPLETE);
+            case 1 -> Flux.empty();
+            default -> Mono.delay(Duration.ofMillis(300))
+                    .thenMany(Flux.just(FakeGeminiLiveServer.SETUP_COMPLETE))
+                    .concatWith(Flux.never());
+        })) {
+            GeminiLiveConnection connection = connection(server);
+            connection.start();
+
+            await(() -> server.acceptedAtNanos().size() == 3, "the third connection is accepted");
+            await(() -> connection.state() == GeminiLiveConnection.State.CONNECTED, "the socket is up");
+            // Connected but not set up yet: two failed attempts, no recovery
+            GeminiLiveConnection.Status beforeSetup = connection.status();
+            assertEquals(0, beforeSetup.reconnects());
+            assertEquals(2, beforeSetup.failedAttempts());
+
+            await(() -> connection.status().reconnects() == 1, "the reconnect is counted");
+            assertEquals(0, connection.status().failedAttempts());
+
+            List<Long> accepted = server.acceptedAtNanos();
+            long firstDelayMs = TimeUnit.NANOSECONDS.toMillis(accepted.get(1) - accepted.get(0));
+            long secondDelayMs = TimeUnit.NANOSECONDS.toMillis(accepted.get(2) - accepted.get(1));
+            assertTrue(firstDelayMs >= 100 && firstDelayMs < 2000, "first reconnect after " + firstDelayMs + " ms");
+            assertTrue(secondDelayMs >= 200 && secondDelayMs < 2000, "second reconnect after " + secondDelayMs + " ms");
+            assertEquals(1, connection.status().reconnects());
+        }
+    }
+
+    @Test
+    void replaysOnlyTheOpenTurnAfterDrop() throws Exception {
+        try (FakeGeminiLiveServer server = new FakeGeminiLiveServer((number, received) -> number > 0
+                ? received.index()
+                        .concatMap(frame -> frame.getT1() == 0
+                                ? Flux.just(FakeGeminiLiveServer.SETUP_COMPLETE)
+                                : Flux.<String>empty())
+                : received.index()
+                        // Frame 3 is the first chunk of the next turn; the connection drops on it
+                        .takeUntil(frame -> frame.getT1() == 3)
+                        .concatMap(frame -> switch (frame.getT1().intValue()) {
+                            case 0 -> Flux.just(FakeGeminiLiveServer.SETUP_COMPLETE);
+                            case 2 -> Flux.just(
+                                    FakeGeminiLiveServer.inputTranscription("first turn"),
+                                    FakeGeminiLiveServer.modelText("Noted."),
+                                    FakeGeminiLiveServer.TURN_COMPLETE);
+                            default -> Flux.<String>empty();
+                        }))) {
+            GeminiLiveConnection connection = connection(server);
+            CompletableFuture<TranscriptionResult> firstTurn = connection.transcriptions()
+                    .filter(TranscriptionResult::isFinal)
+                    .next()
+                    .toFuture();
+            connection.start();
+
+            connection.send(chunk(1));
+            connection.send(chunk(1));
+            assertEquals("first turn", firstTurn.get(10, TimeUnit.SECONDS).text());
+            // Audio sent before the first socket was up counts as replayed too
+            long replayedBefore = connection.status().replayedBytes();
+            connection.send(chunk(2));
+
+            await(() -> server.received().size() == 2 && server.received().get(1).size() >= 2,
+                    "the open turn is replayed");
+            // Give a wrongly replayed completed turn time to arrive
+            Thread.sleep(200);
+            List<String> replayed = server.received().get(1);
+            assertEquals(2, replayed.size(), "frames after reconnect: " + replayed.size());
+            assertEquals(SETUP, replayed.get(0));
+            assertArrayEquals(chunk(2), audio(replayed.get(1)));
+            assertEquals(640, connection.status().replayedBytes() - replayedBefore);
+            assertEquals(1, connection.status().reconnects());
+        }
+    }
+}
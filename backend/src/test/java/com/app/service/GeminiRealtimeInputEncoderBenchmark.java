@@ -0,0 +1,87 @@
+package com.app.service;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput and heap allocation per audio message: {@link GeminiRealtimeInputEncoder} against the previous
+ * Base64 string, Map and ObjectMapper encoding, both ending in a buffer of the WebSocket session's pooled factory.
+ * Chunks are 100 ms of 16 kHz 16-bit PCM. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class GeminiRealtimeInputEncoderBenchmark {
+
+    private static final int CHUNK_BYTES = 3200;
+    private static final int MESSAGES = 200_000;
+    private static final int ROUNDS = 3;
+
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Encoding {
+        DataBuffer encode(List<byte[]> chunks) throws Exception;
+    }
+
+    @Test
+    void encoderAgainstObjectMapper() throws Exception {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        new Random(1).nextBytes(chunk);
+        List<byte[]> chunks = List.of(chunk);
+        GeminiRealtimeInputEncoder encoder = new GeminiRealtimeInputEncoder();
+        // What WebSocketSession.textMessage did with the serialized string
+        Encoding objectMapper = batch -> factory.wrap(GeminiRealtimeInputEncoderTest.objectMapperMessage(batch)
+                .getBytes(StandardCharsets.UTF_8));
+        Encoding streamed = batch -> encoder.encode(factory, batch);
+
+        double[] old = {0, 0};
+        double[] current = {0, 0};
+        for (int round = 0; round < ROUNDS; round++) {
+            // The first round is warm-up; later rounds keep the best result
+            double[] o = run(objectMapper, chunks);
+            double[] c = run(streamed, chunks);
+            if (round > 0) {
+                old = best(old, o);
+                current = best(current, c);
+            }
+        }
+        log.info("{}-byte chunks: ObjectMapper {} messages/s, {} bytes allocated per message; "
+                        + "encoder {} messages/s, {} bytes allocated per message",
+                CHUNK_BYTES, Math.round(old[0]), Math.round(old[1]), Math.round(current[0]), Math.round(current[1]));
+        assertTrue(current[1] < old[1]);
+    }
+
+    /** @return messages per second and heap bytes allocated per message */
+    private double[] run(Encoding encoding, List<byte[]> chunks) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            DataBuffer buffer = encoding.encode(chunks);
+            checksum += buffer.readableByteCount();
+            DataBufferUtils.release(buffer);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(checksum > 0);
+        return new double[]{MESSAGES / seconds, (double) allocated / MESSAGES};
+    }
+
+    private static double[] best(double[] a, double[] b) {
+        return a[0] == 0 ? b : new double[]{Math.max(a[0], b[0]), Math.min(a[1], b[1])};
+    }
+}
@@ -0,0 +1,96 @@
+package com.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GeminiRealtimeInputEncoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Every length mod 3, short and around the 3072-byte slice boundaries
+    private static final int[] LENGTHS = {0, 1, 2, 3, 4, 5, 6, 7, 8, 320, 641, 3070, 3071, 3072, 3073, 3074, 6143,
+            6144, 6145, 6146, 10_000};
+
+    private static byte[] random(int length, long seed) {
+        byte[] chunk = new byte[length];
+        new Random(seed).nextBytes(chunk);
+        return chunk;
+    }
+
+    /**
+     * The message as it was built before the encoder: maps serialized by Jackson. The key order is pinned to the
+     * encoder's; the old Map.of gave no order at all.
+     */
+    static String objectMapperMessage(List<byte[]> chunks) throws Exception {
+        List<Map<String, String>> mediaChunks = chunks.stream()
+                .map(chunk -> {
+                    Map<String, String> mediaChunk = new LinkedHashMap<>();
+                    mediaChunk.put("mime_type", "audio/pcm");
+                    mediaChunk.put("data", Base64.getEncoder().encodeToString(chunk));
+                    return mediaChunk;
+                })
+                .toList();
+        return MAPPER.writeValueAsString(Map.of("realtime_input", Map.of("media_chunks", mediaChunks)));
+    }
+
+    private static String encode(List<byte[]> chunks) {
+        DataBuffer buffer = new GeminiRealtimeInputEncoder().encode(DefaultDataBufferFactory.sharedInstance, chunks);
+        try {
+            assertEquals(GeminiRealtimeInputEncoder.encodedSize(chunks), buffer.readableByteCount());
+            return buffer.toString(StandardCharsets.US_ASCII);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    @Test
+    void base64MatchesJdkEncoderForEveryLengthModThree() throws Exception {
+        for (int length : LENGTHS) {
+            byte[] chunk = random(length, length);
+            String data = MAPPER.readTree(encode(List.of(chunk)))
+                    .path("realtime_input").path("media_chunks").path(0).path("data").asText();
+            assertEquals(Base64.getEncoder().encodeToString(chunk), data, "length " + length);
+        }
+    }
+
+    @Test
+    void bytesMatchObjectMapperEncoding() throws Exception {
+        for (int length : LENGTHS) {
+            List<byte[]> single = List.of(random(length, length));
+            assertEquals(objectMapperMessage(single), encode(single), "length " + length);
+        }
+        List<byte[]> batch = IntStream.range(0, LENGTHS.length)
+                .mapToObj(i -> random(LENGTHS[i], 1000 + i))
+                .toList();
+        assertEquals(objectMapperMessage(batch), encode(batch));
+    }
+
+    @Test
+    void reusesScratchAcrossMessages() {
+        GeminiRealtimeInputEncoder encoder = new GeminiRealtimeInputEncoder();
+        for (int length : new int[]{6145, 2, 3072, 1}) {
+            byte[] chunk = random(length, length);
+            DataBuffer buffer = encoder.encode(DefaultDataBufferFactory.sharedInstance, chunk);
+            try {
+                String message = buffer.toString(StandardCharsets.US_ASCII);
+                assertEquals(Base64.getEncoder().encodeToString(chunk),
+                        message.substring(message.lastIndexOf(":\"") + 2, message.indexOf("\"}")), "length " + length);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+}
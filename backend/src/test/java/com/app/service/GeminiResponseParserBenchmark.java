@@ -0,0 +1,118 @@
+package com.app.service;
+
+import com.app.model.GeminiReply;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parse throughput and heap allocation per generateContent response: {@link GeminiResponseParser} on the streamed
+ * buffers against the previous path of joining them into a String and reading a JsonNode tree. The response is a
+ * typical few-KB reply arriving in 1 KB network buffers. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class GeminiResponseParserBenchmark {
+
+    private static final int RESPONSES = 100_000;
+    private static final int ROUNDS = 3;
+    private static final int NETWORK_BUFFER = 1024;
+
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void streamedParserAgainstTree() {
+        String text = "Here is a summary of the meeting. ".repeat(80);
+        byte[] body = GeminiResponseParserTest.REPLY.replace(GeminiResponseParserTest.TEXT, text)
+                .getBytes(StandardCharsets.UTF_8);
+        Function<List<DataBuffer>, String> tree = buffers -> {
+            // What bodyToMono(String.class) and readTree did
+            byte[] joined = new byte[body.length];
+            int offset = 0;
+            for (DataBuffer buffer : buffers) {
+                int length = buffer.readableByteCount();
+                buffer.read(joined, offset, length);
+                offset += length;
+                DataBufferUtils.release(buffer);
+            }
+            try {
+                JsonNode root = objectMapper.readTree(new String(joined, StandardCharsets.UTF_8));
+                return root.path("candidates").get(0).path("content").path("parts").get(0).path("text").asText();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Function<List<DataBuffer>, String> streamed = buffers -> {
+            GeminiReply reply = GeminiResponseParser.reply(Flux.fromIterable(buffers), Integer.MAX_VALUE).block();
+            return reply.text();
+        };
+        assertEquals(text, tree.apply(buffers(body)));
+        assertEquals(text, streamed.apply(buffers(body)));
+
+        double[] old = {0, 0};
+        double[] current = {0, 0};
+        for (int round = 0; round < ROUNDS; round++) {
+            // The first round is warm-up; later rounds keep the best result
+            double[] o = run(tree, body);
+            double[] c = run(streamed, body);
+            if (round > 0) {
+                old = best(old, o);
+                current = best(current, c);
+            }
+        }
+        log.info("{}-byte responses: String + JsonNode {} responses/s, {} bytes allocated per response; "
+                        + "streamed {} responses/s, {} bytes allocated per response",
+                body.length, Math.round(old[0]), Math.round(old[1]), Math.round(current[0]), Math.round(current[1]));
+        assertTrue(current[1] < old[1]);
+    }
+
+    private List<DataBuffer> buffers(byte[] body) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < body.length; offset += NETWORK_BUFFER) {
+            int end = Math.min(body.length, offset + NETWORK_BUFFER);
+            DataBuffer buffer = factory.allocateBuffer(end - offset);
+            buffer.write(body, offset, end - offset);
+            buffers.add(buffer);
+        }
+        return buffers;
+    }
+
+    /** @return responses per second and heap bytes allocated per response, buffer setup included in both */
+    private double[] run(Function<List<DataBuffer>, String> parse, byte[] body) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < RESPONSES; i++) {
+            checksum += parse.apply(buffers(body)).length();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(checksum > 0);
+        return new double[]{RESPONSES / seconds, (double) allocated / RESPONSES};
+    }
+
+    private static double[] best(double[] a, double[] b) {
+        return a[0] == 0 ? b : new double[]{Math.max(a[0], b[0]), Math.min(a[1], b[1])};
+    }
+}
@@ -0,0 +1,127 @@
+package com.app.service;
+
+import com.app.model.GeminiLiveMessage;
+import com.app.model.GeminiReply;
+import com.app.model.GeminiUsage;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GeminiResponseParserTest {
+
+    private static final int MAX_BYTES = 262_144;
+
+    // Raw UTF-8 of two, three and four bytes, then the same characters as JSON escapes, plus quote and newline escapes
+    static final String TEXT = "Caf\u00e9 \u2014 \ud83d\ude00 / Caf\\u00e9 \\u2014 \\ud83d\\ude00 \\\"quoted\\\"\\n\\\\";
+    static final String REPLY = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + TEXT + "\"}],"
+            + "\"role\":\"model\"},\"finishReason\":\"STOP\",\"safetyRatings\":[{\"category\":"
+            + "\"HARM_CATEGORY_HATE_SPEECH\",\"probability\":\"NEGLIGIBLE\"}]}],\"usageMetadata\":"
+            + "{\"promptTokenCount\":12,\"candidatesTokenCount\":34,\"totalTokenCount\":46},"
+            + "\"modelVersion\":\"gemini-flash-latest\"}";
+    private static final GeminiReply EXPECTED = new GeminiReply(
+            "Caf\u00e9 \u2014 \ud83d\ude00 / Caf\u00e9 \u2014 \ud83d\ude00 \"quoted\"\n\\", true, "STOP",
+            new GeminiUsage(12, 34, 46));
+
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+    /** The bytes as buffers split at {@code cuts}. */
+    private List<DataBuffer> buffers(byte[] bytes, int... cuts) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        int start = 0;
+        for (int cut : cuts) {
+            buffers.add(factory.wrap(Arrays.copyOfRange(bytes, start, cut)));
+            start = cut;
+        }
+        buffers.add(factory.wrap(Arrays.copyOfRange(bytes, start, bytes.length)));
+        return buffers;
+    }
+
+    private static GeminiReply parse(List<DataBuffer> buffers, int maxBytes) {
+        return GeminiResponseParser.reply(Flux.fromIterable(buffers), maxBytes).block(Duration.ofSeconds(5));
+    }
+
+    private GeminiReply parse(String json) {
+        return parse(buffers(json.getBytes(StandardCharsets.UTF_8)), MAX_BYTES);
+    }
+
+    @Test
+    void replySplitAtEveryByteParsesTheSame() {
+        byte[] bytes = REPLY.getBytes(StandardCharsets.UTF_8);
+        // Covers cuts inside every multi-byte UTF-8 sequence and every escape
+        for (int cut = 1; cut < bytes.length; cut++) {
+            List<DataBuffer> buffers = buffers(bytes, cut);
+            assertEquals(EXPECTED, parse(buffers, MAX_BYTES), "cut at byte " + cut);
+            for (DataBuffer buffer : buffers) {
+                assertEquals(0, refCnt(buffer), "buffer not released");
+            }
+        }
+    }
+
+    @Test
+    void replyOneByteAtATime() {
+        byte[] bytes = REPLY.getBytes(StandardCharsets.UTF_8);
+        int[] cuts = new int[bytes.length - 1];
+        Arrays.setAll(cuts, i -> i + 1);
+        assertEquals(EXPECTED, parse(buffers(bytes, cuts), MAX_BYTES));
+    }
+
+    @Test
+    void responseWithoutCandidates() {
+        GeminiReply blocked = parse("{\"promptFeedback\":{\"blockReason\":\"SAFETY\"},"
+                + "\"usageMetadata\":{\"promptTokenCount\":9,\"totalTokenCount\":9}}");
+        assertEquals(new GeminiReply(null, false, null, new GeminiUsage(9, 0, 9)), blocked);
+
+        assertEquals(new GeminiReply(null, false, null, null), parse("{\"candidates\":[]}"));
+    }
+
+    @Test
+    void candidateWithoutText() {
+        GeminiReply reply = parse("{\"candidates\":[{\"finishReason\":\"SAFETY\",\"index\":0}]}");
+        assertEquals(new GeminiReply(null, true, "SAFETY", null), reply);
+    }
+
+    @Test
+    void bodyOverTheLimitFailsAndReleasesWhatItRead() {
+        byte[] bytes = REPLY.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = buffers(bytes, 100, 200);
+        assertThrows(DataBufferLimitException.class, () -> parse(buffers, 150));
+        assertEquals(0, refCnt(buffers.get(0)));
+        assertEquals(0, refCnt(buffers.get(1)));
+
+        assertEquals(EXPECTED, parse(buffers(bytes, 100, 200), bytes.length));
+    }
+
+    @Test
+    void malformedReplyFails() {
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"candidates\":[{\"content\":}]}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"candidates\":["));
+    }
+
+    @Test
+    void liveMessageFields() throws Exception {
+        String json = "{\"serverContent\":{\"modelTurn\":{\"parts\":[{\"text\":\"One\"},{\"inlineData\":{}},"
+                + "{\"text\":\"Two \\u00e9\"}]},\"inputTranscription\":{\"text\":\"hello\"},\"turnComplete\":true},"
+                + "\"usageMetadata\":{\"promptTokenCount\":1,\"responseTokenCount\":2,\"totalTokenCount\":3}}";
+        GeminiLiveMessage message = GeminiResponseParser.liveMessage(
+                factory.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(new GeminiLiveMessage(false, List.of("One", "Two \u00e9"), "hello", true,
+                new GeminiUsage(1, 2, 3)), message);
+    }
+
+    private static int refCnt(DataBuffer buffer) {
+        return ((NettyDataBuffer) buffer).getNativeBuffer().refCnt();
+    }
+}
@@ -0,0 +1,59 @@
+package com.app.service;
+
+import com.app.model.TranscriptionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiTranscriptionServiceTest {
+
+    /** A service configured like application.properties, pointed at {@code server}. */
+    static GeminiTranscriptionService service(FakeGeminiLiveServer server) {
+        GeminiTranscriptionService service = new GeminiTranscriptionService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "liveUrl", server.uri().toString());
+        ReflectionTestUtils.setField(service, "batchMaxChunks", 1);
+        ReflectionTestUtils.setField(service, "batchMaxDelayMs", 40L);
+        ReflectionTestUtils.setField(service, "initialBackoffMs", 100L);
+        ReflectionTestUtils.setField(service, "maxBackoffMs", 5000L);
+        ReflectionTestUtils.setField(service, "backoffJitter", 0.5);
+        ReflectionTestUtils.setField(service, "replayBufferMs", 2000);
+        ReflectionTestUtils.setField(service, "maxQueuedChunks", 256);
+        ReflectionTestUtils.setField(service, "drainMs", 500L);
+        return service;
+    }
+
+    @Test
+    void emitsInputTranscriptionAndIgnoresModelReplies() {
+        try (FakeGeminiLiveServer server = new FakeGeminiLiveServer((connection, received) -> received
+                .index()
+                .concatMap(frame -> switch (frame.getT1().intValue()) {
+                    case 0 -> Flux.just(FakeGeminiLiveServer.SETUP_COMPLETE);
+                    case 2 -> Flux.just(
+                            FakeGeminiLiveServer.inputTranscription("Deploy the"),
+                            FakeGeminiLiveServer.modelText("Sure, deploying now."),
+                            FakeGeminiLiveServer.inputTranscription(" service"),
+                            FakeGeminiLiveServer.TURN_COMPLETE);
+                    default -> Flux.empty();
+                }))) {
+            List<TranscriptionResult> results = service(server)
+                    .transcribe(Flux.just(new byte[640], new byte[640], new byte[640]), "default")
+                    .collectList()
+                    .block(Duration.ofSeconds(10));
+
+            assertEquals(List.of(
+                    new TranscriptionResult("Deploy the", false, "user"),
+                    new TranscriptionResult("Deploy the service", false, "user"),
+                    new TranscriptionResult("Deploy the service", true, "user")), results);
+            String setup = server.received().get(0).get(0);
+            assertTrue(setup.contains("\"input_audio_transcription\""), setup);
+        }
+    }
+}
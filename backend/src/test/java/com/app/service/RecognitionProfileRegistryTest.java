@@ -0,0 +1,75 @@
+package com.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecognitionProfileRegistryTest {
+
+    private static final String PROFILES =
+            "{\"default\":{\"languageCode\":\"en-IN\"},\"en-us\":{\"languageCode\":\"en-US\"}}";
+
+    @TempDir
+    Path dir;
+
+    private RecognitionProfileRegistry registry;
+
+    @AfterEach
+    void stop() {
+        if (registry != null) {
+            registry.cleanup();
+        }
+    }
+
+    private RecognitionProfileRegistry registry(String location) throws Exception {
+        registry = new RecognitionProfileRegistry(new DefaultResourceLoader(), new ObjectMapper());
+        ReflectionTestUtils.setField(registry, "location", location);
+        ReflectionTestUtils.setField(registry, "reloadIntervalMs", 50L);
+        registry.init();
+        return registry;
+    }
+
+    private void awaitProfiles(Set<String> expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!registry.profileNames().equals(expected)) {
+            assertTrue(System.nanoTime() < deadline, "profiles are still " + registry.profileNames());
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void fileLocationIsReloadedOnChange() throws Exception {
+        Path file = Files.writeString(dir.resolve("recognition-profiles.json"), PROFILES);
+        RecognitionProfileRegistry registry = registry("file:" + file);
+        assertEquals(Set.of("default", "en-us"), registry.profileNames());
+
+        Files.writeString(file, "{\"default\":{},\"medical\":{\"languageCode\":\"en-GB\"}}");
+        // Some file systems keep whole-second modification times
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        awaitProfiles(Set.of("default", "medical"));
+        assertEquals("en-GB", registry.configRequest("medical").getStreamingConfig().getConfig().getLanguageCode());
+    }
+
+    @Test
+    void brokenFileKeepsPreviousProfiles() throws Exception {
+        Path file = Files.writeString(dir.resolve("recognition-profiles.json"), PROFILES);
+        RecognitionProfileRegistry registry = registry("file:" + file);
+
+        Files.writeString(file, "{\"en-us\":{}}");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        Thread.sleep(300);
+        assertEquals(Set.of("default", "en-us"), registry.profileNames());
+    }
+}
@@ -0,0 +1,67 @@
+package com.app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stream throughput of one channel vs. a pool of channels against a server that, like the Speech API, caps
+ * concurrent streams per connection. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class SpeechClientPoolBenchmark {
+
+    private static final int STREAMS_PER_CONNECTION = 16;
+    private static final Duration STREAM_DURATION = Duration.ofMillis(200);
+    private static final int CONCURRENT_STREAMS = 128;
+    private static final int FRAMES_PER_STREAM = 50;
+    private static final int FRAME_BYTES = 3200;
+
+    @Test
+    void poolOfChannelsOutrunsOneChannel() throws Exception {
+        try (FakeSpeechServer server = new FakeSpeechServer(STREAMS_PER_CONNECTION, STREAM_DURATION)) {
+            double single = streamsPerSecond(server, 1);
+            double pooled = streamsPerSecond(server, 8);
+            log.info("{} concurrent streams, {} per connection: 1 channel {} streams/s, 8 channels {} streams/s",
+                    CONCURRENT_STREAMS, STREAMS_PER_CONNECTION, Math.round(single), Math.round(pooled));
+            assertTrue(pooled > single * 2, "pooled " + pooled + " vs single " + single);
+        }
+    }
+
+    private double streamsPerSecond(FakeSpeechServer server, int channels) throws Exception {
+        try (SpeechClientPool pool = SpeechClientPool.create(
+                SpeechClientPoolTest.settings(channels, server.endpoint()), new SimpleMeterRegistry())) {
+            pool.connect().get(10, TimeUnit.SECONDS);
+            // Warm up the channels and the JIT before measuring
+            runStreams(pool, STREAMS_PER_CONNECTION);
+            long start = System.nanoTime();
+            runStreams(pool, CONCURRENT_STREAMS);
+            return CONCURRENT_STREAMS / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static void runStreams(SpeechClientPool pool, int count) throws Exception {
+        List<CompletableFuture<String>> transcripts = new ArrayList<>();
+        List<SpeechClientPool.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SpeechClientPool.Lease lease = pool.acquire();
+            leases.add(lease);
+            transcripts.add(SpeechStreams.recognize(lease.client(), FRAMES_PER_STREAM, FRAME_BYTES));
+        }
+        for (CompletableFuture<String> transcript : transcripts) {
+            assertEquals("frames " + FRAMES_PER_STREAM, transcript.get(60, TimeUnit.SECONDS));
+        }
+        leases.forEach(SpeechClientPool.Lease::release);
+    }
+}
@@ -0,0 +1,100 @@
+package com.app.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpeechClientPoolTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FakeSpeechServer server;
+    private SpeechClientPool pool;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new FakeSpeechServer(100, Duration.ZERO);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (pool != null) {
+            pool.close();
+        }
+        server.close();
+    }
+
+    static SpeechClientPool.Settings settings(int channels, String endpoint) {
+        return new SpeechClientPool.Settings(channels, 0, Duration.ofMinutes(1), Duration.ofSeconds(20), false,
+                16 * 1024 * 1024, 1024 * 1024, endpoint, true);
+    }
+
+    @Test
+    void connectCompletesOnceEveryChannelIsReady() throws Exception {
+        pool = SpeechClientPool.create(settings(3, server.endpoint()), meterRegistry);
+        assertFalse(pool.isConnected());
+
+        pool.connect().get(10, TimeUnit.SECONDS);
+
+        assertTrue(pool.isConnected());
+    }
+
+    @Test
+    void connectFailsWhenNothingListens() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        pool = SpeechClientPool.create(settings(1, "localhost:" + port), meterRegistry);
+
+        assertThrows(ExecutionException.class, () -> pool.connect().get(10, TimeUnit.SECONDS));
+        assertFalse(pool.isConnected());
+    }
+
+    @Test
+    void streamsGoToTheLeastLoadedChannel() throws Exception {
+        pool = SpeechClientPool.create(settings(2, server.endpoint()), meterRegistry);
+        List<SpeechClientPool.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            leases.add(pool.acquire());
+        }
+        assertEquals(2, channelStreams("0"));
+        assertEquals(2, channelStreams("1"));
+
+        leases.get(0).release();
+        leases.get(0).release();
+        SpeechClientPool.Lease next = pool.acquire();
+
+        assertEquals(2, channelStreams("0"));
+        assertEquals(2, channelStreams("1"));
+        assertEquals("frames 5", SpeechStreams.recognize(next.client(), 5, 640).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void closeRemovesChannelGauges() throws Exception {
+        pool = SpeechClientPool.create(settings(2, server.endpoint()), meterRegistry);
+        pool.close();
+
+        assertTrue(pool.isShutdown());
+        assertTrue(meterRegistry.find("stt.grpc.channel.streams").gauges().isEmpty());
+        pool = null;
+    }
+
+    private int channelStreams(String channel) {
+        return (int) meterRegistry.get("stt.grpc.channel.streams").tag("channel", channel).gauge().value();
+    }
+}
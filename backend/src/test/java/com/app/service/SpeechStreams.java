@@ -0,0 +1,61 @@
+package com.app.service;
+
+import com.google.api.gax.rpc.ClientStream;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.api.gax.rpc.StreamController;
+import com.google.cloud.speech.v1.RecognitionConfig;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.speech.v1.StreamingRecognitionConfig;
+import com.google.cloud.speech.v1.StreamingRecognizeRequest;
+import com.google.cloud.speech.v1.StreamingRecognizeResponse;
+import com.google.protobuf.ByteString;
+
+import java.util.concurrent.CompletableFuture;
+
+/** Runs one StreamingRecognize call directly on a client, for tests against {@link FakeSpeechServer}. */
+final class SpeechStreams {
+
+    private static final StreamingRecognizeRequest CONFIG = StreamingRecognizeRequest.newBuilder()
+            .setStreamingConfig(StreamingRecognitionConfig.newBuilder()
+                    .setConfig(RecognitionConfig.newBuilder()
+                            .setEncoding(RecognitionConfig.AudioEncoding.LINEAR16)
+                            .setSampleRateHertz(16000)
+                            .setLanguageCode("en-US")))
+            .build();
+
+    private SpeechStreams() {
+    }
+
+    /** Sends the config and {@code frames} audio frames, then completes with the final transcript. */
+    static CompletableFuture<String> recognize(SpeechClient client, int frames, int frameBytes) {
+        CompletableFuture<String> transcript = new CompletableFuture<>();
+        ClientStream<StreamingRecognizeRequest> stream = client.streamingRecognizeCallable()
+                .splitCall(new ResponseObserver<>() {
+                    @Override
+                    public void onStart(StreamController controller) {
+                    }
+
+                    @Override
+                    public void onResponse(StreamingRecognizeResponse response) {
+                        transcript.complete(response.getResults(0).getAlternatives(0).getTranscript());
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        transcript.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        transcript.complete(null);
+                    }
+                });
+        stream.send(CONFIG);
+        ByteString audio = ByteString.copyFrom(new byte[frameBytes]);
+        for (int i = 0; i < frames; i++) {
+            stream.send(StreamingRecognizeRequest.newBuilder().setAudioContent(audio).build());
+        }
+        stream.closeSend();
+        return transcript;
+    }
+}
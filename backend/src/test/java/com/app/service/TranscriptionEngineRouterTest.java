@@ -0,0 +1,190 @@
+package com.app.service;
+
+import com.app.model.TranscriptionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranscriptionEngineRouterTest {
+
+    private static final int FRAMES = 5;
+
+    private final List<TranscriptionEngineRouter> routers = new ArrayList<>();
+
+    @AfterEach
+    void stopRouters() {
+        routers.forEach(TranscriptionEngineRouter::cleanup);
+    }
+
+    /** An engine whose results are a function of the audio it is given; answers carry the frame count. */
+    private static final class StubEngine implements TranscriptionEngine {
+        private final String name;
+        private final Function<Flux<byte[]>, Flux<TranscriptionResult>> behaviour;
+        private final AtomicInteger streams = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        StubEngine(String name, Function<Flux<byte[]>, Flux<TranscriptionResult>> behaviour) {
+            this.name = name;
+            this.behaviour = behaviour;
+        }
+
+        static StubEngine answering(String name, Duration after) {
+            return new StubEngine(name, audio -> audio.count()
+                    .delayElement(after)
+                    .map(frames -> new TranscriptionResult(name + " heard " + frames + " frames", true))
+                    .flux());
+        }
+
+        static StubEngine failing(String name, Duration after) {
+            return new StubEngine(name, audio -> audio.then(Mono.delay(after))
+                    .then(Mono.<TranscriptionResult>error(new IllegalStateException(name + " is down")))
+                    .flux());
+        }
+
+        static StubEngine silent(String name) {
+            return new StubEngine(name, audio -> audio.thenMany(Flux.empty()));
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Flux<TranscriptionResult> transcribe(Flux<byte[]> audio, String profile) {
+            return Flux.defer(() -> {
+                streams.incrementAndGet();
+                return behaviour.apply(audio);
+            }).doOnCancel(() -> cancelled.set(true));
+        }
+    }
+
+    private TranscriptionEngineRouter router(boolean hedge, Duration deadline, TranscriptionEngine... engines) {
+        TranscriptionEngineRouter router = new TranscriptionEngineRouter(List.of(engines), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(router, "enabledEngines",
+                List.of(engines).stream().map(TranscriptionEngine::name).toList());
+        ReflectionTestUtils.setField(router, "ewmaAlpha", 0.2);
+        ReflectionTestUtils.setField(router, "errorPenaltyMs", 5000L);
+        ReflectionTestUtils.setField(router, "initialLatencyMs", 800L);
+        ReflectionTestUtils.setField(router, "hedgeEnabled", hedge);
+        ReflectionTestUtils.setField(router, "hedgeDeadlineMs", deadline.toMillis());
+        ReflectionTestUtils.setField(router, "hedgeReplayFrames", 128);
+        ReflectionTestUtils.setField(router, "warmUpMaxBackoffMs", 30000L);
+        router.init();
+        routers.add(router);
+        return router;
+    }
+
+    private static List<String> transcribe(TranscriptionEngineRouter router) {
+        Flux<byte[]> audio = Flux.range(0, FRAMES).map(i -> new byte[320]);
+        return router.transcribe(router.select(), "default", audio)
+                .map(TranscriptionResult::text)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void primaryAnsweringBeforeDeadlineNeverStartsHedge() throws InterruptedException {
+        StubEngine primary = StubEngine.answering("primary", Duration.ofMillis(20));
+        StubEngine hedge = StubEngine.answering("hedge", Duration.ZERO);
+        TranscriptionEngineRouter router = router(true, Duration.ofMillis(300), primary, hedge);
+
+        assertEquals(List.of("primary heard 5 frames"), transcribe(router));
+        Thread.sleep(500);
+        assertEquals(0, hedge.streams.get());
+    }
+
+    @Test
+    void hedgeStartsAtDeadlineWithReplayedAudioAndCancelsSlowPrimary() {
+        StubEngine primary = StubEngine.answering("primary", Duration.ofSeconds(5));
+        StubEngine hedge = StubEngine.answering("hedge", Duration.ofMillis(20));
+        TranscriptionEngineRouter router = router(true, Duration.ofMillis(200), primary, hedge);
+
+        long start = System.nanoTime();
+        // The hedge subscribes after the primary consumed the audio and still gets every frame
+        assertEquals(List.of("hedge heard 5 frames"), transcribe(router));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs >= 200 && elapsedMs < 2000, "took " + elapsedMs + " ms");
+        assertTrue(primary.cancelled.get());
+    }
+
+    @Test
+    void primaryFailingBeforeFirstResultStartsHedgeImmediately() {
+        StubEngine primary = StubEngine.failing("primary", Duration.ofMillis(10));
+        StubEngine hedge = StubEngine.answering("hedge", Duration.ofMillis(10));
+        TranscriptionEngineRouter router = router(true, Duration.ofSeconds(5), primary, hedge);
+
+        long start = System.nanoTime();
+        assertEquals(List.of("hedge heard 5 frames"), transcribe(router));
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos(), "waited for the hedge deadline");
+        assertEquals(1, hedge.streams.get());
+    }
+
+    @Test
+    void bothEnginesFailingReportsBothErrors() {
+        StubEngine primary = StubEngine.failing("primary", Duration.ofMillis(10));
+        StubEngine hedge = StubEngine.failing("hedge", Duration.ofMillis(10));
+        TranscriptionEngineRouter router = router(true, Duration.ofSeconds(5), primary, hedge);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> transcribe(router));
+        assertEquals("primary is down", error.getMessage());
+        // block() adds the caller's stack trace as another suppressed exception
+        assertTrue(Arrays.stream(error.getSuppressed()).anyMatch(e -> "hedge is down".equals(e.getMessage())));
+    }
+
+    @Test
+    void silenceCompletesEmptyWithoutHedging() throws InterruptedException {
+        StubEngine primary = StubEngine.silent("primary");
+        StubEngine hedge = StubEngine.answering("hedge", Duration.ZERO);
+        TranscriptionEngineRouter router = router(true, Duration.ofMillis(200), primary, hedge);
+
+        long start = System.nanoTime();
+        assertEquals(List.of(), transcribe(router));
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(200).toNanos(), "waited for the hedge deadline");
+        Thread.sleep(400);
+        assertEquals(0, hedge.streams.get());
+    }
+
+    @Test
+    void failureAfterFirstResultIsPassedOn() {
+        StubEngine primary = new StubEngine("primary", audio -> Flux.concat(
+                Mono.just(new TranscriptionResult("partial", false)),
+                Mono.error(new IllegalStateException("primary dropped"))));
+        StubEngine hedge = StubEngine.answering("hedge", Duration.ZERO);
+        TranscriptionEngineRouter router = router(true, Duration.ofMillis(100), primary, hedge);
+
+        assertThrows(IllegalStateException.class, () -> transcribe(router));
+        assertEquals(0, hedge.streams.get());
+    }
+
+    @Test
+    void routesAwayFromFailingEngine() {
+        StubEngine flaky = StubEngine.failing("flaky", Duration.ZERO);
+        StubEngine steady = StubEngine.answering("steady", Duration.ZERO);
+        TranscriptionEngineRouter router = router(false, Duration.ofMillis(100), flaky, steady);
+
+        assertEquals("flaky", router.select().primary().name());
+        assertNull(router.select().hedge());
+        assertThrows(IllegalStateException.class, () -> transcribe(router));
+        // One failure adds alpha * penalty (1000 ms) to an 800 ms default, so the preferred engine drops behind
+        assertEquals("steady", router.select().primary().name());
+        assertFalse(steady.cancelled.get());
+    }
+}
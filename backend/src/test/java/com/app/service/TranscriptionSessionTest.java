@@ -0,0 +1,182 @@
+package com.app.service;
+
+import com.app.model.TranscriptDelta;
+import com.app.model.TranscriptionResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TranscriptionSessionTest {
+
+    private static final int FRAMES = 2000;
+    private static final int CONNECTIONS = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Sequence numbers of the frames each upstream stream received, one list per stream
+    private final List<List<Long>> streams = new CopyOnWriteArrayList<>();
+
+    /** An engine that records the frames it receives and completes when its audio does. */
+    private final TranscriptionEngine recorder = new TranscriptionEngine() {
+        @Override
+        public String name() {
+            return "recorder";
+        }
+
+        @Override
+        public Flux<TranscriptionResult> transcribe(Flux<byte[]> audio, String profile) {
+            List<Long> frames = new CopyOnWriteArrayList<>();
+            streams.add(frames);
+            return audio.doOnNext(frame -> frames.add(ByteBuffer.wrap(frame).getLong())).thenMany(Flux.empty());
+        }
+    };
+
+    private TranscriptionSession resumableSession() {
+        return resumableSession(Duration.ofSeconds(30));
+    }
+
+    private TranscriptionSession resumableSession(Duration gracePeriod) {
+        TranscriptionEngineRouter router = new TranscriptionEngineRouter(List.of(recorder), meterRegistry);
+        ReflectionTestUtils.setField(router, "enabledEngines", List.of("recorder"));
+        ReflectionTestUtils.setField(router, "hedgeEnabled", false);
+        ReflectionTestUtils.setField(router, "warmUpMaxBackoffMs", 30000L);
+        router.init();
+        TranscriptionSession.Resumption resumption = new TranscriptionSession.Resumption("token",
+                gracePeriod, 64 * 1024, meterRegistry.counter("resumed"),
+                meterRegistry.counter("duplicates"), meterRegistry.counter("expired"));
+        return new TranscriptionSession("session", router, router.select(), "default",
+                new TranscriptionSession.EndpointingSettings(TranscriptionSession.Endpointing.CLIENT,
+                        Duration.ofMillis(500), meterRegistry.timer("final.latency")),
+                new TurnAssembler.Settings(Duration.ofSeconds(1), meterRegistry.counter("saved"),
+                        meterRegistry.counter("superseded")),
+                resumption,
+                new TranscriptState("session", meterRegistry.summary("snapshot"), meterRegistry.summary("delta"), 16),
+                new TranscriptionSession.Listener() {
+                    @Override
+                    public void onResult(TranscriptionSession session, TranscriptionResult result,
+                                         TranscriptDelta delta) {
+                    }
+
+                    @Override
+                    public Mono<String> respond(TranscriptionSession session, String prompt) {
+                        return Mono.empty();
+                    }
+
+                    @Override
+                    public void onAiReply(TranscriptionSession session, String reply) {
+                    }
+
+                    @Override
+                    public void onClosed(TranscriptionSession session) {
+                    }
+                });
+    }
+
+    private SessionAdmissionService admission(int maxActiveSessions) {
+        SessionAdmissionService admission = new SessionAdmissionService(null, meterRegistry);
+        ReflectionTestUtils.setField(admission, "maxActiveSessions", maxActiveSessions);
+        ReflectionTestUtils.setField(admission, "maxQueuedHandshakes", 0);
+        ReflectionTestUtils.setField(admission, "queueTimeoutMs", 100L);
+        ReflectionTestUtils.setField(admission, "maxEventLoopLagMs", 200L);
+        ReflectionTestUtils.setField(admission, "maxQueuedFrames", 5000L);
+        ReflectionTestUtils.setField(admission, "retryAfterSeconds", 5L);
+        // No probes: there is no transcription service to ask for queued frames
+        ReflectionTestUtils.setField(admission, "probeIntervalMs", TimeUnit.HOURS.toMillis(1));
+        admission.init();
+        return admission;
+    }
+
+    private static byte[] frame(long seq) {
+        return ByteBuffer.allocate(320).putLong(seq).array();
+    }
+
+    @Test
+    void overlappingConnectionsDeliverEachFrameOnceInOrder() throws InterruptedException {
+        TranscriptionSession session = resumableSession();
+        session.startStream();
+
+        // A stale connection and its replacements resend the same frames at the same time
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> connections = new ArrayList<>();
+        for (int c = 0; c < CONNECTIONS; c++) {
+            Thread connection = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long seq = 0; seq < FRAMES; seq++) {
+                    session.sendAudio(seq, frame(seq));
+                }
+            });
+            connection.start();
+            connections.add(connection);
+        }
+        start.countDown();
+        for (Thread connection : connections) {
+            connection.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        session.close();
+
+        assertEquals(1, streams.size(), "the stream was abandoned");
+        assertEquals(LongStream.range(0, FRAMES).boxed().toList(), streams.get(0));
+        assertEquals(FRAMES, session.nextFrameSeq());
+        assertEquals((CONNECTIONS - 1) * FRAMES, meterRegistry.counter("duplicates").count());
+    }
+
+    @Test
+    void frameAfterStoppedStreamStartsNewOneOnce() {
+        TranscriptionSession session = resumableSession();
+        session.sendAudio(0, frame(0));
+        session.stopStream();
+        assertFalse(session.isStreamInitialized());
+
+        session.sendAudio(1, frame(1));
+        session.sendAudio(1, frame(1));
+        session.close();
+
+        assertEquals(List.of(List.of(0L), List.of(1L)), streams);
+    }
+
+    @Test
+    void detachedSessionKeepsItsPermitUntilItExpires() throws InterruptedException {
+        SessionAdmissionService admission = admission(2);
+        try {
+            TranscriptionSession session = resumableSession(Duration.ofMillis(300));
+            long attachment = session.attach(() -> {
+            });
+            session.holdPermit(admission.admit().block());
+            session.detach(attachment);
+            assertEquals(1, admission.activeSessions());
+
+            // The resuming connection was admitted too; the session already has a permit, so that one goes back
+            attachment = session.attach(() -> {
+            });
+            session.holdPermit(admission.admit().block());
+            assertEquals(1, admission.activeSessions());
+
+            session.detach(attachment);
+            Thread.sleep(100);
+            assertEquals(1, admission.activeSessions());
+            Thread.sleep(600);
+            assertEquals(1, meterRegistry.counter("expired").count());
+            assertEquals(0, admission.activeSessions());
+        } finally {
+            admission.cleanup();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.app.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    private LogSegment open(boolean recover) throws IOException {
+        return LogSegment.open(0, dir.resolve("segment.log"), dir.resolve("segment.idx"), 64, recover);
+    }
+
+    @Test
+    void recordsRoundTripThroughEncoding() throws IOException {
+        List<TranscriptRecord> records = List.of(
+                new TranscriptRecord("session-\u00fc", 1_700_000_000_123L, "user", false, "interim \u2713 \u65e5\u672c\u8a9e"),
+                new TranscriptRecord("session-\u00fc", 1_700_000_000_456L, "ai", true, ""),
+                new TranscriptRecord("other", 1_700_000_000_789L, "user", true, "x".repeat(70_000)));
+        try (LogSegment segment = open(false)) {
+            segment.append(records);
+            assertEquals(records, segment.readAll());
+        }
+        try (LogSegment segment = open(false)) {
+            assertEquals(records, segment.readAll());
+            assertEquals(1, segment.interimCount());
+            assertEquals(1_700_000_000_123L, segment.minTimestamp());
+            assertEquals(1_700_000_000_789L, segment.maxTimestamp());
+        }
+    }
+
+    @Test
+    void readWalksOneSessionsChainWithinTheTimeRange() throws IOException {
+        try (LogSegment segment = open(false)) {
+            for (int i = 1; i <= 10; i++) {
+                segment.append(List.of(new TranscriptRecord("a", i, "user", true, "a" + i),
+                        new TranscriptRecord("b", i, "user", true, "b" + i)));
+            }
+
+            assertEquals(List.of("a3", "a4", "a5"), texts(segment.read("a", 3, 5)));
+            assertEquals(10, segment.read("b", 0, Long.MAX_VALUE).size());
+            assertEquals(List.of(), segment.read("c", 0, Long.MAX_VALUE));
+        }
+        // The chain is rebuilt from the mapped index on reopen
+        try (LogSegment segment = open(false)) {
+            assertEquals(List.of("b9", "b10"), texts(segment.read("b", 9, 100)));
+        }
+    }
+
+    @Test
+    void recoveryCutsOffATornTail() throws IOException {
+        long intact;
+        try (LogSegment segment = open(false)) {
+            segment.append(List.of(new TranscriptRecord("a", 1, "user", true, "one"),
+                    new TranscriptRecord("a", 2, "user", true, "two")));
+            intact = segment.size();
+            segment.append(List.of(new TranscriptRecord("a", 3, "user", true, "three")));
+        }
+        try (FileChannel log = FileChannel.open(dir.resolve("segment.log"), StandardOpenOption.WRITE)) {
+            log.truncate(intact + 10);
+        }
+
+        try (LogSegment segment = open(true)) {
+            assertEquals(2, segment.entries());
+            assertEquals(intact, segment.size());
+            segment.append(List.of(new TranscriptRecord("a", 4, "user", true, "four")));
+            assertEquals(List.of("one", "two", "four"), texts(segment.read("a", 0, Long.MAX_VALUE)));
+        }
+        try (LogSegment segment = open(false)) {
+            assertEquals(List.of("one", "two", "four"), texts(segment.readAll()));
+        }
+    }
+
+    @Test
+    void appendBeyondIndexCapacityIsRefused() throws IOException {
+        try (LogSegment segment = open(false)) {
+            List<TranscriptRecord> full = IntStream.range(0, 64)
+                    .mapToObj(i -> new TranscriptRecord("a", i + 1, "user", true, "r" + i))
+                    .toList();
+            segment.append(full);
+
+            assertEquals(0, segment.remainingEntries());
+            assertThrows(IllegalArgumentException.class,
+                    () -> segment.append(List.of(new TranscriptRecord("a", 99, "user", true, "over"))));
+        }
+    }
+
+    @Test
+    void reopeningWithASmallerCapacityKeepsEveryRecord() throws IOException {
+        try (LogSegment segment = open(false)) {
+            segment.append(IntStream.range(0, 40)
+                    .mapToObj(i -> new TranscriptRecord("a", i + 1, "user", true, "r" + i))
+                    .toList());
+        }
+
+        for (boolean recover : new boolean[]{false, true}) {
+            try (LogSegment segment = LogSegment.open(0, dir.resolve("segment.log"), dir.resolve("segment.idx"), 8,
+                    recover)) {
+                assertEquals(40, segment.readAll().size());
+            }
+        }
+    }
+
+    @Test
+    void corruptPayloadFailsTheReadInsteadOfDecodingGarbage() throws IOException {
+        try (LogSegment segment = open(false)) {
+            segment.append(List.of(new TranscriptRecord("a", 1, "user", true, "hello world")));
+            segment.flush(true);
+        }
+        try (FileChannel log = FileChannel.open(dir.resolve("segment.log"), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.wrap(new byte[]{'X'}), 30);
+        }
+
+        try (LogSegment segment = open(false)) {
+            assertThrows(IOException.class, () -> segment.read("a", 0, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void indexThatDisagreesWithTheLogIsRejected() throws IOException {
+        try (LogSegment segment = open(false)) {
+            segment.append(List.of(new TranscriptRecord("a", 1, "user", true, "hello"),
+                    new TranscriptRecord("a", 2, "user", true, "world")));
+        }
+        try (FileChannel log = FileChannel.open(dir.resolve("segment.log"), StandardOpenOption.WRITE)) {
+            log.truncate(20);
+        }
+
+        assertThrows(IOException.class, () -> open(false));
+        try (LogSegment segment = open(true)) {
+            assertEquals(0, segment.entries());
+        }
+    }
+
+    private static List<String> texts(List<TranscriptRecord> records) {
+        return records.stream().map(TranscriptRecord::text).toList();
+    }
+}
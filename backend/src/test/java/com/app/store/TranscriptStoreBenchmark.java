@@ -0,0 +1,86 @@
+package com.app.store;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Write, read and recovery throughput of the transcript store with production segment sizes.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class TranscriptStoreBenchmark {
+
+    private static final int RECORDS = 500_000;
+    private static final int SESSIONS = 1_000;
+    private static final int SEGMENT_ENTRIES = 262_144;
+    private static final int READS = 20_000;
+    private static final String TEXT = "so the quarterly numbers look fine but we should revisit the forecast";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendReadAndRecover() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TranscriptStore store = TranscriptStoreTest.store(dir, meterRegistry, SEGMENT_ENTRIES);
+        long start = System.nanoTime();
+        for (int i = 0; i < RECORDS; i++) {
+            store.append(new TranscriptRecord("session-" + (i % SESSIONS), 1 + i, "user", i % 4 == 0, TEXT));
+            if (i % 50_000 == 49_999) {
+                // Stay within the queue capacity; the writer is measured, not the drop path
+                TranscriptStoreTest.awaitAppended(meterRegistry, i + 1 - 10_000);
+            }
+        }
+        TranscriptStoreTest.awaitAppended(meterRegistry, RECORDS);
+        double writeSeconds = (System.nanoTime() - start) / 1e9;
+        double bytes = meterRegistry.get("transcript.store.written").counter().count();
+        assertEquals(0, meterRegistry.get("transcript.store.dropped").counter().count());
+
+        start = System.nanoTime();
+        long returned = 0;
+        for (int i = 0; i < READS; i++) {
+            String session = "session-" + ThreadLocalRandom.current().nextInt(SESSIONS);
+            List<TranscriptRecord> records = store.read(session, 0, Long.MAX_VALUE, 100);
+            returned += records.size();
+        }
+        double readSeconds = (System.nanoTime() - start) / 1e9;
+        store.cleanup();
+
+        // Tear the tail of the active segment, as a crash mid-write would
+        Path active = dir.resolve("segment-0000000001.log");
+        try (FileChannel log = FileChannel.open(active, StandardOpenOption.WRITE)) {
+            log.truncate(log.size() - 7);
+        }
+        start = System.nanoTime();
+        TranscriptStore reopened = TranscriptStoreTest.store(dir, new SimpleMeterRegistry(), SEGMENT_ENTRIES);
+        double recoverSeconds = (System.nanoTime() - start) / 1e9;
+        long stored = countRecords(reopened);
+        reopened.cleanup();
+
+        log.info("append: {} records/s ({} MB/s); read: {} session reads/s ({} records each); "
+                        + "open with torn tail: {} ms, {} of {} records kept",
+                Math.round(RECORDS / writeSeconds), Math.round(bytes / writeSeconds / 1e6),
+                Math.round(READS / readSeconds), returned / READS, Math.round(recoverSeconds * 1000),
+                stored, RECORDS);
+        assertEquals(RECORDS - 1, stored);
+    }
+
+    private static long countRecords(TranscriptStore store) throws Exception {
+        long[] count = {0};
+        store.forEach(record -> count[0]++);
+        return count[0];
+    }
+}
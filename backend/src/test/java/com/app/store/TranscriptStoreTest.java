@@ -0,0 +1,227 @@
+package com.app.store;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranscriptStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<TranscriptStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeStores() {
+        opened.forEach(TranscriptStore::cleanup);
+    }
+
+    /** A store on {@code dir} configured like application.properties, with small segments. */
+    static TranscriptStore store(Path dir, MeterRegistry meterRegistry) {
+        return store(dir, meterRegistry, 1024);
+    }
+
+    static TranscriptStore store(Path dir, MeterRegistry meterRegistry, int segmentMaxEntries) {
+        TranscriptStore store = new TranscriptStore(meterRegistry);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "dir", dir);
+        ReflectionTestUtils.setField(store, "segmentMaxBytes", 64L * 1024 * 1024);
+        ReflectionTestUtils.setField(store, "segmentMaxEntries", segmentMaxEntries);
+        ReflectionTestUtils.setField(store, "batchSize", 256);
+        ReflectionTestUtils.setField(store, "batchDelayMs", 10L);
+        ReflectionTestUtils.setField(store, "queueCapacity", 65536);
+        ReflectionTestUtils.setField(store, "fsync", false);
+        ReflectionTestUtils.setField(store, "retentionHours", 168L);
+        ReflectionTestUtils.setField(store, "compactionIntervalMinutes", 10L);
+        store.init();
+        return store;
+    }
+
+    private TranscriptStore open(MeterRegistry meterRegistry) {
+        TranscriptStore store = store(dir, meterRegistry);
+        opened.add(store);
+        return store;
+    }
+
+    @Test
+    void concurrentAppendsAreAllWritten() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TranscriptStore store = store(dir, meterRegistry);
+        int threads = 8;
+        int perThread = 2000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String session = "session-" + t;
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    store.append(new TranscriptRecord(session, 1 + i, "user", true, "utterance " + i));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        store.cleanup();
+
+        assertEquals(0, meterRegistry.get("transcript.store.dropped").counter().count());
+        AtomicInteger stored = new AtomicInteger();
+        open(new SimpleMeterRegistry()).forEach(record -> stored.incrementAndGet());
+        assertEquals(threads * perThread, stored.get());
+    }
+
+    @Test
+    void readSpansRolledSegmentsAndKeepsTheNewest() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TranscriptStore store = open(meterRegistry);
+        for (int i = 1; i <= 3000; i++) {
+            store.append(new TranscriptRecord(i % 2 == 0 ? "even" : "odd", i, "user", true, "r" + i));
+        }
+        awaitAppended(meterRegistry, 3000);
+
+        List<TranscriptRecord> newest = store.read("even", 0, Long.MAX_VALUE, 3);
+        assertEquals(List.of("r2996", "r2998", "r3000"), texts(newest));
+        assertEquals(500, store.read("odd", 1001, 2000, 10_000).size());
+        assertTrue(meterRegistry.get("transcript.store.segments").gauge().value() > 1);
+    }
+
+    @Test
+    void compactionDeletesSegmentsPastRetention() throws Exception {
+        writeSegment(dir.resolve("segment-0000000000.log"), dir.resolve("segment-0000000000.idx"),
+                List.of(new TranscriptRecord("old", 1_000, "user", true, "long ago")));
+        writeSegment(dir.resolve("segment-0000000001.log"), dir.resolve("segment-0000000001.idx"),
+                List.of(new TranscriptRecord("new", System.currentTimeMillis(), "user", true, "just now")));
+        TranscriptStore store = open(new SimpleMeterRegistry());
+
+        ReflectionTestUtils.invokeMethod(store, "compact");
+
+        assertEquals(List.of(), store.read("old", 0, Long.MAX_VALUE, 10));
+        assertEquals(List.of("just now"), texts(store.read("new", 0, Long.MAX_VALUE, 10)));
+        assertFalse(Files.exists(dir.resolve("segment-0000000000.log")));
+    }
+
+    static void awaitAppended(MeterRegistry meterRegistry, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (meterRegistry.get("transcript.store.appended").counter().count() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Records were not written in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void crashBetweenCompactionMovesIsRepairedOnOpen() throws Exception {
+        writeCompactableSegments();
+        writeSegment(dir.resolve("segment-0000000000.log.compacting"),
+                dir.resolve("segment-0000000000.idx.compacting"), finalsOfSegmentZero());
+        // The log was swapped, the process died before the index followed
+        Files.move(dir.resolve("segment-0000000000.log.compacting"), dir.resolve("segment-0000000000.log"),
+                StandardCopyOption.REPLACE_EXISTING);
+
+        TranscriptStore store = open(new SimpleMeterRegistry());
+
+        assertEquals(List.of("first final", "second final"), texts(store.read("a", 0, Long.MAX_VALUE, 100)));
+        assertEquals(List.of("next segment"), texts(store.read("b", 0, Long.MAX_VALUE, 100)));
+        assertFalse(Files.exists(dir.resolve("segment-0000000000.idx.compacting")));
+    }
+
+    @Test
+    void committedCompactionIsCompletedOnOpen() throws Exception {
+        writeCompactableSegments();
+        writeSegment(dir.resolve("segment-0000000000.log.compacting"),
+                dir.resolve("segment-0000000000.idx.compacting"), finalsOfSegmentZero());
+        Files.createFile(dir.resolve("segment-0000000000.compacted"));
+        Files.move(dir.resolve("segment-0000000000.log.compacting"), dir.resolve("segment-0000000000.log"),
+                StandardCopyOption.REPLACE_EXISTING);
+
+        TranscriptStore store = open(new SimpleMeterRegistry());
+
+        assertEquals(List.of("first final", "second final"), texts(store.read("a", 0, Long.MAX_VALUE, 100)));
+        assertFalse(Files.exists(dir.resolve("segment-0000000000.compacted")));
+        assertFalse(Files.exists(dir.resolve("segment-0000000000.idx.compacting")));
+    }
+
+    @Test
+    void unfinishedCompactionFilesAreDiscarded() throws Exception {
+        writeCompactableSegments();
+        writeSegment(dir.resolve("segment-0000000000.log.compacting"),
+                dir.resolve("segment-0000000000.idx.compacting"), finalsOfSegmentZero().subList(0, 1));
+
+        TranscriptStore store = open(new SimpleMeterRegistry());
+
+        assertEquals(List.of("first", "first final", "second", "second final"),
+                texts(store.read("a", 0, Long.MAX_VALUE, 100)));
+        assertFalse(Files.exists(dir.resolve("segment-0000000000.log.compacting")));
+        assertFalse(Files.exists(dir.resolve("segment-0000000000.idx.compacting")));
+    }
+
+    @Test
+    void compactionKeepsFinalsOfClosedSegments() throws Exception {
+        writeCompactableSegments();
+        TranscriptStore store = open(new SimpleMeterRegistry());
+
+        ReflectionTestUtils.invokeMethod(store, "compact");
+
+        assertEquals(List.of("first final", "second final"), texts(store.read("a", 0, Long.MAX_VALUE, 100)));
+        assertFalse(Files.exists(dir.resolve("segment-0000000000.compacted")));
+        store.cleanup();
+        opened.remove(store);
+        assertEquals(List.of("first final", "second final"),
+                texts(open(new SimpleMeterRegistry()).read("a", 0, Long.MAX_VALUE, 100)));
+    }
+
+    /** Closed segment 0 with interims and finals of session "a", active segment 1 with session "b". */
+    private void writeCompactableSegments() throws IOException {
+        long now = System.currentTimeMillis();
+        writeSegment(dir.resolve("segment-0000000000.log"), dir.resolve("segment-0000000000.idx"), List.of(
+                new TranscriptRecord("a", now, "user", false, "first"),
+                new TranscriptRecord("a", now + 1, "user", true, "first final"),
+                new TranscriptRecord("a", now + 2, "user", false, "second"),
+                new TranscriptRecord("a", now + 3, "user", true, "second final")));
+        writeSegment(dir.resolve("segment-0000000001.log"), dir.resolve("segment-0000000001.idx"), List.of(
+                new TranscriptRecord("b", now + 4, "user", true, "next segment")));
+    }
+
+    private static List<TranscriptRecord> finalsOfSegmentZero() {
+        long now = System.currentTimeMillis();
+        return List.of(new TranscriptRecord("a", now + 1, "user", true, "first final"),
+                new TranscriptRecord("a", now + 3, "user", true, "second final"));
+    }
+
+    static void writeSegment(Path log, Path index, List<TranscriptRecord> records) throws IOException {
+        try (LogSegment segment = LogSegment.open(0, log, index, 1024, false)) {
+            segment.append(records);
+            segment.flush(true);
+        }
+    }
+
+    private static List<String> texts(List<TranscriptRecord> records) {
+        return records.stream().map(TranscriptRecord::text).toList();
+    }
+}
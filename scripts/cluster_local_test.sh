@@ -0,0 +1,66 @@
+#!/bin/bash
+# Starts two backend nodes in cluster mode on this machine, subscribes to the transcript stream on node B and
+# publishes a result on node A; passes if B's subscriber receives it.
+# Usage: scripts/cluster_local_test.sh   (from the repository root, after a successful mvn package)
+# STARTUP_TIMEOUT (seconds, default 60) bounds the wait for each node to answer on HTTP.
+
+JAR=$(ls backend/target/*.jar 2>/dev/null | grep -v original | head -1)
+if [ -z "$JAR" ]; then
+    echo "❌ No backend jar found. Run 'mvn -B package -DskipTests' in backend first."
+    exit 1
+fi
+
+start_node() {
+    java -jar "$JAR" \
+        --server.port=$2 \
+        --cluster.enabled=true \
+        --cluster.node-id=$1 \
+        --cluster.port=$3 \
+        --cluster.peers=$4 \
+        --cluster.advertised-url=http://localhost:$2 \
+        --cluster.secret=local-test \
+        --debug.publish.enabled=true \
+        --stt.store.dir=/tmp/cluster-test-$1 \
+        > /tmp/cluster-test-$1.log 2>&1 &
+}
+
+cleanup() {
+    kill $NODE_A $NODE_B $SUBSCRIBER 2>/dev/null
+}
+trap cleanup EXIT
+
+echo "🚀 Starting node a (HTTP 8081) and node b (HTTP 8082)..."
+start_node a 8081 7401 b@localhost:7402
+NODE_A=$!
+start_node b 8082 7402 a@localhost:7401
+NODE_B=$!
+
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-60}
+for node in a:8081 b:8082; do
+    waited=0
+    until curl -s -o /dev/null http://localhost:${node#*:}/api/cluster; do
+        if [ $waited -ge $STARTUP_TIMEOUT ]; then
+            echo "❌ Node ${node%%:*} did not come up within ${STARTUP_TIMEOUT}s; last lines of /tmp/cluster-test-${node%%:*}.log:"
+            tail -20 /tmp/cluster-test-${node%%:*}.log
+            exit 1
+        fi
+        sleep 1
+        waited=$((waited + 1))
+    done
+done
+echo "✅ Both nodes are UP: $(curl -s http://localhost:8081/api/cluster)"
+
+curl -s -N http://localhost:8082/api/transcription/stream > /tmp/cluster-test-subscriber.out &
+SUBSCRIBER=$!
+# Give the subscription's interest time to reach node a
+sleep 2
+
+curl -s -X POST "http://localhost:8081/api/debug/publish?sessionId=cluster-test&text=hello+from+node+a"
+sleep 2
+
+if grep -q "hello from node a" /tmp/cluster-test-subscriber.out; then
+    echo "✅ Subscriber on node b received the event published on node a"
+else
+    echo "❌ Subscriber on node b received nothing; see /tmp/cluster-test-a.log and /tmp/cluster-test-b.log"
+    exit 1
+fi